@@ -0,0 +1,89 @@
+package sokoban.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import sokoban.model.Board;
+import sokoban.model.Direction;
+import sokoban.model.Grid;
+import sokoban.model.Grid4Design;
+import sokoban.model.Grid4Play;
+import sokoban.model.GridState;
+import sokoban.model.Wall;
+import sokoban.viewmodel.BoardViewModel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operations on the grids: copies, start of a game, recording of the history and updates of the counters
+ * and of the bindings of the board when a cell of the editor changes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridBenchmark {
+
+    @Param({"10", "20", "30", "40", "50"})
+    public String size;
+
+    private Board board;
+    private Grid design;
+    private Grid4Design designCopy;
+    private Grid4Play play;
+    private Board playBoard;
+    private GridState gridState;
+    private BoardViewModel boardViewModel;
+    private boolean right;
+
+    @Setup
+    public void setup() {
+        board = new Board();
+        design = board.open(Levels.file(size));
+        designCopy = new Grid4Design(design.getGridWidth(), design.getGridHeight());
+        play = new Grid4Play(design.getGridWidth(), design.getGridHeight());
+        boardViewModel = new BoardViewModel(board);
+
+        playBoard = new Board();
+        Grid4Play history = new Grid4Play(design.getGridWidth(), design.getGridHeight());
+        history.copy(design);
+        playBoard.setGrid(history);
+        gridState = playBoard.getGridState();
+        gridState.addBoardState(playBoard);
+    }
+
+    @Benchmark
+    public Grid copyDesign() {
+        designCopy.copy(design);
+        return designCopy;
+    }
+
+    @Benchmark
+    public Grid copyToPlay() {
+        play.copy(design);
+        return play;
+    }
+
+    @Benchmark
+    public Grid4Play startGame() {
+        // Copy, numbers of the boxes and goals, mushroom and dead squares, as the Play button does
+        return boardViewModel.gridGame();
+    }
+
+    @Benchmark
+    public int addBoardState() {
+        right = !right;
+        playBoard.getPlayGrid().movePlayer(right ? Direction.RIGHT : Direction.LEFT);
+        gridState.addBoardState(playBoard);
+        return gridState.size();
+    }
+
+    @Benchmark
+    public boolean counters() {
+        // An empty cell of the corridor: the wall changes the filled cells counter and the rules bindings
+        board.putElement(1, 2, Wall.INSTANCE);
+        boolean full = board.isFull();
+        board.removeCellElement(1, 2, Wall.INSTANCE);
+        return full & board.getRulesOK().get();
+    }
+}
@@ -0,0 +1,96 @@
+package sokoban.benchmark;
+
+import sokoban.model.BinaryLevel;
+import sokoban.model.LevelConverter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Levels class gives the level files used by the benchmarks: either a level of the boards directory
+ * (set with the system property sokoban.boards, ../boards by default), or a generated level
+ * when the name is a size, either square (50) or width x height (20x5000).
+ * <p>
+ * A generated level has walls around it and pillars inside, the player in a free corridor on the first row,
+ * so it can always move left and right, and size / 2 boxes and goals that are not placed.
+ */
+final class Levels {
+
+    private Levels() {
+    }
+
+    /**
+     * Gets the file of a level.
+     *
+     * @param level A file name of the boards directory, or a size such as 50 or 20x5000,
+     *              followed by .sokb for the binary form of the level.
+     * @return The level file.
+     */
+    static File file(String level) {
+        if (level.endsWith(BinaryLevel.EXTENSION)) {
+            String base = level.substring(0, level.length() - BinaryLevel.EXTENSION.length());
+            return binary(file(base.matches("[\\dx]+") ? base : base + ".xsb"));
+        }
+        if (level.matches("\\d+")) {
+            return generate(Integer.parseInt(level), Integer.parseInt(level));
+        }
+        if (level.matches("\\d+x\\d+")) {
+            String[] size = level.split("x");
+            return generate(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+        }
+        return Path.of(System.getProperty("sokoban.boards", "../boards"), level).toFile();
+    }
+
+    /**
+     * Converts a level to the binary form, in a temporary file.
+     */
+    static File binary(File source) {
+        try {
+            Path file = Files.createTempFile("sokoban-", BinaryLevel.EXTENSION);
+            file.toFile().deleteOnExit();
+            LevelConverter.convert(source.toPath(), file);
+            return file.toFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a generated level of the given size in a temporary file.
+     */
+    static File generate(int width, int height) {
+        int size = Math.min(width, height);
+        char[][] cells = new char[height][width];
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                boolean border = i == 0 || j == 0 || i == height - 1 || j == width - 1;
+                boolean pillar = i >= 3 && i % 3 == 0 && j % 4 == 0;
+                cells[i][j] = border || pillar ? '#' : ' ';
+            }
+        }
+        cells[1][1] = '@';
+        for (int n = 0; n < size / 2; n++) {
+            int col = 1 + 2 * n % (size - 2);
+            cells[height / 2][col] = '$';
+            cells[height - 2][col] = '.';
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (char[] row : cells) {
+            lines.add(new String(row));
+        }
+        try {
+            Path file = Files.createTempFile("sokoban-" + width + "x" + height + "-", ".xsb");
+            file.toFile().deleteOnExit();
+            Files.write(file, lines);
+            return file.toFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package sokoban.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import sokoban.model.BinaryLevel;
+import sokoban.model.Board;
+import sokoban.model.Grid;
+import sokoban.model.Grid4Play;
+import sokoban.model.Level;
+import sokoban.model.LevelReader;
+import sokoban.model.PlayState;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading of a level, for the levels of the boards directory, generated levels of each size
+ * and a level of thousands of lines, in the XSB and in the binary forms: into the editor with Board.open
+ * (from the LevelCache after the first call) or read again each time, into a PlayState only, and into the play grid.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenBenchmark {
+
+    @Param({"level.xsb", "level1.xsb", "level2.xsb", "level3.xsb", "level4.xsb", "10", "20", "30", "40", "50", "20x5000",
+            "level3.sokb", "50.sokb", "20x5000.sokb"})
+    public String level;
+
+    private File file;
+    private Board board;
+    private Grid4Play play;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Levels.file(level);
+        board = new Board();
+        PlayState state = read();
+        play = new Grid4Play(state.getWidth(), state.getHeight());
+    }
+
+    @Benchmark
+    public Grid open() {
+        return board.open(file);
+    }
+
+    @Benchmark
+    public Grid openUncached() throws IOException {
+        return board.open(BinaryLevel.isBinary(file.getName())
+                ? Level.of(BinaryLevel.read(file.toPath()))
+                : LevelReader.read(file.toPath()));
+    }
+
+    @Benchmark
+    public PlayState read() throws IOException {
+        return BinaryLevel.isBinary(file.getName())
+                ? BinaryLevel.read(file.toPath())
+                : PlayState.of(LevelReader.read(file.toPath()));
+    }
+
+    @Benchmark
+    public Grid openPlay() throws IOException {
+        play.load(read());
+        return play;
+    }
+}
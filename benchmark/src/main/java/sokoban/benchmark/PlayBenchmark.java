@@ -0,0 +1,49 @@
+package sokoban.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import sokoban.model.Board;
+import sokoban.model.Direction;
+import sokoban.viewmodel.BoardViewModel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves of the player through BoardViewModel, as done by the keyboard in play mode, and undo/redo.
+ * The player walks left and right in a free corridor, so every move succeeds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayBenchmark {
+
+    @Param({"10", "20", "30", "40", "50"})
+    public String size;
+
+    private BoardViewModel boardViewModel;
+    private boolean right;
+
+    @Setup
+    public void setup() {
+        Board board = new Board();
+        board.open(Levels.file(size));
+        boardViewModel = new BoardViewModel(board);
+        boardViewModel.saveGridDesign();
+        board.setGrid(boardViewModel.gridGame());
+        boardViewModel.movePlayer(Direction.RIGHT);
+    }
+
+    @Benchmark
+    public boolean movePlayer() {
+        right = !right;
+        return boardViewModel.movePlayer(right ? Direction.LEFT : Direction.RIGHT);
+    }
+
+    @Benchmark
+    public void undoRedo() {
+        boardViewModel.undo();
+        boardViewModel.redo();
+    }
+}
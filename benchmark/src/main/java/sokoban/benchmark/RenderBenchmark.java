@@ -0,0 +1,150 @@
+package sokoban.benchmark;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.*;
+import sokoban.model.Board;
+import sokoban.model.ChangedCells;
+import sokoban.model.Direction;
+import sokoban.model.PlayState;
+import sokoban.view.GridPainter;
+import sokoban.viewmodel.BoardViewModel;
+import sokoban.viewmodel.GridViewModel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame time of the canvas renderer (GridView4Canvas): drawing the whole play grid with the GridPainter,
+ * at the size of the board in the window (480 pixels high), and after a move of the player, either the whole
+ * grid or only the cells changed by the move, as GridView4Canvas does. The viewport benchmarks draw,
+ * as GridView4Viewport does, the part of the grid seen through a 640x480 viewport with 24 pixel cells
+ * around the player: their time should not depend on the size of the grid.
+ * <p>
+ * Without a display, the toolkit is not started: the frame is the time spent on the JavaFX thread to record
+ * the drawing commands, the rasterization of the canvas on the render thread is not measured. The images
+ * are plain tiles of the size of the ones of the game, the real ones can only be decoded by the toolkit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dprism.order=sw")
+public class RenderBenchmark {
+    private static final double BOARD_HEIGHT = 480;
+    private static final double VIEWPORT_WIDTH = 640;
+    private static final double VIEWPORT_CELL_SIZE = 24;
+
+    @Param({"10", "20", "30", "40", "50", "100", "200", "500"})
+    public String size;
+
+    private BoardViewModel boardViewModel;
+    private GridViewModel gridViewModel;
+    private PlayState state;
+    private GraphicsContext gc;
+    private GridPainter painter;
+    private double cellSize;
+    private GraphicsContext viewport;
+    private double originX;
+    private double originY;
+    private boolean right;
+    private int frames;
+
+    @Setup
+    public void setup() {
+        Board board = new Board();
+        board.open(Levels.file(size));
+        boardViewModel = new BoardViewModel(board);
+        boardViewModel.saveGridDesign();
+        board.setGrid(boardViewModel.gridGame());
+        gridViewModel = boardViewModel.getGridViewModel();
+        state = gridViewModel.getPlayState();
+
+        cellSize = Math.max(1, Math.floor(BOARD_HEIGHT / state.getHeight()));
+        Canvas canvas = new Canvas(cellSize * state.getWidth(), cellSize * state.getHeight());
+        gc = canvas.getGraphicsContext2D();
+        viewport = new Canvas(VIEWPORT_WIDTH, BOARD_HEIGHT).getGraphicsContext2D();
+        int player = state.getPlayer();
+        originX = clampOrigin(VIEWPORT_WIDTH / 2 - (player % state.getWidth() + 0.5) * VIEWPORT_CELL_SIZE,
+                VIEWPORT_WIDTH, state.getWidth());
+        originY = clampOrigin(BOARD_HEIGHT / 2 - (player / state.getWidth() + 0.5) * VIEWPORT_CELL_SIZE,
+                BOARD_HEIGHT, state.getHeight());
+        painter = new GridPainter(tile(Color.BEIGE), tile(Color.GRAY), tile(Color.RED), tile(Color.BROWN),
+                tile(Color.BLUE), tile(Color.GREEN));
+    }
+
+    // Centered on the player, the viewport stays on the board, as in GridView4Viewport
+    private static double clampOrigin(double origin, double viewport, int cells) {
+        double size = VIEWPORT_CELL_SIZE * cells;
+        if (size <= viewport) {
+            return Math.floor((viewport - size) / 2);
+        }
+        return Math.max(viewport - size, Math.min(0, Math.floor(origin)));
+    }
+
+    private static Image tile(Color color) {
+        WritableImage image = new WritableImage(64, 64);
+        PixelWriter writer = image.getPixelWriter();
+        for (int x = 0; x < 64; x++) {
+            for (int y = 0; y < 64; y++) {
+                writer.setColor(x, y, color);
+            }
+        }
+        return image;
+    }
+
+    @Benchmark
+    public GraphicsContext paintFrame() {
+        painter.paint(gc, state, cellSize);
+        return gc;
+    }
+
+    @Benchmark
+    public GraphicsContext moveAndPaint() {
+        right = !right;
+        boardViewModel.movePlayer(right ? Direction.RIGHT : Direction.LEFT);
+        painter.paint(gc, state, cellSize);
+        return gc;
+    }
+
+    @Benchmark
+    public GraphicsContext moveAndPaintChanges() {
+        right = !right;
+        boardViewModel.movePlayer(right ? Direction.RIGHT : Direction.LEFT);
+        ChangedCells changes = gridViewModel.getChanges();
+        for (int i = 0; i < changes.size(); i++) {
+            painter.paintCell(gc, state, changes.get(i), cellSize);
+        }
+        gridViewModel.clearChanges();
+        if (++frames % 1024 == 0) {
+            // Stands for the pulses, that hand the recorded commands to the render thread
+            gc.clearRect(0, 0, gc.getCanvas().getWidth(), gc.getCanvas().getHeight());
+        }
+        return gc;
+    }
+
+    @Benchmark
+    public int paintViewport() {
+        return painter.paintViewport(viewport, state, originX, originY, VIEWPORT_CELL_SIZE);
+    }
+
+    @Benchmark
+    public GraphicsContext moveAndPaintViewportChanges() {
+        right = !right;
+        boardViewModel.movePlayer(right ? Direction.RIGHT : Direction.LEFT);
+        ChangedCells changes = gridViewModel.getChanges();
+        for (int i = 0; i < changes.size(); i++) {
+            painter.paintCell(viewport, state, changes.get(i), originX, originY, VIEWPORT_CELL_SIZE);
+        }
+        gridViewModel.clearChanges();
+        if (++frames % 1024 == 0) {
+            // Stands for the pulses, that hand the recorded commands to the render thread
+            viewport.clearRect(0, 0, VIEWPORT_WIDTH, BOARD_HEIGHT);
+        }
+        return viewport;
+    }
+}
@@ -0,0 +1,45 @@
+package sokoban.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import sokoban.model.Board;
+import sokoban.model.Grid;
+import sokoban.viewmodel.GridViewModel;
+import sokoban.viewmodel.BoardViewModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving of the grid of the editor with GridViewModel.saveMenu, up to the file written on the disk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveBenchmark {
+
+    @Param({"10", "20", "30", "40", "50"})
+    public String size;
+
+    private Grid grid;
+    private GridViewModel gridViewModel;
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        Board board = new Board();
+        grid = board.open(Levels.file(size));
+        gridViewModel = new BoardViewModel(board).getGridViewModel();
+        file = File.createTempFile("sokoban-save-", ".xsb");
+        file.deleteOnExit();
+    }
+
+    @Benchmark
+    public long saveMenu() {
+        gridViewModel.saveMenu(grid, file).join();
+        return file.length();
+    }
+}
@@ -0,0 +1,82 @@
+package sokoban.benchmark;
+
+import sokoban.model.PlayState;
+import sokoban.solver.SolutionValidator;
+import sokoban.solver.Solver;
+import sokoban.solver.SolverResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The SolverBenchmark class runs the Solver on every .xsb level of the given files and directories
+ * (the boards directory by default) and prints, for each level, the outcome, the size of the solution,
+ * the number of nodes and the time of the search. Every solution found is replayed with the SolutionValidator
+ * to check that it solves the level. A search is run once, so this measures the searches themselves;
+ * the other classes of this module are JMH benchmarks.
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar sokoban.benchmark.SolverBenchmark [maxNodes] [paths...]}
+ */
+public class SolverBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        long maxNodes = Solver.DEFAULT_MAX_NODES;
+        List<Path> levels = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.matches("\\d+")) {
+                maxNodes = Long.parseLong(arg);
+            } else {
+                addLevels(Path.of(arg), levels);
+            }
+        }
+        if (levels.isEmpty()) {
+            addLevels(Path.of(System.getProperty("sokoban.boards", "../boards")), levels);
+        }
+
+        Solver solver = new Solver(maxNodes, Solver.DEFAULT_MAX_MEMORY, Solver.DEFAULT_TIMEOUT_MILLIS);
+        long totalMillis = 0;
+        long totalNodes = 0;
+        int solved = 0;
+        System.out.printf("%-40s %-12s %7s %7s %10s %8s%n", "level", "status", "moves", "pushes", "nodes", "ms");
+        for (Path level : levels) {
+            PlayState state = PlayState.parse(Files.readAllLines(level));
+            SolverResult result = solver.solve(state);
+            String status = result.getStatus().toString();
+            if (result.isSolved()) {
+                solved++;
+                if (!replay(state, result.getSolution())) {
+                    status = "INVALID";
+                }
+            }
+            totalMillis += result.getElapsedMillis();
+            totalNodes += result.getNodes();
+            System.out.printf("%-40s %-12s %7d %7d %10d %8d%n", level, status,
+                    result.isSolved() ? result.getSolution().length() : 0, result.getPushes(),
+                    result.getNodes(), result.getElapsedMillis());
+        }
+        System.out.printf("%d/%d solved, %d nodes, %d ms%n", solved, levels.size(), totalNodes, totalMillis);
+    }
+
+    private static void addLevels(Path path, List<Path> levels) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.walk(path)) {
+                files.filter(file -> file.toString().endsWith(".xsb")).sorted().forEach(levels::add);
+            }
+        } else {
+            levels.add(path);
+        }
+    }
+
+    /**
+     * Plays a LURD solution on a copy of the state (see SolutionValidator).
+     *
+     * @return true if every push of the solution pushes a box, every move moves and the level ends solved.
+     */
+    private static boolean replay(PlayState state, String solution) {
+        return SolutionValidator.validate(state, solution).isSolved();
+    }
+}
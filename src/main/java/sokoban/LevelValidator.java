@@ -0,0 +1,264 @@
+package sokoban;
+
+import sokoban.model.BinaryLevel;
+import sokoban.model.LevelCollection;
+import sokoban.model.LevelRules;
+import sokoban.model.PlayState;
+import sokoban.model.RleWriter;
+import sokoban.solver.SolutionValidator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * The LevelValidator class checks in bulk, without any view, the levels of files, directories and
+ * collections against the rules of LevelRules, and writes a report with one JSON object per line and level:
+ * <pre>
+ * {"file":"boards/level1.xsb","valid":true,"players":1,"boxes":3,"goals":3,"errors":[]}
+ * {"file":"boards/set.txt","level":4,"title":"Five","valid":false,"players":1,"boxes":2,"goals":3,"errors":["BOX_GOAL_MISMATCH"]}
+ * {"file":"boards/bad.xsb","valid":false,"errors":["UNREADABLE"],"message":"..."}
+ * </pre>
+ * The levels are read and checked in parallel by a thread per core. The files are listed and the levels
+ * submitted in order, and the pending results wait in a bounded queue, written in the same order: a large
+ * collection only holds a few thousand levels in memory at once, and the report does not depend on the
+ * number of threads.
+ * <p>
+ * Usage: {@code java -cp target/classes sokoban.LevelValidator [-j threads] [-o report.jsonl] [paths...]}
+ * <br>
+ * The paths default to the boards directory. The exit status is 0 if all the levels are valid, 1 otherwise.
+ */
+public final class LevelValidator {
+    // Results waiting to be written, for each thread
+    private static final int QUEUE_PER_THREAD = 256;
+
+    private static final Future<String> END = CompletableFuture.completedFuture(null);
+
+    private final ExecutorService pool;
+    private final BlockingQueue<Future<String>> results;
+    private final AtomicInteger invalid = new AtomicInteger();
+    private int levels;
+
+    private LevelValidator(int threads) {
+        pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "sokoban-validator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        results = new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path output = null;
+        List<Path> paths = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-j" -> threads = Integer.parseInt(args[++i]);
+                    case "-o" -> output = Path.of(args[++i]);
+                    default -> paths.add(Path.of(args[i]));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            threads = 0;
+        }
+        if (threads <= 0) {
+            System.err.println("Usage: sokoban.LevelValidator [-j threads] [-o report.jsonl] [paths...]");
+            System.exit(2);
+        }
+        if (paths.isEmpty()) {
+            paths.add(Path.of("boards"));
+        }
+
+        LevelValidator validator = new LevelValidator(threads);
+        long start = System.nanoTime();
+        try (Writer writer = output != null ? Files.newBufferedWriter(output)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)) {
+            validator.run(paths, writer);
+        }
+        long nanos = System.nanoTime() - start;
+        int invalid = validator.invalid.get();
+        System.err.printf("%d levels, %d invalid, %d ms (%.0f levels/s, %d threads)%n", validator.levels, invalid,
+                nanos / 1_000_000, validator.levels * 1e9 / Math.max(nanos, 1), threads);
+        System.exit(invalid == 0 ? 0 : 1);
+    }
+
+    // Submits the levels on this thread while another one writes the results
+    private void run(List<Path> paths, Writer writer) throws IOException, InterruptedException {
+        IOException[] failure = new IOException[1];
+        Thread printer = new Thread(() -> failure[0] = write(writer), "sokoban-report");
+        printer.start();
+        try {
+            for (Path path : paths) {
+                submitAll(path);
+            }
+        } finally {
+            results.put(END);
+            printer.join();
+            pool.shutdownNow();
+        }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    // Writes the results in order; after an error of the output, they are only taken so the submission ends
+    private IOException write(Writer writer) {
+        IOException failure = null;
+        try {
+            while (true) {
+                Future<String> result = results.take();
+                if (result == END) {
+                    return failure;
+                }
+                String line = result.get();
+                if (failure == null) {
+                    try {
+                        writer.write(line);
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e); // The tasks report their errors as lines
+        }
+    }
+
+    private void submitAll(Path path) throws InterruptedException {
+        if (!Files.isDirectory(path)) {
+            submitFile(path);
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(path)) {
+            files = walk.filter(file -> isLevel(file) || LevelCollection.isCollection(file)).sorted().toList();
+        } catch (IOException | UncheckedIOException e) {
+            submit(() -> unreadable(path, e));
+            return;
+        }
+        for (Path file : files) {
+            submitFile(file);
+        }
+    }
+
+    private void submitFile(Path file) throws InterruptedException {
+        if (!LevelCollection.isCollection(file)) {
+            submit(() -> {
+                try {
+                    return report(file, -1, null, SolutionValidator.readLevel(file));
+                } catch (IOException | RuntimeException e) { // A damaged binary file may fail anywhere
+                    return unreadable(file, e);
+                }
+            });
+            return;
+        }
+        LevelCollection collection;
+        try {
+            collection = LevelCollection.open(file);
+        } catch (IOException e) {
+            submit(() -> unreadable(file, e));
+            return;
+        }
+        // The collection is only read with absolute positions, so its levels can be parsed concurrently
+        for (int i = 0; i < collection.size(); i++) {
+            int index = i;
+            submit(() -> {
+                try {
+                    return report(file, index, collection.getTitle(index), PlayState.of(collection.getLevel(index)));
+                } catch (RuntimeException e) {
+                    return unreadable(file, e);
+                }
+            });
+        }
+    }
+
+    // Waits while the queue of results is full, so the levels are not read much ahead of the report
+    private void submit(Callable<String> task) throws InterruptedException {
+        results.put(pool.submit(task));
+        levels++;
+    }
+
+    private static boolean isLevel(Path path) {
+        String name = path.getFileName().toString();
+        return name.endsWith(".xsb") || RleWriter.isRle(name) || BinaryLevel.isBinary(name);
+    }
+
+    // Report lines
+
+    private String report(Path file, int index, String title, PlayState state) {
+        LevelRules rules = LevelRules.check(state);
+        if (!rules.isValid()) {
+            invalid.incrementAndGet();
+        }
+        StringBuilder line = new StringBuilder(128);
+        line.append("{\"file\":");
+        quote(line, file.toString());
+        if (index >= 0) {
+            line.append(",\"level\":").append(index).append(",\"title\":");
+            quote(line, title);
+        }
+        line.append(",\"valid\":").append(rules.isValid())
+                .append(",\"players\":").append(rules.getPlayers())
+                .append(",\"boxes\":").append(rules.getBoxes())
+                .append(",\"goals\":").append(rules.getGoals())
+                .append(",\"errors\":[");
+        String separator = "";
+        for (LevelRules.Violation violation : rules.getViolations()) {
+            line.append(separator).append('"').append(violation).append('"');
+            separator = ",";
+        }
+        return line.append("]}").toString();
+    }
+
+    private String unreadable(Path file, Exception e) {
+        invalid.incrementAndGet();
+        StringBuilder line = new StringBuilder(128);
+        line.append("{\"file\":");
+        quote(line, file.toString());
+        line.append(",\"valid\":false,\"errors\":[\"UNREADABLE\"],\"message\":");
+        quote(line, String.valueOf(e.getMessage()));
+        return line.append('}').toString();
+    }
+
+    private static void quote(StringBuilder line, String text) {
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+}
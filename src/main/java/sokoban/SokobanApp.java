@@ -3,9 +3,16 @@ package sokoban;
 import javafx.application.Application;
 import javafx.stage.Stage;
 import sokoban.model.Board;
+import sokoban.model.Journal;
+import sokoban.model.LevelLibrary;
 import sokoban.view.BoardView4Design;
+import sokoban.view.RestoreConfirm;
 import sokoban.viewmodel.BoardViewModel;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 public class
 SokobanApp extends Application  {
 
@@ -13,7 +20,50 @@ SokobanApp extends Application  {
     public void start(Stage primaryStage) {
         Board board = new Board();
         BoardViewModel vm = new BoardViewModel(board);
-        new BoardView4Design(primaryStage, vm);
+        boolean playing = openJournal(board, vm);
+        BoardView4Design view = new BoardView4Design(primaryStage, vm);
+        if (playing) {
+            view.resumeGame();
+        }
+        watchLevels(vm);
+    }
+
+    // Watches the boards directory, to show the changes of the level open in the editor
+    private static void watchLevels(BoardViewModel vm) {
+        Path directory = LevelLibrary.defaultDirectory();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try {
+            vm.watchLevels(directory);
+        } catch (IOException e) {
+            System.err.println("Dossier des niveaux non surveillé : " + e.getMessage());
+        }
+    }
+
+    // Opens the journal of the work in progress, and offers to restore the work left in it
+    private static boolean openJournal(Board board, BoardViewModel vm) {
+        Path path = Journal.defaultPath();
+        boolean restore = Journal.hasRecords(path) && RestoreConfirm.showDialog();
+        try {
+            Journal journal = new Journal(path);
+            board.setJournal(journal);
+            // Written to the end when the application exits, whatever the way
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("Journal non écrit : " + e.getMessage());
+                }
+            }));
+            if (restore) {
+                return vm.restoreJournal();
+            }
+            journal.clear();
+        } catch (IOException e) {
+            System.err.println("Journal indisponible : " + e.getMessage());
+        }
+        return false;
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,200 @@
+package sokoban.model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The BinaryLevel class reads and writes levels and positions being played in a compact binary form (.sokb).
+ * <p>
+ * All the values are big-endian:
+ * <pre>
+ *  int    magic "SOKB"
+ *  short  version (1)
+ *  short  flags: 1 numbers, 2 mushroom, 4 mushroom visible
+ *  short  width, short height
+ *  int    index of the player, -1 if none
+ *  int    index of the mushroom, if flag 2
+ *  long[] walls, goals, boxes: one bit per cell, (width * height + 63) / 64 words each
+ *  short[] numbers of the boxes then of the goals, in the order of the cells, if flag 1
+ * </pre>
+ * Reading decodes the three layers to the codes of the cells with bit operations only, into a PlayState
+ * that the play grid loads as is (see Grid4Play.load).
+ */
+public final class BinaryLevel {
+    public static final String EXTENSION = ".sokb";
+    private static final int MAGIC = 0x534F4B42; // "SOKB"
+    private static final short VERSION = 1;
+    private static final short NUMBERS = 1;
+    private static final short MUSHROOM = 1 << 1;
+    private static final short MUSHROOM_VISIBLE = 1 << 2;
+    private static final byte[] LAYERS = {CellState.WALL, CellState.GOAL, CellState.BOX};
+
+    private BinaryLevel() {
+    }
+
+    /**
+     * Checks if a file name has the extension of the binary form.
+     *
+     * @param name The name of the file.
+     * @return true if the name ends with .sokb, false otherwise.
+     */
+    public static boolean isBinary(String name) {
+        return name.toLowerCase().endsWith(EXTENSION);
+    }
+
+    /**
+     * Reads a binary level file.
+     *
+     * @param path The file to read.
+     * @return The position stored in the file.
+     * @throws IOException if the file cannot be read, is not a binary level or has an unknown version.
+     */
+    public static PlayState read(Path path) throws IOException {
+        return read(ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
+
+    /**
+     * Decodes a binary level.
+     *
+     * @param buffer The bytes of the level, from its position.
+     * @return The position stored in the bytes.
+     * @throws IOException if the bytes are not a binary level or have an unknown version.
+     */
+    public static PlayState read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Ce fichier n'est pas un niveau binaire");
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException("Version de niveau binaire non supportée : " + version);
+            }
+            short flags = buffer.getShort();
+            int width = buffer.getShort();
+            int height = buffer.getShort();
+            if (width <= 0 || height <= 0) {
+                throw new IOException("Dimensions invalides : " + width + "x" + height);
+            }
+            PlayState state = new PlayState(width, height);
+            int size = state.size();
+            int player = buffer.getInt();
+            int mushroom = (flags & MUSHROOM) != 0 ? buffer.getInt() : -1;
+            if (player >= size || mushroom >= size) {
+                throw new IOException("Position hors de la grille");
+            }
+
+            int words = (size + 63) / 64;
+            long[] layer = new long[words];
+            LongBuffer longs = buffer.asLongBuffer();
+            for (byte flag : LAYERS) {
+                longs.get(layer);
+                for (int word = 0; word < words; word++) {
+                    for (long bits = layer[word]; bits != 0; bits &= bits - 1) {
+                        state.cells[word * 64 + Long.numberOfTrailingZeros(bits)] |= flag;
+                    }
+                }
+            }
+            buffer.position(buffer.position() + 3 * words * Long.BYTES);
+            if (player >= 0) {
+                state.cells[player] |= CellState.PLAYER;
+            }
+            if (mushroom >= 0) {
+                state.cells[mushroom] |= CellState.MUSHROOM;
+                state.mushroomVisible = (flags & MUSHROOM_VISIBLE) != 0;
+            }
+            if ((flags & NUMBERS) != 0) {
+                for (int index = 0; index < size; index++) {
+                    if (CellState.has(state.cells[index], CellState.BOX)) {
+                        state.boxNumbers[index] = buffer.getShort();
+                    }
+                }
+                for (int index = 0; index < size; index++) {
+                    if (CellState.has(state.cells[index], CellState.GOAL)) {
+                        state.goalNumbers[index] = buffer.getShort();
+                    }
+                }
+            }
+            state.locate();
+            return state;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Niveau binaire incomplet", e);
+        }
+    }
+
+    /**
+     * Writes a position to a binary level file, replacing it atomically (see LevelWriter).
+     *
+     * @param state The position to write.
+     * @param path  The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(PlayState state, Path path) throws IOException {
+        LevelWriter.writeAtomically(path, encode(state));
+    }
+
+    /**
+     * Encodes a position in the binary form.
+     *
+     * @param state The position to encode.
+     * @return The bytes of the level, from position 0 to the limit.
+     */
+    public static ByteBuffer encode(PlayState state) {
+        int size = state.size();
+        int words = (size + 63) / 64;
+        boolean numbers = false;
+        int numbered = 0;
+        for (int index = 0; index < size; index++) {
+            numbers |= state.boxNumbers[index] != 0 || state.goalNumbers[index] != 0;
+            numbered += Integer.bitCount(state.cells[index] & (CellState.BOX | CellState.GOAL));
+        }
+        short flags = 0;
+        if (numbers) {
+            flags |= NUMBERS;
+        }
+        if (state.mushroom >= 0) {
+            flags |= MUSHROOM;
+            if (state.mushroomVisible) {
+                flags |= MUSHROOM_VISIBLE;
+            }
+        }
+
+        int header = state.mushroom >= 0 ? 20 : 16;
+        ByteBuffer buffer = ByteBuffer.allocate(header + 3 * words * Long.BYTES + (numbers ? numbered * Short.BYTES : 0));
+        buffer.putInt(MAGIC).putShort(VERSION).putShort(flags)
+                .putShort((short) state.getWidth()).putShort((short) state.getHeight())
+                .putInt(state.player);
+        if (state.mushroom >= 0) {
+            buffer.putInt(state.mushroom);
+        }
+        long[] layer = new long[words];
+        for (byte flag : LAYERS) {
+            for (int index = 0; index < size; index++) {
+                if (CellState.has(state.cells[index], flag)) {
+                    layer[index >>> 6] |= 1L << index;
+                }
+            }
+            for (long word : layer) {
+                buffer.putLong(word);
+            }
+            Arrays.fill(layer, 0);
+        }
+        if (numbers) {
+            for (int index = 0; index < size; index++) {
+                if (CellState.has(state.cells[index], CellState.BOX)) {
+                    buffer.putShort(state.boxNumbers[index]);
+                }
+            }
+            for (int index = 0; index < size; index++) {
+                if (CellState.has(state.cells[index], CellState.GOAL)) {
+                    buffer.putShort(state.goalNumbers[index]);
+                }
+            }
+        }
+        return buffer.flip();
+    }
+}
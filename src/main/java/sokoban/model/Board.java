@@ -1,17 +1,14 @@
 package sokoban.model;
 
 import javafx.beans.binding.BooleanBinding;
-import javafx.beans.binding.LongBinding;
 import javafx.beans.property.*;
-import javafx.scene.control.Label;
 import sokoban.viewmodel.ToolViewModel;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Random;
-import java.util.Scanner;
 
 /**
  * The Board class represents the Sokoban game board.
@@ -37,6 +34,12 @@ public class Board {
     private final LongProperty moveCount = new SimpleLongProperty(0);
     private GridState gridState;
 
+    // File of the level opened last, null for a new grid or a level of a collection
+    private File levelFile;
+
+    // Journal of the work in progress, null if none
+    private Journal journal;
+
     /**
      * Default constructor initializes the board and configures bindings.
      */
@@ -60,6 +63,19 @@ public class Board {
         return gridState;
     }
 
+    public Journal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Sets the journal receiving the design edits and the changes of the games that are not moves.
+     *
+     * @param journal The journal, or null to stop recording.
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
     /**
      * Places an element on the board at the specified position based on the current tool selected.
      *
@@ -71,8 +87,11 @@ public class Board {
         GameElement selected = ToolViewModel.getToolSelected();
 
         // Remove existing player if the selected element is a player
-        if (selected instanceof Player && isPlayerPlaced()) {
+        int playerLine = grid.getPlayerLine();
+        int playerCol = grid.getPlayerCol();
+        if (selected instanceof Player && grid.hasPlayer()) {
             removeExistingPlayer();
+            journalCell(playerLine, playerCol);
         }
         int size = cellItems.size();
         if (size <= 3) {
@@ -92,6 +111,7 @@ public class Board {
                 putElement(line, col, selected);
             }
         }
+        journalCell(line, col);
         setChanged(true);
     }
 
@@ -107,7 +127,7 @@ public class Board {
 
     private void handleOtherAndGoal(int line, int col, List<GameElement> cellItems, GameElement selected) {
         cellItems.clear();
-        putElement(line, col, new Ground());
+        putElement(line, col, Ground.INSTANCE);
         putElement(line, col, selected);
     }
 
@@ -137,10 +157,10 @@ public class Board {
             putElement(line, col, selected);
         } else if (selected instanceof Ground) {
             cellItems.clear();
-            putElement(line, col, new Ground());
+            putElement(line, col, Ground.INSTANCE);
         } else {
             cellItems.clear();
-            putElement(line, col, new Ground());
+            putElement(line, col, Ground.INSTANCE);
             putElement(line, col, selected);
         }
     }
@@ -157,6 +177,33 @@ public class Board {
             setChanged(true);
             GameElement currentValue = valueProperty(line, col).get(cellItems.size() - 1);
             removeCellElement(line, col, currentValue);
+            journalCell(line, col);
+        }
+    }
+
+    /**
+     * Records the new content of a cell of the design grid in the journal. The whole grid is recorded
+     * instead when the journal is empty or has grown enough to be compacted.
+     */
+    private void journalCell(int line, int col) {
+        if (journal == null || !(grid instanceof Grid4Design)) {
+            return;
+        }
+        if (journal.isEmpty() || journal.needsCompaction()) {
+            journal.design(grid.snapshot());
+        } else {
+            journal.cell(line * grid.gridWidth + col, ((Grid4Design) grid).getCode(line, col));
+        }
+    }
+
+    /**
+     * Records the position of the game in the journal, after a change that is not a move.
+     *
+     * @param history true if the position was added to the history of the game.
+     */
+    public void journalPosition(boolean history) {
+        if (journal != null && grid instanceof Grid4Play) {
+            journal.position(getPlayGrid().snapshot(), moveCount.get(), history);
         }
     }
 
@@ -164,15 +211,12 @@ public class Board {
      * Removes the existing player from the board.
      */
     private void removeExistingPlayer() {
-        for (int row = 0; row < grid.getGridHeight(); row++) {
-            for (int col = 0; col < grid.getGridWidth(); col++) {
-                List<GameElement> cellItems = valueProperty(row, col);
-                for (int i = 0; i < cellItems.size(); i++) {
-                    if (cellItems.get(i) instanceof Player) {
-                        removeCellElement(row, col, cellItems.get(i));
-                        return; // Exit once the player is found and removed
-                    }
-                }
+        int row = grid.getPlayerLine();
+        int col = grid.getPlayerCol();
+        for (GameElement element : valueProperty(row, col)) {
+            if (element instanceof Player) {
+                removeCellElement(row, col, element);
+                return; // Exit once the player is found and removed
             }
         }
     }
@@ -217,23 +261,23 @@ public class Board {
         moveCountProperty().set(moveCountProperty().get() + nb);
     }
 
-    public LongBinding filledCellsCountProperty() {
+    public ReadOnlyLongProperty filledCellsCountProperty() {
         return grid.filledCellsCountProperty();
     }
 
-    public LongBinding boxCountProperty() {
+    public ReadOnlyLongProperty boxCountProperty() {
         return grid.boxCountProperty();
     }
 
-    public LongBinding goalCountProperty() {
+    public ReadOnlyLongProperty goalCountProperty() {
         return grid.goalCountProperty();
     }
 
-    public LongBinding boxInTargetCountProperty() {
+    public ReadOnlyLongProperty boxInTargetCountProperty() {
         return grid.boxInTargetCountProperty();
     }
 
-    public LongBinding playerCountProperty() {
+    public ReadOnlyLongProperty playerCountProperty() {
         return grid.playerCountProperty();
     }
 
@@ -274,125 +318,99 @@ public class Board {
         return grid;
     }
 
+    /**
+     * Gets the Zobrist hash of the position on the grid (player and boxes).
+     *
+     * @return The hash of the position.
+     */
+    public long getHash() {
+        return grid.getHash();
+    }
+
     /**
      * Opens a file and loads its content into the grid.
+     * The file is read in a single pass by LevelReader, then the cells of the grid are filled directly.
+     * The run-length encoded form is detected from the content, the binary form (see BinaryLevel)
+     * from the extension. A level opened again while its file is unchanged is taken from the LevelCache.
      *
      * @param file The file to open.
+     * @return The grid.
+     * @throws LevelFormatException if the file is not a .xsb, .rle or .sokb file, or contains an unknown
+     *                              symbol, with its line and column.
+     * @throws UncheckedIOException if the file cannot be read.
      */
     public Grid open(File file) {
+        String name = file.getName();
+        if (!name.endsWith(".xsb") && !RleWriter.isRle(name) && !BinaryLevel.isBinary(name)) {
+            throw new LevelFormatException("Le fichier doit avoir une extension .xsb, .rle ou .sokb");
+        }
 
-
+        Level level;
         try {
-            if (!file.getName().endsWith(".xsb")) {
-                throw new IllegalArgumentException("Le fichier doit avoir une extension .xsb");
-            }
-
-            int height = getGrid().gridHeight;
-            int width = getGrid().gridWidth;
-            int[] dimensions = calculateGridDimensions(file);
-
-            if (dimensions[0] != width || dimensions[1] != height) {
-                setGrid(new Grid4Design(dimensions[0], dimensions[1]));
-                configureBindings();
-            } else {
-                // Clear current elements
-                for (int i = 0; i < height; i++) {
-                    for (int j = 0; j < width; j++) {
-                        this.valueProperty(i, j).clear();
-                        this.valueProperty(i, j).add(new Ground());
-                    }
-                }
-            }
+            level = LevelCache.getShared().get(file.toPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
 
-            try (Scanner scanner = new Scanner(file)) {
-                int row = 0;
-                while (scanner.hasNextLine()) {
-                    String line = scanner.nextLine();
-                    if (!line.isEmpty()) {
-                        // Iterate over each character in the line
-                        for (int col = 0; col < line.length(); col++) {
-                            char symbol = line.charAt(col);
-                            // Convert character to GameElement and add to the grid
-                            List<GameElement> items = convertSymbolToCellValue(symbol);
-                            grid.put(row, col, items.get(0));
-                            if (items.size() > 1) {
-                                grid.put(row, col, items.get(1));
-                            }
-                        }
-                        row++;
-                    }
-                }
-            } catch (FileNotFoundException e) {
-                throw new RuntimeException(e);
-            }
+        Grid opened = open(level);
+        levelFile = file;
+        return opened;
+    }
 
-            configureBindings();
-        } catch (IllegalArgumentException e) {
-            System.out.println("Le fichier doit avoir une extension .xsb");
-            return null; // Ou une autre gestion d'erreur appropriée selon le contexte
+    /**
+     * Loads a level into the grid, for example a level of a collection.
+     *
+     * @param level The level to load.
+     * @return The grid.
+     */
+    public Grid open(Level level) {
+        if (level.getWidth() != grid.gridWidth || level.getHeight() != grid.gridHeight || !(grid instanceof Grid4Design)) {
+            setGrid(new Grid4Design(level.getWidth(), level.getHeight()));
+        }
+        load((Grid4Design) grid, level);
+        configureBindings();
+        levelFile = null;
+        if (journal != null) {
+            journal.clear(); // Nothing to restore until the level is edited
         }
         return grid;
     }
 
-    public static int[] calculateGridDimensions(File file) {
-        int maxWidth = 0;
-        int maxHeight = 0;
-
-        try (Scanner scanner = new Scanner(file)) {
-            int currentWidth = 0;
-            int currentHeight = 0;
-
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                if (!line.isEmpty()) {
-                    currentWidth = line.length();
-                    currentHeight++;
-                }
-                maxWidth = Math.max(maxWidth, currentWidth);
-                maxHeight = Math.max(maxHeight, currentHeight);
-            }
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
+    /**
+     * Loads the new content of the level file open in the design grid, such as a file edited outside
+     * of the game. Only the cells that differ change, so the views of the cells are kept.
+     *
+     * @param level The new content of the level.
+     * @return true if the level was loaded, false if the dimensions changed and it must be opened again.
+     */
+    public boolean reload(Level level) {
+        if (!(grid instanceof Grid4Design) || level.getWidth() != grid.gridWidth || level.getHeight() != grid.gridHeight) {
+            return false;
         }
+        load((Grid4Design) grid, level);
+        if (journal != null) {
+            journal.clear(); // The level is as in its file again
+        }
+        return true;
+    }
 
-        return new int[]{maxWidth, maxHeight};
+    // Loads the level in a single bulk update, so the rules are checked once and not at each changed cell
+    private static void load(Grid4Design grid, Level level) {
+        grid.beginUpdate();
+        try {
+            grid.load(level);
+        } finally {
+            grid.commitUpdate();
+        }
     }
 
     /**
-     * Converts a character symbol to corresponding game elements.
+     * Gets the file of the level opened last, to save the moves played alongside it.
      *
-     * @param symbol The character symbol.
-     * @return A list of game elements.
+     * @return The file, or null if the level was not opened from a file.
      */
-    private static List<GameElement> convertSymbolToCellValue(char symbol) {
-        List<GameElement> cellItems = new ArrayList<>();
-        switch (symbol) {
-            case '#':
-                cellItems.add(new Wall());
-                return cellItems;
-            case '.':
-                cellItems.add(new Goal());
-                return cellItems;
-            case '$':
-                cellItems.add(new Box());
-                return cellItems;
-            case '@':
-                cellItems.add(new Player());
-                return cellItems;
-            case '*':
-                cellItems.add(new Box());
-                cellItems.add(new Goal());
-                return cellItems;
-            case '+':
-                cellItems.add(new Player());
-                cellItems.add(new Goal());
-                return cellItems;
-            case ' ':
-                cellItems.add(new Ground());
-                return cellItems;
-            default:
-                return cellItems;
-        }
+    public File getLevelFile() {
+        return levelFile;
     }
 
     /**
@@ -423,51 +441,31 @@ public class Board {
         return clonedBoard;
     }
 
+    /**
+     * Returns the grid as a play grid. Only valid while a game is being played.
+     *
+     * @return The current Grid4Play.
+     */
+    public Grid4Play getPlayGrid() {
+        return (Grid4Play) grid;
+    }
+
     /**
      * Replace randomly boxes of the grid
      */
     public void mushroomEffect() {
-        Grid grid = this.getGrid();
-        Random random = new Random();
-        int boxCount = 1;
-        int boxNumber = 0;
-        //List<GameElement> boxes = new ArrayList<>();
         // save etat initial
-        if (gridState.getBoardHistory().isEmpty()) {
+        if (gridState.isEmpty()) {
             gridState.addBoardState(this);
         }
-
-        // Clear current box(es)
-        for (int i = 0; i < grid.getGridHeight(); i++) {
-            for (int j = 0; j < grid.getGridWidth(); j++) {
-                List<GameElement> cellItems = this.valueProperty(i, j);
-                for (GameElement item : cellItems) {
-                    if (item instanceof Box) {
-                        cellItems.remove(item);
-                        boxNumber++;
-                        break;
-                    }
-                }
-            }
-        }
-
-        // Place boxes randomly anywhere except on sides
-        while (boxNumber > 0) {
-            int i = random.nextInt(grid.getGridHeight());
-            int j = random.nextInt(grid.getGridWidth());
-            List<GameElement> cellItems = grid.valueProperty(i, j);
-            if (!(i == 0 || j == 0 || i == 9 || j == 14)) {
-                if ((cellItems.size() == 1) ||
-                        (cellItems.size() == 2 && cellItems.stream().anyMatch(element -> element instanceof Goal))) {
-                    Box box = new Box();
-                    box.setNumberLabel(new Label(String.valueOf(boxCount)));
-                    cellItems.add(box);
-                    boxNumber--;
-                    boxCount++;
-                }
-            }
+        Grid4Play playGrid = getPlayGrid();
+        playGrid.beginUpdate();
+        try {
+            playGrid.shuffleBoxes(new Random());
+            moveCountProperty().set(moveCountProperty().get() + 20);
+        } finally {
+            playGrid.commitUpdate();
         }
-        moveCountProperty().set(moveCountProperty().get() + 20);
     }
 
     // Mushroom feature
@@ -475,180 +473,64 @@ public class Board {
     /**
      * To place mushroom on the grid
      */
-    public void mushroom(Grid grid) {
-        Random random = new Random();
-        boolean free = false;
-
-        for (int i = 0; i < grid.getGridHeight(); i++) {
-            for (int j = 0; j < grid.getGridWidth(); j++) {
-                List<GameElement> cellItems = this.valueProperty(i, j);
-                if (cellItems.stream().anyMatch(element -> element instanceof Mushroom))
-                    cellItems.remove(cellItems.size() - 2);
-            }
-        }
-
-        while (!free) {
-            int i = random.nextInt(grid.getGridHeight());
-            int j = random.nextInt(grid.getGridWidth());
-            List<GameElement> cellItems = grid.valueProperty(i, j);
-            if (cellItems.stream().allMatch(element -> element instanceof Ground) && cellItems.size() == 1) {
-                cellItems.add(new Mushroom());
-                cellItems.add(new Ground());
-                free = true;
-            }
-        }
+    public void mushroom(Grid4Play grid) {
+        grid.placeMushroom(new Random());
     }
 
     public int getnbGoals() {
-        int nb = 0;
-        for (int i = 0; i < grid.getGridHeight(); i++) {
-            for (int j = 0; j < grid.getGridWidth(); j++) {
-                List<GameElement> cellItems = this.valueProperty(i, j);
-                for (GameElement element : cellItems)
-                    if (element instanceof Goal)
-                        nb++;
-
-            }
-        }
-        return nb;
+        return (int) goalCountProperty().get();
     }
 
-    public boolean checkStack(List<Integer> stack, int nb){
-
-        for (Integer item : stack){
-            if (nb == item)
-                return false;
-        }
-        return true;
-    }
-
-
     public void randomTarget(){
-        Random random = new Random();
-        int goals = getnbGoals();
-        int nb = random.nextInt(goals) + 1;
-        List<Integer> stack = new ArrayList<>();
-        for (int i = 0; i < grid.getGridHeight(); i++) {
-            for (int j = 0; j < grid.getGridWidth(); j++) {
-                List<GameElement> cellItems = this.valueProperty(i,j);
-                for (GameElement element : cellItems)
-                    if (element instanceof Goal){
-
-                        while (!(checkStack(stack,nb))){
-                            nb = random.nextInt(goals) + 1;
-                        }
-                        stack.add(nb);
-                        ((Goal) element).setNumberLabel(new Label(String.valueOf(nb)));
-                    }
-            }
-        }
+        getPlayGrid().shuffleGoalNumbers(new Random());
+        journalPosition(false);
     }
 
     /**
-     * This method toggles the visibility of mushrooms on the grid.
-     * If a mushroom is visible (i.e., not covered by a Ground element), it will be hidden by adding a Ground element.
-     * If a mushroom is hidden (i.e., covered by a Ground element), the Ground element will be removed, making the mushroom visible.
-     * The method returns true if any mushroom was made visible, otherwise it returns false.
-     * Additionally, if any mushroom is made visible, the move count is incremented by 10.
+     * This method toggles the visibility of the mushroom on the play grid.
+     * The method returns true if the mushroom was made visible, otherwise it returns false.
+     * Additionally, if the mushroom is made visible, the move count is incremented by 10.
      *
-     * @return true if any mushroom was made visible, false otherwise.
+     * @return true if the mushroom was made visible, false otherwise.
      */
     public boolean hideOrShow() {
-        boolean visible = false;  // Flag to track if any mushroom was made visible
-        for (int i = 0; i < this.getGrid().getGridHeight(); i++) {  // Loop through all rows
-            for (int j = 0; j < this.getGrid().getGridWidth(); j++) {  // Loop through all columns
-                List<GameElement> cellItems = this.valueProperty(i, j);  // Get the list of game elements at the current cell
-                int last = cellItems.size() - 1;  // Index of the last element in the list
-                if (cellItems.stream().anyMatch(element -> element instanceof Mushroom)) {  // Check if there's a mushroom in the cell
-                    if (cellItems.get(last) instanceof Ground) {  // If the last element is a Ground
-                        cellItems.remove(last);  // Remove the Ground element to reveal the mushroom
-                        visible = true;  // Set the flag to true, indicating a mushroom was made visible
-                    } else if (cellItems.get(last) instanceof Player) {
-                        cellItems.set(1, new Player());
-                        cellItems.set(2, new Mushroom());
-                        return true;
-                    } else if (cellItems.get(1) instanceof Player) {
-                        cellItems.set(2, new Player());
-                        cellItems.set(1, new Mushroom());
-                    } else {
-                        cellItems.add(new Ground());  // Otherwise, add a Ground element to hide the mushroom
-                    }
-                }
-            }
-        }
-
+        boolean visible = getPlayGrid().toggleMushroom();
         if (visible) {
-            incrementMoveCount(10);  // Increment move count by 10 if any mushroom was made visible
+            incrementMoveCount(10);  // Increment move count by 10 if the mushroom was made visible
         }
-        return visible;  // Return whether any mushroom was made visible
+        journalPosition(false);
+        return visible;
     }
 
 
     /**
-     * This method checks if the mushroom on the grid is visible.
-     * A mushroom is considered visible if it is not covered by a Ground element.
+     * This method checks if the mushroom on the play grid is visible.
      * The method returns true if the mushroom is visible, otherwise it returns false.
      *
      * @return true if the mushroom is visible, false otherwise.
      */
     public boolean mushVisible() {
-        boolean visible = true;  // Flag to track if all mushrooms are visible
-        for (int i = 0; i < this.getGrid().getGridHeight(); i++) {  // Loop through all rows
-            for (int j = 0; j < this.getGrid().getGridWidth(); j++) {  // Loop through all columns
-                List<GameElement> cellItems = this.valueProperty(i, j);  // Get the list of game elements at the current cell
-                int last = cellItems.size() - 1;  // Index of the last element in the list
-                if (cellItems.stream().anyMatch(element -> element instanceof Mushroom)) {  // Check if there's a mushroom in the cell
-                    if (cellItems.get(last) instanceof Ground || cellItems.get(last) instanceof Player) {  // If the last element is a Ground
-                        visible = false;  // Set the flag to false, indicating a mushroom is hidden
-                        break;
-                    }
-                }
-            }
-        }
-        return visible;  // Return whether all mushrooms are visible
+        return getPlayGrid().isMushroomVisible();
     }
 
     public boolean mushroomDisplay(int line, int col){
-        List<GameElement> cellItems = valueProperty(line,col);
-            return ((cellItems.size() > 2) &&(cellItems.get(1) instanceof Mushroom ) && (cellItems.get(2) instanceof Player));
+        return grid instanceof Grid4Play && ((Grid4Play) grid).isMushroomUnderPlayer(line, col);
     }
 
 
     /**
      * This method numbers all the boxes on the grid sequentially.
-     * Each Box element on the grid is assigned a unique number label in the order they are encountered.
+     * Each box on the grid is assigned a unique number in the order they are encountered.
      * The numbering starts from 1 and increases sequentially.
      *
      * @param grid The grid containing the boxes to be numbered.
      */
-    public void boxNumber(Grid grid) {
-        int number = 0;  // Counter for numbering the boxes
-        for (int i = 0; i < grid.getGridHeight(); ++i) {  // Loop through all rows
-            for (int j = 0; j < grid.getGridWidth(); ++j) {  // Loop through all columns
-                List<GameElement> targetCellItems = grid.getValues(i, j);  // Get the list of game elements at the current cell
-                for (GameElement element : targetCellItems) {  // Iterate over each element in the cell
-                    if (element instanceof Box) {  // Check if the element is a Box
-                        number++;  // Increment the box counter
-                        ((Box) element).setNumberLabel(new Label(String.valueOf(number)));  // Set the number label of the box
-                    }
-                }
-            }
-        }
+    public void boxNumber(Grid4Play grid) {
+        grid.numberBoxes();
     }
 
 
-    public void goalNumber(Grid grid) {
-        int goalNumber = 0;
-        for (int i = 0; i < grid.getGridHeight(); ++i) {
-            for (int j = 0; j < grid.getGridWidth(); j++) {
-                List<GameElement> cellItems = grid.valueProperty(i,j);
-                for (GameElement element : cellItems) {
-                    if (element instanceof Goal) {
-                        goalNumber++;
-                        ((Goal) element).setNumberLabel(new Label(String.valueOf(goalNumber)));
-                    }
-                }
-            }
-        }
+    public void goalNumber(Grid4Play grid) {
+        grid.numberGoals();
     }
 }
@@ -1,51 +1,48 @@
 package sokoban.model;
 
-import javafx.scene.control.Label;
-import javafx.scene.image.Image;
-
 /**
  * The Box class represents a box in the Sokoban game.
- * It extends the GameElement class and includes a number label to identify the box.
+ * It extends the GameElement class and includes a number to identify the box.
  */
 public class Box extends GameElement {
 
-    private Label numberLabel = new Label();  // Label to display the number of the box
+    private int number;  // Number of the box, 0 until the boxes are numbered
 
     /**
      * Default constructor for the Box class.
-     * Initializes the box with an image.
+     * Initializes the box with the shared image.
      */
     public Box() {
-        image = new Image("box.png");  // Set the image of the box to "box.png"
+        super(ImageRegistry.BOX);  // Set the image of the box to "box.png"
     }
 
     /**
      * Creates a copy of the current Box object.
-     * The copy will have the same image and number label as the original.
+     * The copy will have the same image and number as the original.
      *
      * @return a new Box object that is a copy of the current Box.
      */
     public Box copy() {
         Box copy = new Box();  // Create a new Box object
-        copy.numberLabel = this.getNumberLabel();  // Set the number label of the copy to be the same as the original
+        copy.number = this.number;  // Set the number of the copy to be the same as the original
         return copy;  // Return the copy
     }
 
     /**
-     * Gets the number label of the box.
+     * Gets the number of the box.
      *
-     * @return the number label of the box.
+     * @return the number of the box, 0 if it has none.
      */
-    public Label getNumberLabel() {
-        return numberLabel;  // Return the number label
+    public int getNumber() {
+        return number;
     }
 
     /**
-     * Sets the number label of the box.
+     * Sets the number of the box.
      *
-     * @param numberLabel the new number label to set.
+     * @param number the new number, 0 for none.
      */
-    public void setNumberLabel(Label numberLabel) {
-        this.numberLabel = numberLabel;  // Set the number label to the provided label
+    public void setNumber(int number) {
+        this.number = number;
     }
 }
@@ -11,11 +11,40 @@ import javafx.collections.FXCollections;
 public abstract class Cell {
     protected ListProperty<GameElement> values = new SimpleListProperty<>(FXCollections.observableArrayList());  // List of game elements in the cell
 
+    // Flags of the cell last reported to the counters of the grid
+    int countedFlags;
+
     /**
      * Default constructor for the Cell class.
      */
     public Cell() {}
 
+    /**
+     * Computes the flags used by the counters of the grid: the CellState flags of the elements
+     * in the cell, plus Grid.FILLED and Grid.BOX_IN_TARGET.
+     *
+     * @return the flags of the cell.
+     */
+    int flags() {
+        int flags = 0;
+        if (!isEmpty()) {
+            flags |= Grid.FILLED;
+        }
+        if (isBox()) {
+            flags |= CellState.BOX;
+        }
+        if (isPlayer()) {
+            flags |= CellState.PLAYER;
+        }
+        if (isGoal()) {
+            flags |= CellState.GOAL;
+        }
+        if (isBoxInTarget()) {
+            flags |= Grid.BOX_IN_TARGET;
+        }
+        return flags;
+    }
+
     /**
      * Adds a game element to the cell.
      *
@@ -2,15 +2,21 @@ package sokoban.model;
 
 import javafx.beans.property.ReadOnlyListProperty;
 
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The Cell4Play class extends the abstract Cell class and provides concrete implementations
- * of its abstract methods. This class is used for managing the game elements within a cell
- * during gameplay in the Sokoban game.
+ * of its abstract methods. During gameplay the content of a cell is stored as a packed code
+ * in Grid4Play; a Cell4Play is only the view of that code used by the UI layer, rebuilt
+ * every time the code of its cell changes.
  */
 public class Cell4Play extends Cell {
 
+    // Code of the cell this view was last rendered from
+    private byte code = CellState.EMPTY;
+    private boolean boxInTarget;
+
     /**
      * Default constructor for the Cell4Play class.
      * Calls the superclass constructor to initialize the cell.
@@ -19,6 +25,53 @@ public class Cell4Play extends Cell {
         super();
     }
 
+    /**
+     * Rebuilds the list of game elements from the packed state of the cell.
+     * The order of the elements follows the one used by the views: ground first,
+     * then the goal or the mushroom, then what stands on it.
+     *
+     * @param code            the packed code of the cell.
+     * @param boxNumber       the number of the box on the cell, 0 if none.
+     * @param goalNumber      the number of the goal on the cell, 0 if none.
+     * @param mushroomVisible true if the mushroom is currently shown.
+     */
+    void render(byte code, int boxNumber, int goalNumber, boolean mushroomVisible) {
+        this.code = code;
+        this.boxInTarget = CellState.has(code, CellState.BOX) && CellState.has(code, CellState.GOAL)
+                && boxNumber == goalNumber;
+
+        List<GameElement> elements = new ArrayList<>(3);
+        elements.add(Ground.INSTANCE);
+        if (CellState.has(code, CellState.WALL)) {
+            elements.add(Wall.INSTANCE);
+        } else if (CellState.has(code, CellState.MUSHROOM)) {
+            boolean player = CellState.has(code, CellState.PLAYER);
+            if (mushroomVisible) {
+                if (player) {
+                    elements.add(Player.INSTANCE);
+                }
+                elements.add(Mushroom.INSTANCE);
+            } else {
+                elements.add(Mushroom.INSTANCE);
+                elements.add(player ? Player.INSTANCE : Ground.INSTANCE);
+            }
+        } else {
+            if (CellState.has(code, CellState.GOAL)) {
+                Goal goal = new Goal();
+                goal.setNumber(goalNumber);
+                elements.add(goal);
+            }
+            if (CellState.has(code, CellState.BOX)) {
+                Box box = new Box();
+                box.setNumber(boxNumber);
+                elements.add(box);
+            } else if (CellState.has(code, CellState.PLAYER)) {
+                elements.add(Player.INSTANCE);
+            }
+        }
+        values.setAll(elements);
+    }
+
     /**
      * Adds a game element to the cell.
      *
@@ -32,11 +85,11 @@ public class Cell4Play extends Cell {
     /**
      * Checks if the cell is empty.
      *
-     * @return true if the cell is empty or contains only Ground elements, false otherwise.
+     * @return true if the cell is plain ground, false otherwise.
      */
     @Override
     boolean isEmpty() {
-        return values.isEmpty() || values.stream().allMatch(value -> value instanceof Ground);
+        return code == CellState.EMPTY;
     }
 
     /**
@@ -46,7 +99,7 @@ public class Cell4Play extends Cell {
      */
     @Override
     boolean isBox() {
-        return values.stream().anyMatch(value -> value instanceof Box);
+        return CellState.has(code, CellState.BOX);
     }
 
     /**
@@ -56,7 +109,7 @@ public class Cell4Play extends Cell {
      */
     @Override
     boolean isPlayer() {
-        return values.stream().anyMatch(value -> value instanceof Player);
+        return CellState.has(code, CellState.PLAYER);
     }
 
     /**
@@ -66,28 +119,17 @@ public class Cell4Play extends Cell {
      */
     @Override
     boolean isGoal() {
-        return values.stream().anyMatch(value -> value instanceof Goal);
+        return CellState.has(code, CellState.GOAL);
     }
 
     /**
      * Checks if the cell contains a box in a target.
      *
-     * @return true if the cell contains both a Box and a Goal element, false otherwise.
+     * @return true if the cell contains a Box on the Goal with the same number, false otherwise.
      */
     @Override
     boolean isBoxInTarget() {
-        String box = "";
-        String goal = "";
-        for (GameElement element : values) {
-            if (element instanceof Box) {
-                box = ((Box) element).getNumberLabel().getText();
-            }
-            if (element instanceof Goal) {
-                goal = ((Goal) element).getNumberLabel().getText();
-            }
-        }
-        return values.stream().anyMatch(value -> value instanceof Box)
-                && values.stream().anyMatch(value -> value instanceof Goal) && Objects.equals(goal, box);
+        return boxInTarget;
     }
 
     /**
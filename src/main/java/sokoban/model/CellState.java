@@ -0,0 +1,86 @@
+package sokoban.model;
+
+/**
+ * The CellState class defines the packed byte codes used to store the content of a cell
+ * in the play grid. Each code is a combination of the flags below, so a whole level fits
+ * in a single byte array indexed by {@code row * width + col}.
+ */
+public final class CellState {
+    public static final byte EMPTY = 0;          // Plain ground
+    public static final byte WALL = 1;           // Wall, nothing else can be on it
+    public static final byte GOAL = 1 << 1;      // Target for a box
+    public static final byte BOX = 1 << 2;       // Box, possibly on a goal
+    public static final byte PLAYER = 1 << 3;    // Player, possibly on a goal or a mushroom
+    public static final byte MUSHROOM = 1 << 4;  // Magic mushroom
+
+    private CellState() {
+    }
+
+    /**
+     * Checks if the given code contains the given flag.
+     *
+     * @param code the cell code.
+     * @param flag the flag to look for.
+     * @return true if the flag is set, false otherwise.
+     */
+    public static boolean has(byte code, byte flag) {
+        return (code & flag) != 0;
+    }
+
+    /**
+     * Checks if a box can be pushed on a cell with the given code.
+     * Only plain ground or a goal without anything on it accepts a box.
+     *
+     * @param code the cell code.
+     * @return true if the cell can receive a box, false otherwise.
+     */
+    public static boolean acceptsBox(byte code) {
+        return (code & ~GOAL) == EMPTY;
+    }
+
+    /**
+     * Converts a cell code to its XSB symbol.
+     *
+     * @param code the cell code.
+     * @return the XSB character representing the cell.
+     */
+    public static char toSymbol(byte code) {
+        if (has(code, WALL)) {
+            return '#';
+        } else if (has(code, BOX)) {
+            return has(code, GOAL) ? '*' : '$';
+        } else if (has(code, PLAYER)) {
+            return has(code, GOAL) ? '+' : '@';
+        } else if (has(code, GOAL)) {
+            return '.';
+        }
+        return ' ';
+    }
+
+    /**
+     * Converts an XSB symbol to its cell code.
+     *
+     * @param symbol the XSB character.
+     * @return the cell code, or -1 if the symbol is unknown.
+     */
+    public static int fromSymbol(char symbol) {
+        switch (symbol) {
+            case '#':
+                return WALL;
+            case '.':
+                return GOAL;
+            case '$':
+                return BOX;
+            case '@':
+                return PLAYER;
+            case '*':
+                return BOX | GOAL;
+            case '+':
+                return PLAYER | GOAL;
+            case ' ':
+                return EMPTY;
+            default:
+                return -1;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package sokoban.model;
+
+import java.util.Arrays;
+
+/**
+ * The ChangedCells class is a set of cell indices, listed in the order they were added, each once.
+ * A bit per cell finds the duplicates, and clearing only resets the words of the cells listed,
+ * so adding and clearing cost the same on a 10x10 grid and on a 500x500 one.
+ * <p>
+ * Only the model fills and clears the sets, the views read them.
+ */
+public final class ChangedCells {
+    private final long[] mask;
+    private int[] indices = new int[8];
+    private int count;
+
+    /**
+     * Constructor of an empty set.
+     *
+     * @param size The number of cells of the grid.
+     */
+    ChangedCells(int size) {
+        mask = new long[(size + 63) / 64];
+    }
+
+    /**
+     * Adds a cell, unless it is already in the set.
+     *
+     * @param index The index of the cell.
+     */
+    void add(int index) {
+        long bit = 1L << index;
+        int word = index >>> 6;
+        if ((mask[word] & bit) == 0) {
+            mask[word] |= bit;
+            if (count == indices.length) {
+                indices = Arrays.copyOf(indices, count * 2);
+            }
+            indices[count++] = index;
+        }
+    }
+
+    /**
+     * Gets the number of cells of the set.
+     *
+     * @return The number of cells.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets a cell of the set.
+     *
+     * @param i The position in the set, between 0 and size() - 1.
+     * @return The index of the cell.
+     */
+    public int get(int i) {
+        return indices[i];
+    }
+
+    /**
+     * Removes all the cells of the set.
+     */
+    void clear() {
+        for (int i = 0; i < count; i++) {
+            mask[indices[i] >>> 6] = 0;
+        }
+        count = 0;
+    }
+}
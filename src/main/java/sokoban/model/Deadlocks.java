@@ -0,0 +1,284 @@
+package sokoban.model;
+
+import java.util.Arrays;
+
+/**
+ * The Deadlocks class detects the positions that can no longer be solved.
+ * <p>
+ * The dead squares are computed once per level from the walls and the goals: for each goal, the squares
+ * from which a box can be pushed to the goal are found by pulling a box away from it. A box on a square
+ * outside all the regions of the goals with its number can never be placed. The numbers of the goals are
+ * read from the state at each check, so renumbering the goals does not need a new computation.
+ * <p>
+ * After each push, only the pushed box is checked: on a dead square, or frozen (it can move along
+ * neither axis, because of walls, dead squares or other frozen boxes) while not on its goal.
+ * Both checks assume that every box is needed, that is as many boxes as goals.
+ */
+public final class Deadlocks {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int width;
+    private final int height;
+    private final int[] goals;        // Indices of the goals
+    private final long[][] reachable; // For each goal, the squares from which a box can be pushed to it
+    private final long[] dead;        // Squares from which no goal can be reached
+    private final boolean everyBoxNeeded;
+
+    // Boxes being checked by isFrozen, considered as walls to avoid checking them again
+    private final long[] checking;
+    private final int[] checked;
+    private int checkedCount;
+    // Frozen boxes off their goal found by isFrozen, among the boxes whose freezing is confirmed
+    private int misplacedFrozen;
+
+    private Deadlocks(PlayState state) {
+        width = state.getWidth();
+        height = state.getHeight();
+        int words = (state.size() + 63) / 64;
+        int boxes = 0;
+        int goalCount = 0;
+        for (int index = 0; index < state.size(); index++) {
+            if (CellState.has(state.getCell(index), CellState.GOAL)) {
+                goalCount++;
+            }
+            if (CellState.has(state.getCell(index), CellState.BOX)) {
+                boxes++;
+            }
+        }
+        goals = new int[goalCount];
+        reachable = new long[goalCount][];
+        dead = new long[words];
+        Arrays.fill(dead, -1L);
+        int[] queue = new int[state.size()];
+        int g = 0;
+        for (int index = 0; index < state.size(); index++) {
+            if (CellState.has(state.getCell(index), CellState.GOAL)) {
+                goals[g] = index;
+                reachable[g] = pull(state, index, queue);
+                for (int word = 0; word < words; word++) {
+                    dead[word] &= ~reachable[g][word];
+                }
+                g++;
+            }
+        }
+        everyBoxNeeded = boxes == goalCount;
+        checking = new long[words];
+        checked = new int[state.size()];
+    }
+
+    /**
+     * Computes the dead squares of the level of a state.
+     *
+     * @param state The state of the level.
+     * @return The deadlock detection of the level.
+     */
+    public static Deadlocks of(PlayState state) {
+        return new Deadlocks(state);
+    }
+
+    /**
+     * Finds the squares from which a box can be pushed to the goal, by pulling a box away from it.
+     */
+    private long[] pull(PlayState state, int goal, int[] queue) {
+        long[] squares = new long[dead.length];
+        set(squares, goal);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = goal;
+        while (head < tail) {
+            int square = queue[head++];
+            int line = square / width;
+            int col = square % width;
+            for (Direction direction : DIRECTIONS) {
+                // The box came from one step back, pushed by the player standing two steps back
+                int fromLine = line - direction.getDeltaRow();
+                int fromCol = col - direction.getDeltaCol();
+                int playerLine = fromLine - direction.getDeltaRow();
+                int playerCol = fromCol - direction.getDeltaCol();
+                if (isFree(state, fromLine, fromCol) && isFree(state, playerLine, playerCol)) {
+                    int from = fromLine * width + fromCol;
+                    if (!get(squares, from)) {
+                        set(squares, from);
+                        queue[tail++] = from;
+                    }
+                }
+            }
+        }
+        return squares;
+    }
+
+    private boolean isFree(PlayState state, int line, int col) {
+        return line >= 0 && line < height && col >= 0 && col < width
+                && !CellState.has(state.getCell(line * width + col), CellState.WALL);
+    }
+
+    private static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & 1L << index) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Checks if no goal can be reached by a box standing on the square.
+     *
+     * @param index The index of the square.
+     * @return true if the square is dead, false otherwise.
+     */
+    public boolean isDeadSquare(int index) {
+        return get(dead, index);
+    }
+
+    /**
+     * Checks if no goal with the given number can be reached by a box standing on the square.
+     *
+     * @param state  The state, holding the numbers of the goals.
+     * @param index  The index of the square.
+     * @param number The number of the box.
+     * @return true if the square is dead for this box, false otherwise.
+     */
+    public boolean isDeadSquare(PlayState state, int index, int number) {
+        if (get(dead, index)) {
+            return true;
+        }
+        for (int g = 0; g < goals.length; g++) {
+            if (state.getGoalNumber(goals[g]) == number && get(reachable[g], index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the box at the given index makes the position unsolvable,
+     * after it was pushed there. Takes a few array accesses in general, whatever the size of the grid.
+     *
+     * @param state The state after the push.
+     * @param index The index of the pushed box.
+     * @return true if the position is deadlocked, false otherwise.
+     */
+    public boolean isDeadlockedAfterPush(PlayState state, int index) {
+        if (!everyBoxNeeded || !CellState.has(state.getCell(index), CellState.BOX)) {
+            return false;
+        }
+        if (isDeadSquare(state, index, state.getBoxNumber(index))) {
+            return true;
+        }
+        misplacedFrozen = 0;
+        isFrozen(state, index);
+        for (int i = 0; i < checkedCount; i++) {
+            checking[checked[i] >>> 6] = 0;
+        }
+        checkedCount = 0;
+        return misplacedFrozen > 0;
+    }
+
+    /**
+     * Checks every box of the state, after a change of the whole position.
+     *
+     * @param state The state to check.
+     * @return true if the position is deadlocked, false otherwise.
+     */
+    public boolean isDeadlocked(PlayState state) {
+        for (int index = 0; index < state.size(); index++) {
+            if (CellState.has(state.getCell(index), CellState.BOX) && isDeadlockedAfterPush(state, index)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the boxes standing on a dead square for their number, in the editor.
+     *
+     * @param state The state to check.
+     * @return The number of boxes that can never be placed.
+     */
+    public int countDeadBoxes(PlayState state) {
+        int count = 0;
+        for (int index = 0; index < state.size(); index++) {
+            if (CellState.has(state.getCell(index), CellState.BOX)
+                    && isDeadSquare(state, index, state.getBoxNumber(index))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the goals that no box of the state can be pushed to, in the editor.
+     *
+     * @param state The state to check.
+     * @return The number of goals that can never be filled.
+     */
+    public int countUnreachableGoals(PlayState state) {
+        int count = 0;
+        for (int g = 0; g < goals.length; g++) {
+            boolean reached = false;
+            for (int index = 0; index < state.size() && !reached; index++) {
+                reached = CellState.has(state.getCell(index), CellState.BOX) && get(reachable[g], index)
+                        && state.getBoxNumber(index) == state.getGoalNumber(goals[g]);
+            }
+            if (!reached) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if the box can no longer move along either axis.
+     * The boxes being checked are considered as walls, so each box is checked once. A neighbour found
+     * frozen that way is only frozen if this box is: when this box can move, the misplaced frozen boxes
+     * found while checking it are forgotten.
+     */
+    private boolean isFrozen(PlayState state, int index) {
+        set(checking, index);
+        checked[checkedCount++] = index;
+        int misplacedBefore = misplacedFrozen;
+        int number = state.getBoxNumber(index);
+        boolean frozen = isBlocked(state, index, number, Direction.LEFT, Direction.RIGHT)
+                && isBlocked(state, index, number, Direction.UP, Direction.DOWN);
+        if (!frozen) {
+            misplacedFrozen = misplacedBefore;
+        } else if (!state.isBoxInTarget(index)) {
+            misplacedFrozen++;
+        }
+        return frozen;
+    }
+
+    private boolean isBlocked(PlayState state, int index, int number, Direction one, Direction other) {
+        int line = index / width;
+        int col = index % width;
+        int first = neighbour(line, col, one);
+        int second = neighbour(line, col, other);
+        if (isWall(state, first) || isWall(state, second)) {
+            return true;
+        }
+        if (isDeadSquare(state, first, number) && isDeadSquare(state, second, number)) {
+            return true;
+        }
+        return isFrozenBox(state, first) || isFrozenBox(state, second);
+    }
+
+    private boolean isFrozenBox(PlayState state, int index) {
+        return CellState.has(state.getCell(index), CellState.BOX) && isFrozen(state, index);
+    }
+
+    /**
+     * Gets the index of the neighbour of a square, -1 outside the grid.
+     */
+    private int neighbour(int line, int col, Direction direction) {
+        int nextLine = line + direction.getDeltaRow();
+        int nextCol = col + direction.getDeltaCol();
+        if (nextLine < 0 || nextLine >= height || nextCol < 0 || nextCol >= width) {
+            return -1;
+        }
+        return nextLine * width + nextCol;
+    }
+
+    private boolean isWall(PlayState state, int index) {
+        return index < 0 || CellState.has(state.getCell(index), CellState.WALL) || get(checking, index);
+    }
+}
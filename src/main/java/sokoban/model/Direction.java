@@ -6,24 +6,29 @@ package sokoban.model;
  * move elements on the game grid.
  */
 public enum Direction {
-    UP(-1, 0),   // Represents movement upwards in the grid.
-    DOWN(1, 0),  // Represents movement downwards in the grid.
-    LEFT(0, -1), // Represents movement to the left in the grid.
-    RIGHT(0, 1); // Represents movement to the right in the grid.
+    UP(-1, 0, 'u'),   // Represents movement upwards in the grid.
+    DOWN(1, 0, 'd'),  // Represents movement downwards in the grid.
+    LEFT(0, -1, 'l'), // Represents movement to the left in the grid.
+    RIGHT(0, 1, 'r'); // Represents movement to the right in the grid.
 
     // Delta values for row and column that define the direction of movement.
     private final int deltaRow;
     private final int deltaCol;
 
+    // Letter of the move in the LURD notation, in uppercase for a push
+    private final char letter;
+
     /**
      * Constructor for the Direction enum.
      *
      * @param deltaRow the change in the row index when moving in this direction.
      * @param deltaCol the change in the column index when moving in this direction.
+     * @param letter   the letter of a move in this direction in the LURD notation.
      */
-    Direction(int deltaRow, int deltaCol) {
+    Direction(int deltaRow, int deltaCol, char letter) {
         this.deltaRow = deltaRow;
         this.deltaCol = deltaCol;
+        this.letter = letter;
     }
 
     /**
@@ -43,4 +48,35 @@ public enum Direction {
     public int getDeltaCol() {
         return deltaCol;
     }
+
+    /**
+     * Gets the letter of a move in this direction in the LURD notation.
+     *
+     * @param push true if the move pushes a box.
+     * @return the lowercase letter of a move, the uppercase letter of a push.
+     */
+    public char getLetter(boolean push) {
+        return push ? Character.toUpperCase(letter) : letter;
+    }
+
+    /**
+     * Gets the direction of a move in the LURD notation.
+     *
+     * @param letter the letter of the move or push, in any case.
+     * @return the direction, or null if the letter is not a move.
+     */
+    public static Direction fromLetter(char letter) {
+        switch (letter) {
+            case 'u': case 'U':
+                return UP;
+            case 'd': case 'D':
+                return DOWN;
+            case 'l': case 'L':
+                return LEFT;
+            case 'r': case 'R':
+                return RIGHT;
+            default:
+                return null;
+        }
+    }
 }
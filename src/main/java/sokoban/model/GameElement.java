@@ -5,25 +5,30 @@ import javafx.scene.image.Image;
 /**
  * The GameElement class is an abstract base class for all elements that can be placed on the game grid.
  * Each GameElement has an associated image used for rendering in the UI.
+ * Elements without state (wall, ground, player, mushroom) are immutable and shared through their INSTANCE.
  */
 public abstract class GameElement {
 
-    // The image representing this game element.
-    protected Image image;
+    // The name of the image representing this game element, loaded from the ImageRegistry.
+    private final String imageName;
 
     /**
      * Gets the image associated with this game element.
+     * The image is shared by all the elements of the same kind.
      *
      * @return the image of the game element.
      */
     public Image getImage() {
-        return image;
+        return ImageRegistry.get(imageName);
     }
 
     /**
-     * Default constructor for GameElement.
+     * Constructor for GameElement.
+     *
+     * @param imageName the name of the image of the element, see ImageRegistry.
      */
-    public GameElement() {
+    protected GameElement(String imageName) {
+        this.imageName = imageName;
     }
 
     /**
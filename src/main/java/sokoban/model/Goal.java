@@ -1,29 +1,32 @@
 package sokoban.model;
 
-import javafx.scene.control.Label;
-import javafx.scene.image.Image;
-
 public class Goal extends GameElement {
 
-    private Label numberLabel = new Label();  // Label to display the number of the goal
+    private int number;  // Number of the goal, 0 until the goals are numbered
 
 
     public Goal() {
-        image = new Image("goal.png");
+        super(ImageRegistry.GOAL);
 
     }
 
     public Goal copy() {
         Goal copy = new Goal();
-        copy.numberLabel = this.getNumberLabel();
+        copy.number = this.number;
         return copy;
 
     }
-    public Label getNumberLabel() {
-        return numberLabel;
+
+    /**
+     * Gets the number of the goal.
+     *
+     * @return the number of the goal, 0 if it has none.
+     */
+    public int getNumber() {
+        return number;
     }
 
-    public void setNumberLabel(Label label) {
-        this.numberLabel = label;
+    public void setNumber(int number) {
+        this.number = number;
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,12 @@
 package sokoban.model;
 
 
-import javafx.beans.binding.Bindings;
-import javafx.beans.binding.LongBinding;
 import javafx.beans.property.ReadOnlyListProperty;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
 import javafx.collections.ObservableList;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 
 public abstract class Grid {
@@ -17,17 +17,31 @@ public abstract class Grid {
      // Matrix holding the cells of the grid
      protected  Cell[][] matrix;
 
-     // Bindings for counting various elements in the grid
-     protected LongBinding filledCellsCount;
-     protected LongBinding boxCount;
-     protected LongBinding playerCount;
-     protected LongBinding goalCount;
-     protected LongBinding boxInTargetCount;
+     // Extra flags describing a cell for the counters, next to the CellState flags
+     static final int FILLED = 1 << 8;
+     static final int BOX_IN_TARGET = 1 << 9;
+
+     // Counters of the various elements in the grid, updated from the changes of each cell
+     private final ReadOnlyLongWrapper filledCellsCount = new ReadOnlyLongWrapper();
+     private final ReadOnlyLongWrapper boxCount = new ReadOnlyLongWrapper();
+     private final ReadOnlyLongWrapper playerCount = new ReadOnlyLongWrapper();
+     private final ReadOnlyLongWrapper goalCount = new ReadOnlyLongWrapper();
+     private final ReadOnlyLongWrapper boxInTargetCount = new ReadOnlyLongWrapper();
+
+     // Position of the player, kept up to date by the subclasses (-1 if there is no player)
+     protected int playerLine = -1;
+     protected int playerCol = -1;
+
+     // Depth of the bulk updates in progress, and the counters kept aside until the outermost one is committed
+     private int updates;
+     private long pendingFilled, pendingBoxes, pendingPlayers, pendingGoals, pendingBoxesInTarget;
+
      public Grid() {
      }
 
      /**
-      * Copies the contents of another Grid4Design object into this one.
+      * Copies the contents of another Grid4Design object into this one, in a single bulk update:
+      * each cell that differs changes once, the others do not change, and the counters change once.
       * @param copy The grid to copy from.
       */
      public void copy(Grid copy) {
@@ -36,28 +50,134 @@ public abstract class Grid {
                throw new IllegalArgumentException("Grid dimensions do not match.");
           }
 
-          // Clear current elements
-          for (int i = 0; i < this.getGridHeight(); i++) {
-               for (int j = 0; j < this.getGridWidth(); j++) {
-                    this.valueProperty(i, j).clear();
+          beginUpdate();
+          try {
+               List<GameElement> copies = new ArrayList<>(4);
+               for (int i = 0; i < copy.getGridHeight(); i++) {
+                    for (int j = 0; j < copy.getGridWidth(); j++) {
+                         List<GameElement> copyElements = copy.valueProperty(i, j);
+                         ObservableList<GameElement> values = this.getValues(i, j);
+                         if (!sameElements(values, copyElements)) {
+                              copies.clear();
+                              for (GameElement element : copyElements) {
+                                   copies.add(element.copy()); // Ensure to copy elements to avoid cross-references
+                              }
+                              values.setAll(copies);
+                         }
+                    }
                }
+          } finally {
+               commitUpdate();
           }
+     }
 
-          // Copy elements from source grid
-          for (int i = 0; i < copy.getGridHeight(); i++) {
-               for (int j = 0; j < copy.getGridWidth(); j++) {
-                    List<GameElement> copyElements = copy.valueProperty(i, j);
-                    for (GameElement element : copyElements) {
-                         this.valueProperty(i, j).add(element.copy()); // Ensure to copy elements to avoid cross-references
-                    }
+     // Checks if two cells hold the same kinds of elements in the same order, with the same numbers
+     private static boolean sameElements(List<GameElement> values, List<GameElement> others) {
+          if (values.size() != others.size()) {
+               return false;
+          }
+          for (int k = 0; k < values.size(); k++) {
+               GameElement value = values.get(k);
+               GameElement other = others.get(k);
+               if (value.getClass() != other.getClass()
+                       || value instanceof Box && ((Box) value).getNumber() != ((Box) other).getNumber()
+                       || value instanceof Goal && ((Goal) value).getNumber() != ((Goal) other).getNumber()) {
+                    return false;
                }
           }
+          return true;
+     }
+
+     /**
+      * Starts a bulk update of the grid, such as loading or copying a whole level: until the matching
+      * call to commitUpdate, the counters are kept aside instead of changing at each cell, and the
+      * subclasses defer the work they would do after each change. Bulk updates may be nested,
+      * only the outermost one publishes the changes.
+      */
+     public void beginUpdate() {
+          if (updates++ == 0) {
+               pendingFilled = filledCellsCount.get();
+               pendingBoxes = boxCount.get();
+               pendingPlayers = playerCount.get();
+               pendingGoals = goalCount.get();
+               pendingBoxesInTarget = boxInTargetCount.get();
+          }
+     }
+
+     /**
+      * Ends a bulk update started by beginUpdate. When the outermost one ends, each counter changes
+      * once, to its final value, then the subclass publishes the changes it deferred (see commitChanges).
+      */
+     public void commitUpdate() {
+          if (updates == 0) {
+               throw new IllegalStateException("No bulk update in progress.");
+          }
+          if (--updates == 0) {
+               filledCellsCount.set(pendingFilled);
+               boxCount.set(pendingBoxes);
+               playerCount.set(pendingPlayers);
+               goalCount.set(pendingGoals);
+               boxInTargetCount.set(pendingBoxesInTarget);
+               commitChanges();
+          }
+     }
+
+     /**
+      * Checks if a bulk update is in progress.
+      * @return true between beginUpdate and the matching commitUpdate.
+      */
+     public boolean isUpdating() {
+          return updates > 0;
+     }
+
+     /**
+      * Publishes the changes deferred during a bulk update, once it is committed and the counters are set.
+      * Nothing to do by default.
+      */
+     protected void commitChanges() {
+     }
+
+     /**
+      * Copies the position of the grid into a new state, without any JavaFX object.
+      * @return The state of the grid.
+      */
+     public PlayState snapshot() {
+          Grid4Play play = new Grid4Play(gridWidth, gridHeight);
+          play.copy(this);
+          return play.getState();
      }
 
      // Getters for grid dimensions
      public int getGridWidth() { return gridWidth; }
      public int getGridHeight() { return gridHeight; }
 
+     // Getters for the player position
+     public int getPlayerLine() { return playerLine; }
+     public int getPlayerCol() { return playerCol; }
+     public boolean hasPlayer() { return getPlayerLine() >= 0; }
+
+     /**
+      * Computes the Zobrist hash of the position: the player square and the squares and numbers of the boxes.
+      * See Zobrist; the play grid keeps it up to date at each move instead.
+      * @return The hash of the position.
+      */
+     public long getHash() {
+          long hash = 0;
+          for (int i = 0; i < gridHeight; i++) {
+               for (int j = 0; j < gridWidth; j++) {
+                    int index = i * gridWidth + j;
+                    for (GameElement element : valueProperty(i, j)) {
+                         if (element instanceof Player) {
+                              hash ^= Zobrist.player(index);
+                         } else if (element instanceof Box) {
+                              hash ^= Zobrist.box(index, ((Box) element).getNumber());
+                         }
+                    }
+               }
+          }
+          return hash;
+     }
+
      /**
       * Returns the value property of the cell at the specified position.
       * @param line The row index.
@@ -75,20 +195,20 @@ public abstract class Grid {
             cell.addElement(new Box());
             return true;
         } else if (element instanceof Player) {
-            cell.addElement(new Player());
+            cell.addElement(Player.INSTANCE);
             return true;
         } else if (element instanceof Wall) {
-            cell.addElement(new Wall());
+            cell.addElement(Wall.INSTANCE);
             return true;
         } else if (element instanceof Goal) {
             cell.addElement(new Goal());
             return true;
         } else if (element instanceof Mushroom) {
-            cell.addElement(new Mushroom());
+            cell.addElement(Mushroom.INSTANCE);
             return true;
         } else {
             if (!(cell.values.stream().allMatch(item -> item instanceof Ground)) || cellItems.isEmpty()) {
-                cell.addElement(new Ground());
+                cell.addElement(Ground.INSTANCE);
                 return true;
             }
         }
@@ -118,62 +238,74 @@ public abstract class Grid {
         return line >= 0 && line < gridHeight && col >= 0 && col < gridWidth;
     }
 
-    public void setFilledCellsCount() {
-        filledCellsCount = Bindings.createLongBinding(() -> Arrays
-                .stream(matrix)
-                .flatMap(Arrays::stream)
-                .filter(cell -> !cell.isEmpty())
-                .count());
-    }
-    public void setBoxInTargetCount() {
-        boxInTargetCount = Bindings.createLongBinding(() -> Arrays
-                .stream(matrix)
-                .flatMap(Arrays::stream)
-                .filter(Cell::isBoxInTarget)
-                .count());
-    }
-    public void setBoxCellsCount() {
-        boxCount = Bindings.createLongBinding(() -> Arrays
-                .stream(matrix)
-                .flatMap(Arrays::stream)
-                .filter(cell -> cell.isBox())
-                .count());
+    /**
+     * Updates the counters with the change of a single cell.
+     * The flags are the CellState flags of the cell, plus FILLED and BOX_IN_TARGET.
+     * @param before The flags of the cell before the change.
+     * @param after The flags of the cell after the change.
+     */
+    protected void updateCounters(int before, int after) {
+        if (before == after) {
+            return;
+        }
+        if (updates > 0) {
+            pendingFilled += delta(before, after, FILLED);
+            pendingBoxes += delta(before, after, CellState.BOX);
+            pendingPlayers += delta(before, after, CellState.PLAYER);
+            pendingGoals += delta(before, after, CellState.GOAL);
+            pendingBoxesInTarget += delta(before, after, BOX_IN_TARGET);
+            return;
+        }
+        adjust(filledCellsCount, before, after, FILLED);
+        adjust(boxCount, before, after, CellState.BOX);
+        adjust(playerCount, before, after, CellState.PLAYER);
+        adjust(goalCount, before, after, CellState.GOAL);
+        adjust(boxInTargetCount, before, after, BOX_IN_TARGET);
     }
-    public void setPlayerCount() {
-        playerCount = Bindings.createLongBinding(() -> Arrays
-                .stream(matrix)
-                .flatMap(Arrays::stream)
-                .filter(cell -> cell.isPlayer())
-                .count());
+
+    private static void adjust(ReadOnlyLongWrapper counter, int before, int after, int flag) {
+        int delta = delta(before, after, flag);
+        if (delta != 0) {
+            counter.set(counter.get() + delta);
+        }
     }
-    public void setGoalCount() {
-        goalCount = Bindings.createLongBinding(() -> Arrays
-                .stream(matrix)
-                .flatMap(Arrays::stream)
-                .filter(cell -> cell.isGoal())
-                .count());
+
+    private static int delta(int before, int after, int flag) {
+        return ((after & flag) != 0 ? 1 : 0) - ((before & flag) != 0 ? 1 : 0);
     }
 
-    public LongBinding filledCellsCountProperty() {
-        return filledCellsCount;
+    /**
+     * Sets all the counters at once, after a change of the whole grid.
+     */
+    protected void setCounters(long filled, long boxes, long players, long goals, long boxesInTarget) {
+        if (updates > 0) {
+            pendingFilled = filled;
+            pendingBoxes = boxes;
+            pendingPlayers = players;
+            pendingGoals = goals;
+            pendingBoxesInTarget = boxesInTarget;
+            return;
+        }
+        filledCellsCount.set(filled);
+        boxCount.set(boxes);
+        playerCount.set(players);
+        goalCount.set(goals);
+        boxInTargetCount.set(boxesInTarget);
     }
-    public LongBinding boxCountProperty() {
-        return boxCount;
+
+    public ReadOnlyLongProperty filledCellsCountProperty() {
+        return filledCellsCount.getReadOnlyProperty();
     }
-    public LongBinding goalCountProperty() {
-        return goalCount;
+    public ReadOnlyLongProperty boxCountProperty() {
+        return boxCount.getReadOnlyProperty();
     }
-    public LongBinding playerCountProperty() {
-        return playerCount;
+    public ReadOnlyLongProperty goalCountProperty() {
+        return goalCount.getReadOnlyProperty();
     }
-    public LongBinding boxInTargetCountProperty() {
-        return boxInTargetCount;
+    public ReadOnlyLongProperty playerCountProperty() {
+        return playerCount.getReadOnlyProperty();
     }
-
-    public void countCell () {
-        setBoxCellsCount();
-        setPlayerCount();
-        setGoalCount();
-        setBoxInTargetCount();
+    public ReadOnlyLongProperty boxInTargetCountProperty() {
+        return boxInTargetCount.getReadOnlyProperty();
     }
-}
\ No newline at end of file
+}
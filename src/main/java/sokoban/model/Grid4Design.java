@@ -1,11 +1,8 @@
 package sokoban.model;
 
-import javafx.beans.binding.Bindings;
-import javafx.beans.binding.LongBinding;
-import javafx.beans.property.ReadOnlyListProperty;
-import javafx.collections.ObservableList;
+import javafx.collections.ListChangeListener;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -14,13 +11,6 @@ import java.util.List;
  */
 public class Grid4Design extends Grid{
 
-    // Bindings for counting various elements in the grid
-    private LongBinding filledCellsCount;
-    private LongBinding boxCount;
-    private LongBinding playerCount;
-    private LongBinding goalCount;
-    private LongBinding boxInTargetCount;
-
     /**
      * Default constructor initializes the grid with default dimensions.
      */
@@ -30,11 +20,10 @@ public class Grid4Design extends Grid{
             matrix[i] = new Cell4Design[gridWidth];
             for (int j = 0; j < gridWidth; ++j) {
                 matrix[i][j] = new Cell4Design();
-                matrix[i][j].addElement(new Ground());
+                matrix[i][j].addElement(Ground.INSTANCE);
+                watchCell(i, j);
             }
         }
-        setFilledCellsCount();
-        countCell();
     }
 
     /**
@@ -50,79 +39,136 @@ public class Grid4Design extends Grid{
             matrix[i] = new Cell4Design[width];
             for (int j = 0; j < width; ++j) {
                 matrix[i][j] = new Cell4Design();
-                matrix[i][j].addElement(new Ground());
+                matrix[i][j].addElement(Ground.INSTANCE);
+                watchCell(i, j);
             }
         }
-        setFilledCellsCount();
-        countCell();
     }
 
-    public void put(int line, int col, GameElement element) {
+    /**
+     * Listens to the changes of a cell to keep the player position and the counters up to date,
+     * whatever the way the list of elements of the cell is modified.
+     * Only the delta of the changed cell is applied to the counters.
+     * @param line The row index.
+     * @param col The column index.
+     */
+    private void watchCell(int line, int col) {
         Cell cell = matrix[line][col];
-
-        // Insert a new instance of the element based on specific rules
-        if (addElementToCell(cell, element)) {
-            // Invalidate counters
-            filledCellsCount.invalidate();
-            playerCount.invalidate();
-            goalCount.invalidate();
-            boxCount.invalidate();
-        }
+        cell.valueProperty().addListener((ListChangeListener<GameElement>) change -> {
+            int flags = cell.flags();
+            if ((flags & CellState.PLAYER) != 0) {
+                playerLine = line;
+                playerCol = col;
+            } else if (playerLine == line && playerCol == col) {
+                playerLine = -1;
+                playerCol = -1;
+            }
+            updateCounters(cell.countedFlags, flags);
+            cell.countedFlags = flags;
+        });
     }
 
     /**
-     * Sets up the binding to count filled cells in the grid.
+     * Replaces the elements of every cell with the cells of a level, with a single change per cell
+     * and none for the cells already holding the same elements, so a level loaded over a close one
+     * only changes the cells that differ.
+     * @param level The level, of the same dimensions as the grid.
      */
-    public void setFilledCellsCount() {
-        filledCellsCount = Bindings.createLongBinding(() -> Arrays
-                .stream(matrix)
-                .flatMap(Arrays::stream)
-                .filter(cell -> !cell.isEmpty())
-                .count());
+    void load(Level level) {
+        if (level.getWidth() != gridWidth || level.getHeight() != gridHeight) {
+            throw new IllegalArgumentException("Grid dimensions do not match.");
+        }
+        for (int i = 0; i < gridHeight; i++) {
+            for (int j = 0; j < gridWidth; j++) {
+                byte code = level.getCell(i, j);
+                List<GameElement> values = matrix[i][j].values;
+                if (code == CellState.EMPTY) {
+                    if (values.size() != 1 || values.get(0) != Ground.INSTANCE) {
+                        matrix[i][j].values.setAll(Ground.INSTANCE);
+                    }
+                } else if (getCode(i, j) != code) {
+                    matrix[i][j].values.setAll(elements(code));
+                }
+            }
+        }
     }
 
     /**
-     * Sets up the binding to count boxes in target cells.
+     * Gets the elements of a cell of a level, above the ground: the box or the player before the goal.
      */
-    public void setBoxInTargetCount() {
-        boxInTargetCount = Bindings.createLongBinding(() -> Arrays
-                .stream(matrix)
-                .flatMap(Arrays::stream)
-                .filter(cell -> cell.isBoxInTarget())
-                .count());
+    private static List<GameElement> elements(byte code) {
+        List<GameElement> elements = new ArrayList<>(3);
+        elements.add(Ground.INSTANCE);
+        if (CellState.has(code, CellState.WALL)) {
+            elements.add(Wall.INSTANCE);
+        }
+        if (CellState.has(code, CellState.BOX)) {
+            elements.add(new Box());
+        }
+        if (CellState.has(code, CellState.PLAYER)) {
+            elements.add(Player.INSTANCE);
+        }
+        if (CellState.has(code, CellState.GOAL)) {
+            elements.add(new Goal());
+        }
+        return elements;
     }
 
     /**
-     * Sets up the binding to count box cells.
+     * Copies the position of the grid into a new state, encoding the game elements of each cell directly.
+     * @return The state of the grid.
      */
-    public void setBoxCellsCount() {
-        boxCount = Bindings.createLongBinding(() -> Arrays
-                .stream(matrix)
-                .flatMap(Arrays::stream)
-                .filter(cell -> cell.isBox())
-                .count());
+    @Override
+    public PlayState snapshot() {
+        PlayState state = new PlayState(gridWidth, gridHeight);
+        for (int i = 0; i < gridHeight; i++) {
+            for (int j = 0; j < gridWidth; j++) {
+                int index = state.index(i, j);
+                int boxNumber = 0;
+                int goalNumber = 0;
+                for (GameElement element : matrix[i][j].values) {
+                    if (element instanceof Box) {
+                        boxNumber = ((Box) element).getNumber();
+                    } else if (element instanceof Goal) {
+                        goalNumber = ((Goal) element).getNumber();
+                    }
+                }
+                state.cells[index] = getCode(i, j);
+                state.boxNumbers[index] = (short) boxNumber;
+                state.goalNumbers[index] = (short) goalNumber;
+            }
+        }
+        state.locate();
+        return state;
     }
 
     /**
-     * Sets up the binding to count player cells.
+     * Gets the CellState code of the elements of a cell.
+     * @param line The row index.
+     * @param col The column index.
+     * @return The code of the cell.
      */
-    public void setPlayerCount() {
-        playerCount = Bindings.createLongBinding(() -> Arrays
-                .stream(matrix)
-                .flatMap(Arrays::stream)
-                .filter(cell -> cell.isPlayer())
-                .count());
+    public byte getCode(int line, int col) {
+        byte code = CellState.EMPTY;
+        for (GameElement element : matrix[line][col].values) {
+            if (element instanceof Wall) {
+                code |= CellState.WALL;
+            } else if (element instanceof Goal) {
+                code |= CellState.GOAL;
+            } else if (element instanceof Box) {
+                code |= CellState.BOX;
+            } else if (element instanceof Player) {
+                code |= CellState.PLAYER;
+            } else if (element instanceof Mushroom) {
+                code |= CellState.MUSHROOM;
+            }
+        }
+        return code;
     }
 
-    /**
-     * Sets up the binding to count goal cells.
-     */
-    public void setGoalCount() {
-        goalCount = Bindings.createLongBinding(() -> Arrays
-                .stream(matrix)
-                .flatMap(Arrays::stream)
-                .filter(cell -> cell.isGoal())
-                .count());
+    public void put(int line, int col, GameElement element) {
+        // Insert a new instance of the element based on specific rules
+        addElementToCell(matrix[line][col], element);
     }
 
     /**
@@ -133,26 +179,5 @@ public class Grid4Design extends Grid{
      */
     void remove(int line, int col, GameElement element) {
         matrix[line][col].remove(element);
-        filledCellsCount.invalidate();
-        playerCount.invalidate();
-        goalCount.invalidate();
-        boxCount.invalidate();
-    }
-
-    // Getters for binding properties
-    public LongBinding filledCellsCountProperty() { return filledCellsCount; }
-    public LongBinding boxCountProperty() { return boxCount; }
-    public LongBinding goalCountProperty() { return goalCount; }
-    public LongBinding playerCountProperty() { return playerCount; }
-    public LongBinding boxInTargetCountProperty() { return boxInTargetCount; }
-
-    /**
-     * Initializes all the element count bindings.
-     */
-    public void countCell() {
-        setBoxCellsCount();
-        setPlayerCount();
-        setGoalCount();
-        setBoxInTargetCount();
     }
 }
@@ -1,20 +1,60 @@
 package sokoban.model;
 
-public class Grid4Play extends Grid{
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyListProperty;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+import javafx.collections.ObservableList;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The Grid4Play class represents the grid used while playing.
+ * The position is kept in a PlayState, where every cell is a packed code (see CellState)
+ * in a single byte array indexed by {@code row * width + col}. Moves are applied by the MoveEngine.
+ * The observable lists of game elements are only built, lazily, for the cells shown by the UI.
+ */
+public class Grid4Play extends Grid {
+
+    // Position being played
+    private final PlayState state;
+
+    // Views of the cells, created on demand for the UI layer
+    private final Cell4Play[] views;
+
+    // Dead squares of the level, computed by computeDeadlocks, and state of the position
+    private Deadlocks deadlocks;
+    private final ReadOnlyBooleanWrapper deadlock = new ReadOnlyBooleanWrapper();
+
+    // Number of changes of the position, for the views that draw the grid from the state
+    private final ReadOnlyLongWrapper revision = new ReadOnlyLongWrapper();
+
+    // Work deferred until the end of the bulk update in progress (see Grid.beginUpdate)
+    private boolean refreshPending;
+    private boolean revisionPending;
+
+    // Cells changed since the view of the grid last drew them (see getChanges)
+    private final ChangedCells changes;
+
+    // Codes and numbers of the cells as last added to the changes, so that an operation on the whole grid
+    // only adds the cells it really changed
+    private final byte[] publishedCells;
+    private final short[] publishedBoxes;
+    private final short[] publishedGoals;
+    private static final byte MUSHROOM_SHOWN = (byte) 0x80; // Next to the code, the mushroom is visible
 
     public Grid4Play(int width, int height) {
         super();
         gridWidth = width;
         gridHeight = height;
-        matrix = new Cell4Play[gridHeight][];
-        for (int i = 0; i < gridHeight; ++i) {
-            matrix[i] = new Cell4Play[gridWidth];
-            for (int j = 0; j < gridWidth; ++j) {
-                matrix[i][j] = new Cell4Play();
-            }
-        }
-        setFilledCellsCount();
-        countCell();
+        state = new PlayState(width, height);
+        views = new Cell4Play[width * height];
+        changes = new ChangedCells(width * height);
+        publishedCells = new byte[width * height];
+        publishedBoxes = new short[width * height];
+        publishedGoals = new short[width * height];
     }
 
     public void put(int line, int col, GameElement element) {
@@ -24,4 +64,411 @@ public class Grid4Play extends Grid{
     void remove(int line, int col, GameElement element) {
     }
 
+    /**
+     * Gets the state holding the position being played.
+     *
+     * @return The play state.
+     */
+    public PlayState getState() {
+        return state;
+    }
+
+    @Override
+    public int getPlayerLine() {
+        return state.getPlayer() < 0 ? -1 : state.getPlayer() / gridWidth;
+    }
+
+    @Override
+    public int getPlayerCol() {
+        return state.getPlayer() < 0 ? -1 : state.getPlayer() % gridWidth;
+    }
+
+    /**
+     * Gets the Zobrist hash of the position, updated by the MoveEngine at each move.
+     *
+     * @return The hash of the position.
+     */
+    @Override
+    public long getHash() {
+        return state.getHash();
+    }
+
+    /**
+     * Returns the packed code of the cell at the specified position.
+     *
+     * @param line The row index.
+     * @param col  The column index.
+     * @return The code of the cell.
+     */
+    public byte getCell(int line, int col) {
+        return state.getCell(state.index(line, col));
+    }
+
+    /**
+     * Moves the player in the given direction with the MoveEngine and updates the changed cells.
+     *
+     * @param direction The direction of the move.
+     * @return The outcome of the move.
+     */
+    public MoveResult movePlayer(Direction direction) {
+        int from = state.getPlayer();
+        if (from < 0) {
+            return MoveResult.BLOCKED;
+        }
+        int line = from / gridWidth;
+        int col = from % gridWidth;
+        int step = direction.getDeltaRow() * gridWidth + direction.getDeltaCol();
+        int to = from + step;
+        int next = to + step;
+
+        // Flags of the cells the move can change, to update the counters with their delta only
+        int fromFlags = flags(from);
+        int toFlags = isValidPosition(line + direction.getDeltaRow(), col + direction.getDeltaCol())
+                ? flags(to) : 0;
+        int nextFlags = isValidPosition(line + 2 * direction.getDeltaRow(), col + 2 * direction.getDeltaCol())
+                ? flags(next) : 0;
+
+        MoveResult result = MoveEngine.apply(state, direction);
+        if (result.isMove()) {
+            cellChanged(from, fromFlags);
+            cellChanged(to, toFlags);
+            if (result == MoveResult.PUSHED) {
+                cellChanged(next, nextFlags);
+                // Pushes cannot undo a deadlock, so only the pushed box needs to be checked
+                if (deadlocks != null && !deadlock.get()) {
+                    deadlock.set(deadlocks.isDeadlockedAfterPush(state, next));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the dead squares of the level, once the walls and the goals are in place,
+     * and starts checking the position after each push.
+     */
+    public void computeDeadlocks() {
+        deadlocks = Deadlocks.of(state);
+        checkDeadlock();
+    }
+
+    /**
+     * Checks the whole position again, after it changed other than by a push.
+     */
+    void checkDeadlock() {
+        deadlock.set(deadlocks != null && deadlocks.isDeadlocked(state));
+    }
+
+    /**
+     * Property true when the position can no longer be solved: a box is on a dead square
+     * or frozen off its goal.
+     *
+     * @return The deadlock property.
+     */
+    public ReadOnlyBooleanProperty deadlockProperty() {
+        return deadlock.getReadOnlyProperty();
+    }
+
+    /**
+     * Checks if a box on the square at the specified position can never reach a goal.
+     *
+     * @param line The row index.
+     * @param col  The column index.
+     * @return true if the square is dead, false otherwise or if the dead squares were not computed.
+     */
+    public boolean isDeadSquare(int line, int col) {
+        return deadlocks != null && deadlocks.isDeadSquare(state.index(line, col));
+    }
+
+    /**
+     * Property incremented at each change of the position, whether or not the cells have views.
+     * A view drawing the grid from its state (see getState) listens to it to know when to draw it again.
+     *
+     * @return The revision property.
+     */
+    public ReadOnlyLongProperty revisionProperty() {
+        return revision.getReadOnlyProperty();
+    }
+
+    /**
+     * Gets the cells changed since the last call to clearChanges: the two or three cells of a move,
+     * the cells reverted by an undo, the boxes moved by the mushroom, or every cell after a copy or a load.
+     * The view of the grid draws only these cells again, then clears them.
+     *
+     * @return The changed cells, each listed once.
+     */
+    public ChangedCells getChanges() {
+        return changes;
+    }
+
+    /**
+     * Forgets the changed cells, once the view drew them.
+     */
+    public void clearChanges() {
+        changes.clear();
+    }
+
+    @Override
+    public PlayState snapshot() {
+        return state.copy();
+    }
+
+    /**
+     * Copies the contents of another grid into this one, encoding the game elements
+     * of each cell into its packed code.
+     *
+     * @param copy The grid to copy from.
+     */
+    @Override
+    public void copy(Grid copy) {
+        if (this.getGridHeight() != copy.getGridHeight() || this.getGridWidth() != copy.getGridWidth()) {
+            throw new IllegalArgumentException("Grid dimensions do not match.");
+        }
+
+        for (int i = 0; i < gridHeight; i++) {
+            for (int j = 0; j < gridWidth; j++) {
+                int index = state.index(i, j);
+                List<GameElement> elements = copy.valueProperty(i, j);
+                byte code = CellState.EMPTY;
+                short boxNumber = 0;
+                short goalNumber = 0;
+                for (GameElement element : elements) {
+                    if (element instanceof Wall) {
+                        code |= CellState.WALL;
+                    } else if (element instanceof Goal) {
+                        code |= CellState.GOAL;
+                        goalNumber = (short) ((Goal) element).getNumber();
+                    } else if (element instanceof Box) {
+                        code |= CellState.BOX;
+                        boxNumber = (short) ((Box) element).getNumber();
+                    } else if (element instanceof Player) {
+                        code |= CellState.PLAYER;
+                    } else if (element instanceof Mushroom) {
+                        code |= CellState.MUSHROOM;
+                        // A mushroom is hidden as long as something is stacked on top of it
+                        state.setMushroomVisible(elements.get(elements.size() - 1) instanceof Mushroom);
+                    }
+                }
+                state.cells[index] = code;
+                state.setNumbers(index, boxNumber, goalNumber);
+            }
+        }
+        state.locate();
+        state.markAllChanged();
+        refreshAll();
+    }
+
+    /**
+     * Loads a whole position into the grid, such as a level or a game read from a binary file,
+     * without going through the game elements of the cells. The dead squares of the level are computed
+     * and the position checked, as by computeDeadlocks.
+     *
+     * @param position The position to load, of the same dimensions as the grid.
+     */
+    public void load(PlayState position) {
+        state.load(position);
+        deadlocks = Deadlocks.of(state);
+        refreshAll();
+    }
+
+    /**
+     * Puts back the code and the box number of a cell, when going through the history.
+     * Only this cell is rendered again and counted.
+     *
+     * @param index     The index of the cell.
+     * @param code      The code of the cell.
+     * @param boxNumber The number of the box, 0 if none.
+     */
+    void restoreCell(int index, byte code, int boxNumber) {
+        int before = flags(index);
+        state.setCell(index, code);
+        state.setNumbers(index, boxNumber, state.getGoalNumber(index));
+        cellChanged(index, before);
+    }
+
+    /**
+     * Returns the value property of the cell at the specified position,
+     * creating the view of the cell on first access.
+     *
+     * @param line The row index.
+     * @param col  The column index.
+     * @return The value property of the cell.
+     */
+    @Override
+    public ReadOnlyListProperty<GameElement> valueProperty(int line, int col) {
+        return view(state.index(line, col)).valueProperty();
+    }
+
+    @Override
+    public ObservableList<GameElement> getValues(int line, int col) {
+        return view(state.index(line, col)).valueProperty();
+    }
+
+    private Cell4Play view(int index) {
+        Cell4Play view = views[index];
+        if (view == null) {
+            view = new Cell4Play();
+            views[index] = view;
+            render(index);
+        }
+        return view;
+    }
+
+    private void render(int index) {
+        views[index].render(state.getCell(index), state.getBoxNumber(index), state.getGoalNumber(index),
+                state.mushroomVisible);
+    }
+
+    /**
+     * Computes the flags of a cell used by the counters.
+     */
+    private int flags(int index) {
+        byte code = state.getCell(index);
+        int flags = code;
+        if (code != CellState.EMPTY) {
+            flags |= FILLED;
+        }
+        if (state.isBoxInTarget(index)) {
+            flags |= BOX_IN_TARGET;
+        }
+        return flags;
+    }
+
+    /**
+     * Updates the view of a changed cell, if any, and the counters with the delta of the cell.
+     */
+    private void cellChanged(int index, int before) {
+        if (views[index] != null) {
+            render(index);
+        }
+        publish(index);
+        updateCounters(before, flags(index));
+        if (isUpdating()) {
+            revisionPending = true;
+        } else {
+            revision.set(revision.get() + 1);
+        }
+    }
+
+    /**
+     * Adds a cell to the changes if its code or its numbers differ from the ones last added.
+     *
+     * @return true if the cell changed.
+     */
+    private boolean publish(int index) {
+        byte code = state.getCell(index);
+        if (CellState.has(code, CellState.MUSHROOM) && state.mushroomVisible) {
+            code |= MUSHROOM_SHOWN;
+        }
+        short boxNumber = (short) state.getBoxNumber(index);
+        short goalNumber = (short) state.getGoalNumber(index);
+        if (code == publishedCells[index] && boxNumber == publishedBoxes[index] && goalNumber == publishedGoals[index]) {
+            return false;
+        }
+        publishedCells[index] = code;
+        publishedBoxes[index] = boxNumber;
+        publishedGoals[index] = goalNumber;
+        changes.add(index);
+        return true;
+    }
+
+    /**
+     * Updates the views of the cells changed in the state and counts the elements again,
+     * after a change of many cells at once. The state lists the cells changed since the last
+     * state of the history, so only the ones that differ from the last changes are updated.
+     * During a bulk update, it is done once when the update is committed.
+     */
+    private void refreshAll() {
+        if (isUpdating()) {
+            refreshPending = true;
+            return;
+        }
+        for (int i = 0; i < state.getChangedCount(); i++) {
+            int index = state.getChanged(i);
+            if (publish(index) && views[index] != null) {
+                render(index);
+            }
+        }
+        long filled = 0, boxes = 0, players = 0, goals = 0, boxesInTarget = 0;
+        for (int index = 0; index < state.size(); index++) {
+            int flags = flags(index);
+            if ((flags & FILLED) != 0) filled++;
+            if ((flags & CellState.BOX) != 0) boxes++;
+            if ((flags & CellState.PLAYER) != 0) players++;
+            if ((flags & CellState.GOAL) != 0) goals++;
+            if ((flags & BOX_IN_TARGET) != 0) boxesInTarget++;
+        }
+        setCounters(filled, boxes, players, goals, boxesInTarget);
+        checkDeadlock();
+        revision.set(revision.get() + 1);
+    }
+
+    /**
+     * Updates the views and counts the elements once for all the changes of the bulk update.
+     */
+    @Override
+    protected void commitChanges() {
+        if (refreshPending) {
+            refreshPending = false;
+            revisionPending = false;
+            refreshAll();
+        } else if (revisionPending) {
+            revisionPending = false;
+            revision.set(revision.get() + 1);
+        }
+    }
+
+    // Numbering of boxes and goals
+
+    public void numberBoxes() {
+        state.numberBoxes();
+        refreshAll();
+    }
+
+    public void numberGoals() {
+        state.numberGoals();
+        refreshAll();
+    }
+
+    public void shuffleGoalNumbers(Random random) {
+        state.shuffleGoalNumbers(random);
+        refreshAll();
+    }
+
+    // Mushroom feature
+
+    public void placeMushroom(Random random) {
+        state.placeMushroom(random);
+        refreshAll();
+    }
+
+    public void shuffleBoxes(Random random) {
+        state.shuffleBoxes(random);
+        refreshAll();
+    }
+
+    public boolean toggleMushroom() {
+        int mushroom = state.getMushroom();
+        boolean visible = state.toggleMushroom();
+        if (mushroom >= 0) {
+            cellChanged(mushroom, flags(mushroom));
+        }
+        return visible;
+    }
+
+    public boolean isMushroomVisible() {
+        return state.isMushroomVisible();
+    }
+
+    /**
+     * Checks if the player is standing on the hidden mushroom at the specified position.
+     *
+     * @param line The row index.
+     * @param col  The column index.
+     * @return true if the hidden mushroom is under the player, false otherwise.
+     */
+    public boolean isMushroomUnderPlayer(int line, int col) {
+        byte code = getCell(line, col);
+        return !state.mushroomVisible && CellState.has(code, CellState.MUSHROOM) && CellState.has(code, CellState.PLAYER);
+    }
 }
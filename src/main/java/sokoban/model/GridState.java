@@ -1,61 +1,268 @@
 package sokoban.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The GridState class manages the history of board states in the Sokoban game.
  * It allows tracking and navigating between different states of the game board.
+ * <p>
+ * Instead of a copy of the board, each state is stored as the delta from the previous one:
+ * the cells that changed, each packed in a long with its code and box number before and after.
+ * A full checkpoint of the cells is kept every CHECKPOINT_INTERVAL states so any state can be
+ * rebuilt by replaying the deltas from the nearest checkpoint.
+ * <p>
+ * The Zobrist hash of each state is recorded too. When a move comes back to a position already
+ * in the history, the loop is collapsed: the states in between are dropped and the earlier state
+ * becomes the current one, so undo goes straight back past the loop. The hash only covers the player
+ * and the boxes, so a loop is kept when a state in it does not come from a move (the mushroom can
+ * change cells the hash does not cover).
+ * <p>
+ * The move leading to each state is recorded as its letter in the LURD notation (see Direction.getLetter),
+ * so the moves from the first state to the current one can be saved and replayed. As loops are collapsed,
+ * they are the shortest way through the positions of the history.
  */
 public class GridState {
-    private final List<Board> boardHistory; // List to store the history of board states
+    // Number of states between two checkpoints
+    public static final int CHECKPOINT_INTERVAL = 256;
+
+    // Recorded for a state that does not come from a move of the player, such as the effect of the mushroom
+    public static final char NO_MOVE = 0;
+
+    // Largest number of cells and largest box number a change can hold (see pack)
+    public static final int MAX_CELLS = 1 << 24;
+    public static final int MAX_BOX_NUMBER = (1 << 15) - 1;
+
+    private final List<long[]> history; // Deltas from the previous state, the first entry is the initial state
+    private final List<Checkpoint> checkpoints; // Full copies of the cells every CHECKPOINT_INTERVAL states
+    private final Map<Long, Integer> positions; // Index in the history of each recorded hash
+    private long[] hashes; // Hash of each state of the history
+    private char[] moves; // LURD letter of the move leading to each state, NO_MOVE for other changes
+    private int[] moveCounts; // Number of moves from the first state to each state
     private int currentIndex; // Index of the current board state in the history
 
+    // Cells and box numbers of the current state, used to compute the next delta
+    private byte[] baseCells;
+    private short[] baseBoxes;
+
     /**
      * Constructs a new GridState object with an empty history.
      */
     public GridState() {
-        boardHistory = new ArrayList<>();
+        history = new ArrayList<>();
+        checkpoints = new ArrayList<>();
+        positions = new HashMap<>();
+        hashes = new long[64];
+        moves = new char[64];
+        moveCounts = new int[64];
         currentIndex = -1; // The current index in the history is initialized to -1 as there are no states recorded yet.
     }
 
     /**
-     * Adds a new board state to the history.
+     * Adds a new board state to the history, that does not come from a move of the player.
+     * Only the cells changed since the previous state are stored.
      * @param board The board state to add.
      */
     public void addBoardState(Board board) {
-        // Cloning the board to avoid modifying the original object
-        Board clonedBoard = board.copy();
+        addBoardState(board, NO_MOVE);
+    }
+
+    /**
+     * Adds a new board state to the history, reached by a move of the player.
+     * Only the cells changed since the previous state are stored.
+     * @param board The board state to add.
+     * @param move The LURD letter of the move, or NO_MOVE.
+     * @throws IllegalArgumentException if the history starts with more than MAX_CELLS cells
+     * or a box numbered above MAX_BOX_NUMBER, which a change cannot hold.
+     */
+    public void addBoardState(Board board, char move) {
+        PlayState state = board.getPlayGrid().getState();
+
         // When a new state is added, all subsequent states are removed from the history.
-        if (currentIndex < boardHistory.size() - 1) {
-            boardHistory.subList(currentIndex + 1, boardHistory.size()).clear();
+        truncate(currentIndex);
+
+        if (history.isEmpty() || baseCells == null || baseCells.length != state.size()) {
+            // The first state is the starting point of the deltas
+            if (state.size() > MAX_CELLS) {
+                throw new IllegalArgumentException("Too many cells for the history: " + state.size() + " > " + MAX_CELLS);
+            }
+            clear();
+            baseCells = new byte[state.size()];
+            baseBoxes = new short[state.size()];
+            for (int index = 0; index < state.size(); index++) {
+                int number = state.getBoxNumber(index);
+                if (number < 0 || number > MAX_BOX_NUMBER) {
+                    clear();
+                    throw new IllegalArgumentException("Box number " + number + " too large for the history: > "
+                            + MAX_BOX_NUMBER);
+                }
+                baseCells[index] = state.getCell(index);
+                baseBoxes[index] = (short) number;
+            }
+            history.add(new long[0]);
+        } else {
+            long[] delta = delta(state);
+            state.clearChanged();
+            Integer earlier = positions.get(state.getHash());
+            if (earlier != null && move != NO_MOVE && onlyMovesAfter(earlier)) {
+                // Back to an earlier position by moves only: the base cells already match it, the loop is dropped
+                truncate(earlier);
+                currentIndex = earlier;
+                return;
+            }
+            history.add(delta);
+        }
+        state.clearChanged();
+        currentIndex = history.size() - 1; // The current index is updated to point to the newly added state.
+        if (currentIndex == hashes.length) {
+            hashes = Arrays.copyOf(hashes, currentIndex * 2);
+            moves = Arrays.copyOf(moves, currentIndex * 2);
+            moveCounts = Arrays.copyOf(moveCounts, currentIndex * 2);
+        }
+        hashes[currentIndex] = state.getHash();
+        moves[currentIndex] = currentIndex == 0 ? NO_MOVE : move;
+        moveCounts[currentIndex] = currentIndex == 0 ? 0 : moveCounts[currentIndex - 1] + (move == NO_MOVE ? 0 : 1);
+        positions.put(state.getHash(), currentIndex);
+        if (currentIndex % CHECKPOINT_INTERVAL == 0) {
+            checkpoints.add(new Checkpoint(baseCells.clone(), baseBoxes.clone()));
+        }
+    }
+
+    /**
+     * Checks if all the states after the given one, up to the current one, come from moves of the player.
+     */
+    private boolean onlyMovesAfter(int earlier) {
+        for (int index = earlier + 1; index <= currentIndex; index++) {
+            if (moves[index] == NO_MOVE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes the states after the given index from the history.
+     */
+    private void truncate(int last) {
+        if (last >= history.size() - 1) {
+            return;
+        }
+        for (int index = last + 1; index < history.size(); index++) {
+            positions.remove(hashes[index], index); // Unless a later state of the same position took its place
+        }
+        history.subList(last + 1, history.size()).clear();
+        int kept = last / CHECKPOINT_INTERVAL + 1;
+        checkpoints.subList(Math.min(kept, checkpoints.size()), checkpoints.size()).clear();
+    }
+
+    /**
+     * Computes the delta between the base cells and the state, for the cells changed since the last state.
+     */
+    private long[] delta(PlayState state) {
+        long[] delta = new long[state.getChangedCount()];
+        int size = 0;
+        for (int i = 0; i < state.getChangedCount(); i++) {
+            int index = state.getChanged(i);
+            byte code = state.getCell(index);
+            short box = (short) state.getBoxNumber(index);
+            if (code != baseCells[index] || box != baseBoxes[index]) {
+                delta[size++] = pack(index, baseCells[index], code, baseBoxes[index], box);
+                baseCells[index] = code;
+                baseBoxes[index] = box;
+            }
+        }
+        return size == delta.length ? delta : Arrays.copyOf(delta, size);
+    }
+
+    // A change is packed as: index (24 bits), code before and after (5 bits each, the flags of CellState),
+    // box number before and after (15 bits each, up to MAX_BOX_NUMBER)
+    private static long pack(int index, byte before, byte after, short boxBefore, short boxAfter) {
+        return ((long) index << 40) | ((long) (before & 0x1F) << 35) | ((long) (after & 0x1F) << 30)
+                | ((long) (boxBefore & MAX_BOX_NUMBER) << 15) | (boxAfter & MAX_BOX_NUMBER);
+    }
+
+    private static int index(long change) {
+        return (int) (change >>> 40);
+    }
+
+    private static byte code(long change, boolean after) {
+        return (byte) ((change >>> (after ? 30 : 35)) & 0x1F);
+    }
+
+    private static short box(long change, boolean after) {
+        return (short) ((change >>> (after ? 0 : 15)) & MAX_BOX_NUMBER);
+    }
+
+    /**
+     * Applies the changes of a delta to the grid, forwards or backwards.
+     */
+    private void apply(Grid4Play grid, long[] delta, boolean after) {
+        for (long change : delta) {
+            int index = index(change);
+            byte code = code(change, after);
+            short box = box(change, after);
+            grid.restoreCell(index, code, box);
+            baseCells[index] = code;
+            baseBoxes[index] = box;
+        }
+        grid.getState().clearChanged();
+        grid.checkDeadlock();
+    }
+
+    /**
+     * Goes back to the previous state of the board, reverting only the cells changed by the last state.
+     * @param grid The play grid to update.
+     * @return True if a previous state was available, false otherwise.
+     */
+    public boolean undo(Grid4Play grid) {
+        if (!hasPreviousState()) {
+            return false;
         }
-        boardHistory.add(clonedBoard);
-        currentIndex = boardHistory.size() - 1; // The current index is updated to point to the newly added state.
+        apply(grid, history.get(currentIndex), false);
+        currentIndex--;
+        return true;
     }
 
     /**
-     * Retrieves the previous state of the board.
-     * @return The previous board state.
+     * Goes to the next state of the board, replaying only the cells changed by that state.
+     * @param grid The play grid to update.
+     * @return True if a next state was available, false otherwise.
      */
-    public Board getPreviousState() {
-        if (currentIndex >= 1) {
-            currentIndex--;
-            return boardHistory.get(currentIndex);
+    public boolean redo(Grid4Play grid) {
+        if (!hasNextState()) {
+            return false;
         }
-        return null; // Returns null if there is no previous state available
+        currentIndex++;
+        apply(grid, history.get(currentIndex), true);
+        return true;
     }
 
     /**
-     * Retrieves the next state of the board.
-     * @return The next board state.
+     * Rebuilds any state of the history on the grid, from the nearest checkpoint.
+     * @param grid The play grid to update.
+     * @param index The index of the state in the history.
      */
-    public Board getNextState() {
-        if (currentIndex < boardHistory.size() - 1) {
-            currentIndex++;
-            return boardHistory.get(currentIndex);
+    public void restore(Grid4Play grid, int index) {
+        if (index < 0 || index >= history.size()) {
+            throw new IndexOutOfBoundsException("No state " + index + " in the history.");
+        }
+        Checkpoint checkpoint = checkpoints.get(index / CHECKPOINT_INTERVAL);
+        for (int cell = 0; cell < checkpoint.cells.length; cell++) {
+            if (checkpoint.cells[cell] != baseCells[cell] || checkpoint.boxes[cell] != baseBoxes[cell]) {
+                grid.restoreCell(cell, checkpoint.cells[cell], checkpoint.boxes[cell]);
+                baseCells[cell] = checkpoint.cells[cell];
+                baseBoxes[cell] = checkpoint.boxes[cell];
+            }
         }
-        return null; // Returns null if there is no next state available
+        for (int i = index / CHECKPOINT_INTERVAL * CHECKPOINT_INTERVAL + 1; i <= index; i++) {
+            apply(grid, history.get(i), true);
+        }
+        grid.getState().clearChanged();
+        grid.checkDeadlock();
+        currentIndex = index;
     }
 
     /**
@@ -71,22 +278,97 @@ public class GridState {
      * @return True if a next state is available, false otherwise.
      */
     public boolean hasNextState() {
-        return currentIndex < boardHistory.size() - 1;
+        return currentIndex < history.size() - 1;
+    }
+
+    /**
+     * Checks if no state was recorded yet.
+     * @return True if the history is empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return history.isEmpty();
+    }
+
+    /**
+     * Gets the Zobrist hash of the current state.
+     * @return The hash of the current state, 0 if the history is empty.
+     */
+    public long getCurrentHash() {
+        return currentIndex < 0 ? 0 : hashes[currentIndex];
+    }
+
+    /**
+     * Gets the index of the current state in the history.
+     * @return The index of the current state, -1 if the history is empty.
+     */
+    public int getCurrentIndex() {
+        return currentIndex;
+    }
+
+    /**
+     * Gets the number of moves from the first state of the history to the current one: the length of
+     * the moves given by getMoves, loops collapsed, the states that do not come from a move not counted.
+     * @return The number of moves, 0 if the history is empty.
+     */
+    public int getMoveCount() {
+        return currentIndex < 0 ? 0 : moveCounts[currentIndex];
+    }
+
+    /**
+     * Finds the state of the history holding the position with the given hash.
+     * @param hash The Zobrist hash of the position.
+     * @return The index of the state in the history, -1 if the position was not recorded.
+     */
+    public int indexOf(long hash) {
+        Integer index = positions.get(hash);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Gets the moves from the first state of the history to the current one, in the LURD notation.
+     * @return The moves, empty if there is none, or null if a state on the way does not come from a move.
+     */
+    public String getMoves() {
+        StringBuilder lurd = new StringBuilder(getMoveCount());
+        for (int index = 1; index <= currentIndex; index++) {
+            if (moves[index] == NO_MOVE) {
+                return null;
+            }
+            lurd.append(moves[index]);
+        }
+        return lurd.toString();
+    }
+
+    /**
+     * Gets the number of states in the history.
+     * @return The size of the history.
+     */
+    public int size() {
+        return history.size();
     }
 
     /**
-     * Retrieves the list of board states in the history.
-     * @return The list of board states.
+     * Removes all the states from the history.
      */
-    public List<Board> getBoardHistory() {
-        return boardHistory;
+    public void clear() {
+        history.clear();
+        checkpoints.clear();
+        positions.clear();
+        baseCells = null;
+        baseBoxes = null;
+        currentIndex = -1;
     }
 
     /**
-     * Sets the current index in the history.
-     * @param currentIndex The index to set.
+     * Full copy of the cells and box numbers of a state of the history.
      */
-    public void setCurrentIndex(int currentIndex) {
-        this.currentIndex = currentIndex;
+    private static final class Checkpoint {
+        private final byte[] cells;
+        private final short[] boxes;
+
+        private Checkpoint(byte[] cells, short[] boxes) {
+            this.cells = cells;
+            this.boxes = boxes;
+        }
     }
 }
@@ -1,25 +1,26 @@
 package sokoban.model;
 
-import javafx.scene.image.Image;
-
 /**
  * The Ground class represents a ground element in the Sokoban game.
  * It inherits from the GameElement class.
  */
 public class Ground extends GameElement {
 
+    // Shared instance, a ground has no state
+    public static final Ground INSTANCE = new Ground();
+
     /**
      * Constructs a Ground object with the default image.
      */
     public Ground() {
-        image = new Image("ground.png"); // Set the image for the ground
+        super(ImageRegistry.GROUND); // Set the image for the ground
     }
 
     /**
      * Creates a copy of the Ground object.
-     * @return A new Ground object.
+     * @return The shared Ground object.
      */
     public Ground copy() {
-        return new Ground();
+        return INSTANCE;
     }
 }
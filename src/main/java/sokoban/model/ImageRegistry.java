@@ -0,0 +1,45 @@
+package sokoban.model;
+
+import javafx.scene.image.Image;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ImageRegistry class holds the images of the game elements.
+ * Each image is decoded once, the first time it is asked for, and then shared
+ * by all the elements and views, so creating or copying elements never loads an image.
+ */
+public final class ImageRegistry {
+    public static final String BOX = "box.png";
+    public static final String GOAL = "goal.png";
+    public static final String GROUND = "ground.png";
+    public static final String MUSHROOM = "mushroom.png";
+    public static final String PLAYER = "player.png";
+    public static final String WALL = "wall.png";
+
+    // Images already decoded, by resource name
+    private static final Map<String, Image> images = new ConcurrentHashMap<>();
+
+    private ImageRegistry() {
+    }
+
+    /**
+     * Gets the shared image of the given resource, decoding it on first access.
+     *
+     * @param name the name of the image resource.
+     * @return the image.
+     */
+    public static Image get(String name) {
+        return images.computeIfAbsent(name, Image::new);
+    }
+
+    /**
+     * Gets the number of images decoded so far.
+     *
+     * @return the number of images in the registry.
+     */
+    public static int size() {
+        return images.size();
+    }
+}
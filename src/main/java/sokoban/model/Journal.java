@@ -0,0 +1,431 @@
+package sokoban.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * The Journal class keeps an append-only record of the work in progress, so it can be restored after a crash
+ * or an exit without saving: the design edits, the start of a game and each move, undo and redo played.
+ * <p>
+ * The actions only copy their record into a buffer in memory. A background thread writes the records of the
+ * buffer and forces them to the disk, then takes all the records added meanwhile in the next write: under a
+ * burst of actions, many records share one write (group commit) and no action ever waits for the disk.
+ * <p>
+ * Each record is written as:
+ * <pre>
+ *  byte   type
+ *  int    length of the data
+ *  byte[] data
+ *  int    CRC32C of the type and the data
+ * </pre>
+ * The records after the first incomplete or damaged one, the end of a write interrupted by a crash, are ignored.
+ * <p>
+ * A full snapshot of the position starts the journal over (see design): the records before it are no longer
+ * needed, and the next write replaces the file atomically. The journal is compacted this way when it grows
+ * (see needsCompaction), and emptied once the work is saved.
+ */
+public final class Journal implements Closeable {
+    // Journal grows to this size before being compacted, or to twice the size of its last snapshot
+    public static final long COMPACT_BYTES = 256 << 10;
+
+    // Types of the records
+    private static final byte DESIGN = 1;    // Snapshot of the level being designed, starts the journal over
+    private static final byte CELL = 2;      // Code of a cell of the level being designed
+    private static final byte PLAY = 3;      // Start of a game: the position of the play grid
+    private static final byte MOVE = 4;      // Move of the player, with its LURD letter
+    private static final byte UNDO = 5;
+    private static final byte REDO = 6;
+    private static final byte POSITION = 7;  // Position and move count of a game, changed other than by a move
+    private static final byte END = 8;       // End of the game, back to the level being designed
+
+    private static final int OVERHEAD = 1 + Integer.BYTES + Integer.BYTES;
+
+    private final Path path;
+    private final Thread writer;
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer pending = ByteBuffer.allocate(8192);  // Records not written yet
+    private ByteBuffer writing = ByteBuffer.allocate(8192);  // Records being written by the background thread
+    private boolean restart;     // The pending records start the journal over, the file is replaced
+    private boolean busy;        // The background thread is writing
+    private boolean closed;
+    private long bytes;          // Size of the journal, once the pending records are written
+    private long snapshotBytes;  // Size of the snapshot starting the journal
+    private IOException failure; // Last error of the background thread, reported by flush
+
+    /**
+     * Opens a journal to add records after the ones of the file, if any.
+     *
+     * @param path The file of the journal.
+     * @throws IOException if the size of the file cannot be read.
+     */
+    public Journal(Path path) throws IOException {
+        this.path = path.toAbsolutePath();
+        bytes = Files.exists(this.path) ? Files.size(this.path) : 0;
+        writer = new Thread(this::writeLoop, "sokoban-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Gets the file of the journal of the application: the system property sokoban.journal,
+     * or .sokoban.journal in the home directory of the user.
+     *
+     * @return The file of the journal.
+     */
+    public static Path defaultPath() {
+        String path = System.getProperty("sokoban.journal");
+        return path != null ? Path.of(path) : Path.of(System.getProperty("user.home"), ".sokoban.journal");
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    // Records
+
+    /**
+     * Starts the journal over with the level being designed.
+     *
+     * @param state The position of the design grid.
+     */
+    public void design(PlayState state) {
+        ByteBuffer level = BinaryLevel.encode(state);
+        synchronized (this) {
+            pending.clear();
+            restart = true;
+            bytes = 0;
+            append(DESIGN, level);
+            snapshotBytes = bytes;
+        }
+    }
+
+    /**
+     * Records the new code of a cell of the level being designed.
+     *
+     * @param index The index of the cell.
+     * @param code  The CellState code of the cell.
+     */
+    public void cell(int index, byte code) {
+        append(CELL, ByteBuffer.allocate(Integer.BYTES + 1).putInt(index).put(code).flip());
+    }
+
+    /**
+     * Records the start of a game.
+     *
+     * @param state The position of the play grid, with the numbers of the boxes and goals and the mushroom.
+     */
+    public void play(PlayState state) {
+        append(PLAY, BinaryLevel.encode(state));
+    }
+
+    /**
+     * Records a move of the player.
+     *
+     * @param letter The LURD letter of the move, uppercase for a push.
+     */
+    public void move(char letter) {
+        append(MOVE, ByteBuffer.allocate(Character.BYTES).putChar(letter).flip());
+    }
+
+    public void undo() {
+        append(UNDO, ByteBuffer.allocate(0));
+    }
+
+    public void redo() {
+        append(REDO, ByteBuffer.allocate(0));
+    }
+
+    /**
+     * Records a position of the game reached other than by a move, such as the boxes shuffled by the mushroom.
+     *
+     * @param state     The position of the play grid.
+     * @param moveCount The move count of the game.
+     * @param history   true if the position was added to the history of the game.
+     */
+    public void position(PlayState state, long moveCount, boolean history) {
+        ByteBuffer level = BinaryLevel.encode(state);
+        ByteBuffer data = ByteBuffer.allocate(Long.BYTES + 1 + level.remaining());
+        append(POSITION, data.putLong(moveCount).put((byte) (history ? 1 : 0)).put(level).flip());
+    }
+
+    /**
+     * Records the end of the game, back to the level being designed before it.
+     */
+    public void end() {
+        append(END, ByteBuffer.allocate(0));
+    }
+
+    /**
+     * Empties the journal, when there is nothing left to restore.
+     */
+    public synchronized void clear() {
+        pending.clear();
+        restart = true;
+        bytes = 0;
+        snapshotBytes = 0;
+        notifyAll();
+    }
+
+    private synchronized void append(byte type, ByteBuffer data) {
+        if (closed) {
+            return;
+        }
+        int length = data.remaining();
+        if (pending.remaining() < OVERHEAD + length) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + OVERHEAD + length));
+            pending = larger.put(pending.flip());
+        }
+        crc.reset();
+        crc.update(type);
+        crc.update(data.duplicate());
+        pending.put(type).putInt(length).put(data).putInt((int) crc.getValue());
+        bytes += OVERHEAD + length;
+        notifyAll();
+    }
+
+    /**
+     * Checks if the journal is empty, so the next record should be a snapshot.
+     *
+     * @return true if the journal holds no record.
+     */
+    public synchronized boolean isEmpty() {
+        return bytes == 0;
+    }
+
+    /**
+     * Takes the records written since the last snapshot as part of it, once a compaction wrote the start
+     * of the game and its moves after the snapshot of the design: the journal is compacted again only
+     * when it doubled since then, not at each move of a long game.
+     */
+    public synchronized void markCompacted() {
+        snapshotBytes = bytes;
+    }
+
+    /**
+     * Checks if the journal grew enough to be started over with a snapshot of the position.
+     *
+     * @return true if the journal should be compacted.
+     */
+    public synchronized boolean needsCompaction() {
+        return bytes > Math.max(COMPACT_BYTES, 2 * snapshotBytes);
+    }
+
+    // Writing
+
+    private void writeLoop() {
+        FileChannel channel = null;
+        while (true) {
+            boolean replace;
+            synchronized (this) {
+                busy = false;
+                notifyAll();
+                while (pending.position() == 0 && !restart && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.position() == 0 && !restart) {
+                    break; // Closed with nothing left to write
+                }
+                ByteBuffer batch = pending;
+                pending = writing;
+                writing = batch;
+                replace = restart;
+                restart = false;
+                busy = true;
+            }
+            writing.flip();
+            try {
+                if (replace) {
+                    if (channel != null) {
+                        channel.close();
+                        channel = null;
+                    }
+                    if (writing.hasRemaining()) {
+                        LevelWriter.writeAtomically(path, writing);
+                    } else {
+                        Files.deleteIfExists(path);
+                    }
+                } else {
+                    if (channel == null) {
+                        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                                StandardOpenOption.APPEND);
+                    }
+                    while (writing.hasRemaining()) {
+                        channel.write(writing);
+                    }
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                }
+                if (channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException ignored) {
+                        // The error of the write is the one reported
+                    }
+                    channel = null;
+                }
+            }
+            writing.clear();
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until all the records added so far are on the disk.
+     *
+     * @throws IOException if a write failed since the last call.
+     */
+    public synchronized void flush() throws IOException {
+        try {
+            while ((pending.position() > 0 || restart || busy) && writer.isAlive()) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            IOException error = failure;
+            failure = null;
+            throw error;
+        }
+    }
+
+    /**
+     * Writes the records left and stops the background thread. Records added afterwards are ignored.
+     *
+     * @throws IOException if a write failed.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    // Reading
+
+    /**
+     * Receives the records of a journal, in order, to restore the work they describe.
+     */
+    public interface Handler {
+        void design(PlayState state);
+
+        void cell(int index, byte code);
+
+        void play(PlayState state);
+
+        void move(char letter);
+
+        void undo();
+
+        void redo();
+
+        void position(PlayState state, long moveCount, boolean history);
+
+        void end();
+    }
+
+    /**
+     * Checks if a journal holds something to restore.
+     *
+     * @param path The file of the journal.
+     * @return true if the file starts with a complete record.
+     */
+    public static boolean hasRecords(Path path) {
+        try {
+            return Files.size(path) > OVERHEAD;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the records of a journal, up to the first incomplete or damaged one.
+     *
+     * @param path    The file of the journal.
+     * @param handler The receiver of the records.
+     * @return The number of records read.
+     * @throws IOException if the file cannot be read.
+     */
+    public static int replay(Path path, Handler handler) throws IOException {
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+        CRC32C crc = new CRC32C();
+        int records = 0;
+        while (buffer.remaining() >= OVERHEAD) {
+            int start = buffer.position();
+            byte type = buffer.get();
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining() - Integer.BYTES) {
+                break;
+            }
+            ByteBuffer data = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            crc.reset();
+            crc.update(type);
+            crc.update(data.duplicate());
+            if (buffer.getInt() != (int) crc.getValue()) {
+                break;
+            }
+            try {
+                dispatch(type, data, handler);
+            } catch (IOException | BufferUnderflowException e) {
+                buffer.position(start);
+                break;
+            }
+            records++;
+        }
+        return records;
+    }
+
+    private static void dispatch(byte type, ByteBuffer data, Handler handler) throws IOException {
+        switch (type) {
+            case DESIGN -> handler.design(BinaryLevel.read(data));
+            case CELL -> handler.cell(data.getInt(), data.get());
+            case PLAY -> handler.play(BinaryLevel.read(data));
+            case MOVE -> handler.move(data.getChar());
+            case UNDO -> handler.undo();
+            case REDO -> handler.redo();
+            case POSITION -> {
+                long moveCount = data.getLong();
+                boolean history = data.get() != 0;
+                handler.position(BinaryLevel.read(data), moveCount, history);
+            }
+            case END -> handler.end();
+            default -> throw new IOException("Enregistrement inconnu : " + type);
+        }
+    }
+}
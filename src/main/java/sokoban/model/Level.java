@@ -0,0 +1,50 @@
+package sokoban.model;
+
+/**
+ * The Level class holds a level as read from a file: its dimensions and the CellState code of each cell.
+ * It does not change once read, and holds no JavaFX object.
+ */
+public final class Level {
+    private final int width;
+    private final int height;
+    private final byte[] cells; // CellState codes, line by line
+
+    Level(int width, int height, byte[] cells) {
+        this.width = width;
+        this.height = height;
+        this.cells = cells;
+    }
+
+    /**
+     * Gets the level of a position: its walls, goals, boxes and player.
+     *
+     * @param state The position.
+     * @return The level.
+     */
+    public static Level of(PlayState state) {
+        byte[] cells = new byte[state.size()];
+        for (int index = 0; index < cells.length; index++) {
+            cells[index] = (byte) (state.getCell(index) & ~CellState.MUSHROOM);
+        }
+        return new Level(state.getWidth(), state.getHeight(), cells);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the CellState code of a cell.
+     *
+     * @param line The row index.
+     * @param col  The column index.
+     * @return The code of the cell.
+     */
+    public byte getCell(int line, int col) {
+        return cells[line * width + col];
+    }
+}
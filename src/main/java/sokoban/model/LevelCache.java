@@ -0,0 +1,221 @@
+package sokoban.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * The LevelCache class keeps the levels read last, so opening the same level again only fills the grid
+ * from the cells already read (see Board.open) instead of reading the file again.
+ * <p>
+ * A level is found again by the path of its file and its index in a collection, and is used only if the
+ * date of last modification and the size of the file are still the ones it was read with: a file changed
+ * since it was read is read again and replaces it. Levels are immutable, so the same one can be loaded
+ * into any number of grids.
+ * <p>
+ * The cache is bounded by the memory of the cells it holds. When a new level goes over the bound,
+ * the levels used least recently are dropped first. The numbers of hits, misses and evictions are
+ * counted to check that the bound fits the way the levels are opened.
+ */
+public final class LevelCache {
+    // Bound of the shared cache: 4 MB, a few hundred levels of 100x100 or a single level of 2000x2000
+    public static final long DEFAULT_MAX_BYTES = 4L << 20;
+
+    // Estimated memory of a cached level besides its cells: the Level, its array, the key and the entry
+    private static final int ENTRY_BYTES = 160;
+
+    private static final LevelCache shared = new LevelCache(DEFAULT_MAX_BYTES);
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> levels = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructor of an empty cache.
+     *
+     * @param maxBytes The memory the levels of the cache can use, in bytes.
+     */
+    public LevelCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("The size of the cache must be positive.");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Gets the cache shared by the boards of the application.
+     *
+     * @return The shared cache.
+     */
+    public static LevelCache getShared() {
+        return shared;
+    }
+
+    /**
+     * Gets the level of a file, read in the form given by its extension (XSB, run-length encoded or binary).
+     *
+     * @param path The file of the level.
+     * @return The level, from the cache if the file did not change since it was read.
+     * @throws IOException if the file cannot be read.
+     * @throws LevelFormatException if the file contains an unknown symbol.
+     */
+    public Level get(Path path) throws IOException {
+        Path file = path.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        Key key = new Key(file, -1);
+        Level level = lookup(key, attributes);
+        if (level == null) {
+            level = BinaryLevel.isBinary(file.getFileName().toString())
+                    ? Level.of(BinaryLevel.read(file)) : LevelReader.read(file);
+            store(key, new Entry(level, attributes));
+        }
+        return level;
+    }
+
+    /**
+     * Gets a level of a collection.
+     *
+     * @param collection The collection.
+     * @param index      The index of the level in the collection.
+     * @return The level, from the cache if the file of the collection did not change since it was read.
+     * @throws IOException if the attributes of the file cannot be read.
+     * @throws LevelFormatException if the level contains an unknown symbol.
+     */
+    public Level get(LevelCollection collection, int index) throws IOException {
+        Path file = collection.getPath().toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        Key key = new Key(file, index);
+        Level level = lookup(key, attributes);
+        if (level == null) {
+            level = collection.getLevel(index);
+            store(key, new Entry(level, attributes));
+        }
+        return level;
+    }
+
+    // Gets the level of the key if the file did not change since it was read, null otherwise
+    private synchronized Level lookup(Key key, BasicFileAttributes attributes) {
+        Entry entry = levels.get(key);
+        if (entry == null || !entry.matches(attributes)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.level;
+    }
+
+    private synchronized void store(Key key, Entry entry) {
+        long weight = weight(entry.level);
+        Entry previous = weight > maxBytes ? levels.remove(key) : levels.put(key, entry);
+        bytes += (weight > maxBytes ? 0 : weight) - (previous == null ? 0 : weight(previous.level));
+        // A level larger than the whole cache is not kept, it would only drop the other levels
+        Iterator<Entry> eldest = levels.values().iterator();
+        while (bytes > maxBytes) {
+            bytes -= weight(eldest.next().level);
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private static long weight(Level level) {
+        return (long) level.getWidth() * level.getHeight() + ENTRY_BYTES;
+    }
+
+    /**
+     * Removes all the levels from the cache; the counters are kept.
+     */
+    public synchronized void clear() {
+        levels.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return levels.size();
+    }
+
+    /**
+     * Gets the estimated memory used by the levels of the cache.
+     *
+     * @return The memory in bytes.
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return levels.size() + " levels, " + bytes + "/" + maxBytes + " bytes, "
+                + hits + " hits, " + misses + " misses, " + evictions + " evictions";
+    }
+
+    /**
+     * Identifies a level: its file and its index in a collection (-1 for a single level).
+     */
+    private static final class Key {
+        private final Path path;
+        private final int index;
+
+        private Key(Path path, int index) {
+            this.path = path;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return index == key.index && path.equals(key.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * path.hashCode() + index;
+        }
+    }
+
+    /**
+     * A cached level, with the date of last modification and the size of its file when it was read.
+     */
+    private static final class Entry {
+        private final Level level;
+        private final long modified;
+        private final long size;
+
+        private Entry(Level level, BasicFileAttributes attributes) {
+            this.level = level;
+            this.modified = attributes.lastModifiedTime().toMillis();
+            this.size = attributes.size();
+        }
+
+        private boolean matches(BasicFileAttributes attributes) {
+            return modified == attributes.lastModifiedTime().toMillis() && size == attributes.size();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package sokoban.model;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The LevelCollection class gives access to the levels of a collection file (.txt or .sok), where the levels
+ * are separated by blank lines, titles and comments starting with ';'.
+ * <p>
+ * The file is memory-mapped and only the boundaries of the levels are indexed when it is opened, so a level is
+ * parsed only when it is asked for. The index is kept in a sidecar file (the name of the collection followed
+ * by .idx) and memory-mapped as well, so opening the collection again reads neither the collection nor the
+ * index on the heap. The sidecar is rebuilt when the size or the date of the collection change, and the index
+ * stays on the heap when the sidecar cannot be written.
+ */
+public final class LevelCollection {
+    private static final long MAGIC = 0x534F4B4F42414E31L; // "SOKOBAN1"
+    private static final int HEADER_LONGS = 4;             // Magic, size and date of the collection, count
+
+    private final Path path;
+    private final MappedByteBuffer content;
+    private final LongBuffer index; // Start and end offsets of each level, in the content
+
+    private LevelCollection(Path path, MappedByteBuffer content, LongBuffer index) {
+        this.path = path;
+        this.content = content;
+        this.index = index;
+    }
+
+    /**
+     * Checks if a file is a collection of levels, from its extension.
+     *
+     * @param path The file.
+     * @return true if the file is a .txt or .sok file, false otherwise.
+     */
+    public static boolean isCollection(Path path) {
+        String name = path.getFileName().toString().toLowerCase();
+        return name.endsWith(".txt") || name.endsWith(".sok");
+    }
+
+    /**
+     * Opens a collection, using or building its index.
+     *
+     * @param path The collection file.
+     * @return The collection.
+     * @throws IOException if the collection cannot be read.
+     */
+    public static LevelCollection open(Path path) throws IOException {
+        MappedByteBuffer content;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Collection trop grande : " + path);
+            }
+            content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        long size = Files.size(path);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        Path sidecar = sidecar(path);
+
+        LongBuffer index = readIndex(sidecar, size, modified);
+        if (index == null) {
+            long[] levels = scan(content);
+            try {
+                writeIndex(sidecar, size, modified, levels);
+                index = readIndex(sidecar, size, modified);
+            } catch (IOException e) {
+                index = null;
+            }
+            if (index == null) {
+                index = LongBuffer.wrap(levels);
+            }
+        }
+        return new LevelCollection(path, content, index);
+    }
+
+    /**
+     * Gets the path of the index of a collection.
+     *
+     * @param path The collection file.
+     * @return The sidecar file holding the index.
+     */
+    public static Path sidecar(Path path) {
+        return path.resolveSibling(path.getFileName() + ".idx");
+    }
+
+    /**
+     * Maps the index of the sidecar, if it matches the collection.
+     *
+     * @return The offsets of the levels, or null if the sidecar is missing, stale or incomplete.
+     */
+    private static LongBuffer readIndex(Path sidecar, long size, long modified) throws IOException {
+        if (!Files.isRegularFile(sidecar)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_LONGS * Long.BYTES) {
+                return null;
+            }
+            LongBuffer longs = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asLongBuffer();
+            long count = longs.get(3);
+            if (longs.get(0) != MAGIC || longs.get(1) != size || longs.get(2) != modified
+                    || longs.capacity() != HEADER_LONGS + 2 * count) {
+                return null;
+            }
+            return longs.position(HEADER_LONGS).slice();
+        }
+    }
+
+    private static void writeIndex(Path sidecar, long size, long modified, long[] levels) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((HEADER_LONGS + levels.length) * Long.BYTES);
+        buffer.putLong(MAGIC).putLong(size).putLong(modified).putLong(levels.length / 2);
+        buffer.asLongBuffer().put(levels);
+        buffer.rewind();
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Finds the levels of the content: the runs of lines made of XSB symbols, not only spaces,
+     * possibly run-length encoded.
+     *
+     * @return The start and end offsets of each level, the end being the end of its last line.
+     */
+    private static long[] scan(ByteBuffer content) {
+        long[] levels = new long[64];
+        int count = 0;
+        int levelStart = -1;
+        int levelEnd = -1;
+        int limit = content.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineEnd(content, lineStart, limit);
+            if (isBoardLine(content, lineStart, lineEnd)) {
+                if (levelStart < 0) {
+                    levelStart = lineStart;
+                }
+                levelEnd = lineEnd;
+            } else if (levelStart >= 0) {
+                if (count == levels.length) {
+                    levels = Arrays.copyOf(levels, count * 2);
+                }
+                levels[count++] = levelStart;
+                levels[count++] = levelEnd;
+                levelStart = -1;
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (levelStart >= 0) {
+            levels = Arrays.copyOf(levels, count + 2);
+            levels[count++] = levelStart;
+            levels[count++] = levelEnd;
+        }
+        return Arrays.copyOf(levels, count);
+    }
+
+    private static boolean isBoardLine(ByteBuffer content, int start, int end) {
+        boolean blank = true;
+        for (int i = start; i < end; i++) {
+            byte symbol = content.get(i);
+            if (symbol == '-' || symbol == '_' || CellState.fromSymbol((char) symbol) > 0) {
+                blank = false;
+            } else if (symbol != ' ' && symbol != '\r' && symbol != '|' && (symbol < '0' || symbol > '9')) {
+                return false;
+            }
+        }
+        return !blank;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the number of levels of the collection.
+     *
+     * @return The number of levels.
+     */
+    public int size() {
+        return index.capacity() / 2;
+    }
+
+    /**
+     * Gets the title of a level: the "Title:" line after it, as in the .sok format, or else the last comment
+     * or text line before it, or its number when it has none.
+     *
+     * @param level The index of the level, from 0.
+     * @return The title of the level.
+     */
+    public String getTitle(int level) {
+        int start = (int) index.get(2 * level);
+        int end = (int) index.get(2 * level + 1);
+        int nextStart = level + 1 < size() ? (int) index.get(2 * level + 2) : content.limit();
+        for (int lineStart = end + 1; lineStart < nextStart; ) {
+            int lineEnd = lineEnd(content, lineStart, nextStart);
+            String line = decode(lineStart, lineEnd).strip();
+            if (line.regionMatches(true, 0, "Title:", 0, 6)) {
+                return line.substring(6).strip();
+            }
+            lineStart = lineEnd + 1;
+        }
+
+        String title = null;
+        int previousEnd = level == 0 ? 0 : (int) index.get(2 * level - 1) + 1;
+        for (int lineStart = previousEnd; lineStart < start; ) {
+            int lineEnd = lineEnd(content, lineStart, start);
+            String line = decode(lineStart, lineEnd).strip();
+            if (line.startsWith(";")) {
+                line = line.substring(1).strip();
+            }
+            // Fields such as "Title:" or "Author:" describe the previous level
+            if (!line.isEmpty() && !line.matches("\\w+:.*")) {
+                title = line;
+            }
+            lineStart = lineEnd + 1;
+        }
+        return title != null ? title : "Level " + (level + 1);
+    }
+
+    private static int lineEnd(ByteBuffer content, int lineStart, int limit) {
+        int lineEnd = lineStart;
+        while (lineEnd < limit && content.get(lineEnd) != '\n') {
+            lineEnd++;
+        }
+        return lineEnd;
+    }
+
+    /**
+     * Parses a level of the collection.
+     *
+     * @param level The index of the level, from 0.
+     * @return The level.
+     * @throws LevelFormatException if the level cannot be parsed.
+     */
+    public Level getLevel(int level) {
+        String text = decode((int) index.get(2 * level), (int) index.get(2 * level + 1));
+        try {
+            return LevelReader.read(new StringReader(text));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String decode(int start, int end) {
+        return StandardCharsets.UTF_8.decode(content.slice(start, end - start)).toString();
+    }
+}
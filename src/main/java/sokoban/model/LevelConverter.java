@@ -0,0 +1,45 @@
+package sokoban.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The LevelConverter class converts level files between the XSB (.xsb), run-length encoded (.rle)
+ * and binary (.sokb) forms. Each file is written next to the original, with the extension of the target form.
+ * Only the binary form keeps the numbers of the boxes and goals and the mushroom of a game being played.
+ * <p>
+ * Usage: {@code java -cp target/classes sokoban.model.LevelConverter xsb|rle|sokb files...}
+ */
+public class LevelConverter {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || !args[0].matches("xsb|rle|sokb")) {
+            System.out.println("Usage: LevelConverter xsb|rle|sokb files...");
+            return;
+        }
+        for (int i = 1; i < args.length; i++) {
+            Path source = Path.of(args[i]);
+            String name = source.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            Path target = source.resolveSibling((dot < 0 ? name : name.substring(0, dot)) + "." + args[0]);
+            convert(source, target);
+            System.out.println(source + " (" + Files.size(source) + " bytes) -> "
+                    + target + " (" + Files.size(target) + " bytes)");
+        }
+    }
+
+    /**
+     * Converts a level file, the forms being given by the extensions of the files.
+     *
+     * @param source The file to read.
+     * @param target The file to write.
+     * @throws IOException if a file cannot be read or written.
+     */
+    public static void convert(Path source, Path target) throws IOException {
+        PlayState state = BinaryLevel.isBinary(source.toString())
+                ? BinaryLevel.read(source)
+                : PlayState.of(LevelReader.read(source));
+        LevelWriter.write(state, target);
+    }
+}
@@ -0,0 +1,45 @@
+package sokoban.model;
+
+/**
+ * The LevelFormatException is thrown when a level file cannot be read,
+ * with the position of the faulty character in the file, if any.
+ */
+public class LevelFormatException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+    private final int column;
+
+    /**
+     * Constructor of the exception.
+     *
+     * @param message The description of the error.
+     * @param line    The line of the error in the file, from 1.
+     * @param column  The column of the error in the line, from 1.
+     */
+    public LevelFormatException(String message, int line, int column) {
+        super(message + " (ligne " + line + ", colonne " + column + ")");
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * Constructor of the exception, for an error that is not at a position of the file,
+     * such as a file of an unknown format. The line and the column are then 0.
+     *
+     * @param message The description of the error.
+     */
+    public LevelFormatException(String message) {
+        super(message);
+        this.line = 0;
+        this.column = 0;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+}
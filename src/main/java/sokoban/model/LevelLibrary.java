@@ -0,0 +1,222 @@
+package sokoban.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The LevelLibrary class watches a directory of levels, such as the boards directory, for the levels edited
+ * outside of the game while it runs.
+ * <p>
+ * A background thread receives the changes of the directory from a WatchService. An editor usually saves
+ * a file in several steps, so a file is read again only once it has not changed for the debounce delay.
+ * It is then read through the LevelCache on the same thread, and the listener receives the new level;
+ * a file that did not really change, or that cannot be read yet, is skipped.
+ */
+public final class LevelLibrary implements Closeable {
+    // Time without change of a file before it is read again
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 200;
+
+    /**
+     * Receives the changes of the levels of the directory, on the thread of the library.
+     */
+    public interface Listener {
+        /**
+         * Called when a level was created or changed.
+         *
+         * @param path  The file of the level.
+         * @param level The new content of the level.
+         */
+        void levelChanged(Path path, Level level);
+
+        /**
+         * Called when a level was deleted.
+         *
+         * @param path The file of the level.
+         */
+        default void levelRemoved(Path path) {
+        }
+    }
+
+    private final Path directory;
+    private final long debounceMillis;
+    private final Listener listener;
+    private final WatchService watcher;
+    private final Thread thread;
+    private final Map<Path, Long> due = new HashMap<>();          // Files changed, with the time to read them
+    private final Map<Path, FileTime> modified = new HashMap<>(); // Last modification of each level notified
+    private final TreeSet<Path> levels = new TreeSet<>();
+
+    /**
+     * Starts watching a directory of levels.
+     *
+     * @param directory      The directory to watch.
+     * @param debounceMillis The time without change of a file before it is read again.
+     * @param listener       The receiver of the changes.
+     * @throws IOException if the directory cannot be watched.
+     */
+    public LevelLibrary(Path directory, long debounceMillis, Listener listener) throws IOException {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.debounceMillis = debounceMillis;
+        this.listener = listener;
+        watcher = FileSystems.getDefault().newWatchService();
+        this.directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        scan(false);
+        thread = new Thread(this::watch, "sokoban-library");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Gets the directory of levels of the application: the system property sokoban.boards, or boards.
+     *
+     * @return The directory of levels.
+     */
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("sokoban.boards", "boards"));
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets the level files of the directory.
+     *
+     * @return The files, sorted by name.
+     */
+    public synchronized List<Path> getLevels() {
+        return new ArrayList<>(levels);
+    }
+
+    private static boolean isLevel(Path path) {
+        String name = path.getFileName().toString();
+        return name.endsWith(".xsb") || RleWriter.isRle(name) || BinaryLevel.isBinary(name);
+    }
+
+    // Lists the levels of the directory; after a lost event, the ones that changed are read again
+    private void scan(boolean changed) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, LevelLibrary::isLevel)) {
+            long now = System.nanoTime();
+            for (Path file : files) {
+                synchronized (this) {
+                    levels.add(file);
+                }
+                FileTime time = Files.getLastModifiedTime(file);
+                if (!changed) {
+                    modified.put(file, time);
+                } else if (!time.equals(modified.get(file))) {
+                    due.put(file, now);
+                }
+            }
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = due.isEmpty() ? watcher.take() : watcher.poll(nextDelay(), TimeUnit.NANOSECONDS);
+                if (key != null) {
+                    collect(key);
+                }
+                readDue();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // The library was closed
+        }
+    }
+
+    // Notes the files changed by the events of a key, to read them after the debounce delay
+    private void collect(WatchKey key) {
+        long readAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                try {
+                    scan(true);
+                } catch (IOException e) {
+                    System.err.println("Dossier des niveaux illisible : " + e.getMessage());
+                }
+                continue;
+            }
+            Path file = directory.resolve((Path) event.context());
+            if (!isLevel(file)) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                due.remove(file);
+                modified.remove(file);
+                synchronized (this) {
+                    levels.remove(file);
+                }
+                listener.levelRemoved(file);
+            } else {
+                due.put(file, readAt); // Each new event of the file pushes its reading back
+            }
+        }
+        key.reset();
+    }
+
+    private long nextDelay() {
+        long next = Long.MAX_VALUE;
+        for (long time : due.values()) {
+            next = Math.min(next, time);
+        }
+        return Math.max(0, next - System.nanoTime());
+    }
+
+    // Reads the files that did not change for the debounce delay
+    private void readDue() {
+        long now = System.nanoTime();
+        for (Iterator<Map.Entry<Path, Long>> files = due.entrySet().iterator(); files.hasNext(); ) {
+            Map.Entry<Path, Long> entry = files.next();
+            if (entry.getValue() - now > 0) {
+                continue;
+            }
+            files.remove();
+            Path file = entry.getKey();
+            try {
+                FileTime time = Files.getLastModifiedTime(file);
+                if (time.equals(modified.get(file))) {
+                    continue; // Already read, only a duplicate event
+                }
+                Level level = LevelCache.getShared().get(file);
+                modified.put(file, time);
+                synchronized (this) {
+                    levels.add(file);
+                }
+                listener.levelChanged(file, level);
+            } catch (IOException | LevelFormatException e) {
+                // Deleted or still being written: the next change of the file will be read
+                System.err.println("Niveau illisible " + file.getFileName() + " : " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops watching the directory.
+     *
+     * @throws IOException if the WatchService cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+        thread.interrupt();
+    }
+}
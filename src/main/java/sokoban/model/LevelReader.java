@@ -0,0 +1,151 @@
+package sokoban.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The LevelReader class reads a level in the XSB format in a single pass over the file.
+ * <p>
+ * The characters are decoded in blocks and converted at once to CellState codes, appended to a growing
+ * buffer with the length of each line, so no string or game element is created per line or per cell.
+ * Empty lines are ignored and shorter lines are padded with ground, as the width of the level is the
+ * length of its longest line.
+ * <p>
+ * The run-length encoded form is read as well, with no option: a count before a symbol repeats it
+ * ({@code 3#} for {@code ###}) and '|' separates the lines, as neither digits nor '|' appear in plain XSB.
+ * The runs are expanded directly into the buffer of codes. See RleWriter for the encoding.
+ */
+public final class LevelReader {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_RUN = 1 << 16; // Longest run accepted in the RLE form
+
+    private LevelReader() {
+    }
+
+    /**
+     * Reads a level file.
+     *
+     * @param path The file to read.
+     * @return The level.
+     * @throws LevelFormatException if the file contains an unknown symbol or no cell.
+     * @throws IOException          if the file cannot be read.
+     */
+    public static Level read(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Reads a level from characters in the XSB format.
+     *
+     * @param reader The characters of the level, not closed by this method.
+     * @return The level.
+     * @throws LevelFormatException if the characters contain an unknown symbol or no cell.
+     * @throws IOException          if the characters cannot be read.
+     */
+    public static Level read(Reader reader) throws IOException {
+        Parser parser = new Parser();
+        char[] chars = new char[BUFFER_SIZE];
+        int count;
+        while ((count = reader.read(chars)) != -1) {
+            for (int i = 0; i < count; i++) {
+                parser.accept(chars[i]);
+            }
+        }
+        return parser.finish();
+    }
+
+    private static int toCode(char symbol) {
+        if (symbol == '-' || symbol == '_') {
+            return CellState.EMPTY; // Alternative ground symbols of the XSB format
+        }
+        return CellState.fromSymbol(symbol);
+    }
+
+    /**
+     * Converts the characters one by one to the codes of the cells, expanding the runs of the RLE form
+     * as they come.
+     */
+    private static final class Parser {
+        private byte[] codes = new byte[BUFFER_SIZE];
+        private int[] lineLengths = new int[64];
+        private int size;
+        private int lines;
+        private int width;
+        private int lineStart;        // Index in codes of the first cell of the current line
+        private int run;              // Pending RLE count, 0 if none
+        private int fileLine = 1;     // Position in the file, for the errors
+        private int fileColumn;
+        private boolean afterReturn;
+
+        void accept(char symbol) {
+            if (symbol == '\n' && afterReturn) {
+                afterReturn = false;
+                return; // Second character of a \r\n end of line
+            }
+            afterReturn = symbol == '\r';
+            if (symbol == '\n' || symbol == '\r') {
+                endLine();
+                fileLine++;
+                fileColumn = 0;
+                return;
+            }
+            fileColumn++;
+            if (symbol >= '0' && symbol <= '9') {
+                run = run * 10 + symbol - '0';
+                if (run > MAX_RUN) {
+                    throw new LevelFormatException("Répétition trop longue", fileLine, fileColumn);
+                }
+            } else if (symbol == '|') {
+                endLine();
+            } else {
+                int code = toCode(symbol);
+                if (code < 0) {
+                    throw new LevelFormatException("Symbole inconnu '" + symbol + "'", fileLine, fileColumn);
+                }
+                int repeat = Math.max(run, 1);
+                if (size + repeat > codes.length) {
+                    codes = Arrays.copyOf(codes, Math.max(codes.length * 2, size + repeat));
+                }
+                Arrays.fill(codes, size, size + repeat, (byte) code);
+                size += repeat;
+                run = 0;
+            }
+        }
+
+        private void endLine() {
+            if (run != 0) {
+                throw new LevelFormatException("Répétition sans symbole", fileLine, fileColumn);
+            }
+            int length = size - lineStart;
+            if (length > 0) {
+                if (lines == lineLengths.length) {
+                    lineLengths = Arrays.copyOf(lineLengths, lines * 2);
+                }
+                lineLengths[lines++] = length;
+                width = Math.max(width, length);
+                lineStart = size;
+            }
+        }
+
+        Level finish() {
+            endLine();
+            if (lines == 0) {
+                throw new LevelFormatException("Le niveau est vide", fileLine, fileColumn + 1);
+            }
+            // Lay the lines out on a rectangle, the missing cells being ground
+            byte[] cells = new byte[width * lines];
+            int from = 0;
+            for (int line = 0; line < lines; line++) {
+                System.arraycopy(codes, from, cells, line * width, lineLengths[line]);
+                from += lineLengths[line];
+            }
+            return new Level(width, lines, cells);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package sokoban.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The LevelRules class checks a level without any view: the rules of Board.configureBindings, that
+ * decide if a level can be played (one player, at least one box and one goal, as many boxes as goals),
+ * and that the level is playable as drawn: closed by walls around the player, and every box in the
+ * area the player can walk to.
+ * <p>
+ * The area of the player is found by a single flood fill through the cells that are not walls,
+ * so a check takes a few microseconds on the levels of the boards directory.
+ */
+public final class LevelRules {
+
+    /**
+     * The rules a level can break.
+     */
+    public enum Violation {
+        PLAYER_COUNT,       // There is no player, or more than one
+        NO_BOX,             // There is no box
+        NO_GOAL,            // There is no goal
+        BOX_GOAL_MISMATCH,  // The numbers of boxes and goals differ
+        NOT_CLOSED,         // The player can walk out of the level, to its border
+        UNREACHABLE_BOX     // A box is outside the area of the player
+    }
+
+    private final int players;
+    private final int boxes;
+    private final int goals;
+    private final Set<Violation> violations;
+
+    private LevelRules(int players, int boxes, int goals, Set<Violation> violations) {
+        this.players = players;
+        this.boxes = boxes;
+        this.goals = goals;
+        this.violations = violations;
+    }
+
+    /**
+     * Checks a level.
+     *
+     * @param state The position of the level.
+     * @return The counts of the level and the rules it breaks.
+     */
+    public static LevelRules check(PlayState state) {
+        int players = 0;
+        int boxes = 0;
+        int goals = 0;
+        for (int index = 0; index < state.size(); index++) {
+            byte code = state.getCell(index);
+            if (CellState.has(code, CellState.PLAYER)) {
+                players++;
+            }
+            if (CellState.has(code, CellState.BOX)) {
+                boxes++;
+            }
+            if (CellState.has(code, CellState.GOAL)) {
+                goals++;
+            }
+        }
+        Set<Violation> violations = EnumSet.noneOf(Violation.class);
+        if (players != 1) {
+            violations.add(Violation.PLAYER_COUNT);
+        }
+        if (boxes == 0) {
+            violations.add(Violation.NO_BOX);
+        }
+        if (goals == 0) {
+            violations.add(Violation.NO_GOAL);
+        }
+        if (boxes != goals) {
+            violations.add(Violation.BOX_GOAL_MISMATCH);
+        }
+        if (players == 1) {
+            checkArea(state, boxes, violations);
+        }
+        return new LevelRules(players, boxes, goals, violations);
+    }
+
+    /**
+     * Checks a level as read from a file.
+     *
+     * @param level The level.
+     * @return The counts of the level and the rules it breaks.
+     */
+    public static LevelRules check(Level level) {
+        return check(PlayState.of(level));
+    }
+
+    // Walks from the player through the cells that are not walls, boxes included
+    private static void checkArea(PlayState state, int boxes, Set<Violation> violations) {
+        int width = state.getWidth();
+        int height = state.getHeight();
+        long[] visited = new long[(state.size() + 63) / 64];
+        int[] queue = new int[state.size()];
+        int head = 0;
+        int tail = 0;
+        int start = state.getPlayer();
+        queue[tail++] = start;
+        visited[start >>> 6] |= 1L << start;
+        boolean closed = true;
+        int reached = 0;
+        while (head < tail) {
+            int index = queue[head++];
+            if (CellState.has(state.getCell(index), CellState.BOX)) {
+                reached++;
+            }
+            int line = index / width;
+            int col = index % width;
+            if (line == 0 || col == 0 || line == height - 1 || col == width - 1) {
+                closed = false; // A step further leaves the grid
+            }
+            for (Direction direction : Direction.values()) {
+                int nextLine = line + direction.getDeltaRow();
+                int nextCol = col + direction.getDeltaCol();
+                if (nextLine < 0 || nextLine >= height || nextCol < 0 || nextCol >= width) {
+                    continue;
+                }
+                int next = nextLine * width + nextCol;
+                if ((visited[next >>> 6] & (1L << next)) == 0 && !CellState.has(state.getCell(next), CellState.WALL)) {
+                    visited[next >>> 6] |= 1L << next;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        if (!closed) {
+            violations.add(Violation.NOT_CLOSED);
+        }
+        if (reached < boxes) {
+            violations.add(Violation.UNREACHABLE_BOX);
+        }
+    }
+
+    public int getPlayers() {
+        return players;
+    }
+
+    public int getBoxes() {
+        return boxes;
+    }
+
+    public int getGoals() {
+        return goals;
+    }
+
+    /**
+     * Gets the rules broken by the level.
+     *
+     * @return The violations, empty if the level is valid.
+     */
+    public Set<Violation> getViolations() {
+        return violations;
+    }
+
+    public boolean isValid() {
+        return violations.isEmpty();
+    }
+}
@@ -0,0 +1,111 @@
+package sokoban.model;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The LevelWriter class writes a position to a file, in the form given by the extension of the file:
+ * binary (.sokb, see BinaryLevel), run-length encoded (.rle, see RleWriter) or XSB otherwise.
+ * <p>
+ * The whole content is encoded in one buffer, written to a temporary file of the same directory, forced
+ * to the disk and then renamed over the target in one atomic step, so a crash during a save leaves either
+ * the old file or the new one, never a truncated file.
+ */
+public final class LevelWriter {
+
+    private LevelWriter() {
+    }
+
+    /**
+     * Writes a position to a file, replacing it atomically.
+     *
+     * @param state The position to write.
+     * @param path  The file to write.
+     * @throws IOException if the file cannot be written; the previous file is then left as it was.
+     */
+    public static void write(PlayState state, Path path) throws IOException {
+        writeAtomically(path, encode(state, path.getFileName().toString()));
+    }
+
+    /**
+     * Encodes a position in the form given by a file name.
+     *
+     * @param state The position to encode.
+     * @param name  The name of the file.
+     * @return The bytes of the file.
+     */
+    public static ByteBuffer encode(PlayState state, String name) {
+        if (BinaryLevel.isBinary(name)) {
+            return BinaryLevel.encode(state);
+        }
+        if (RleWriter.isRle(name)) {
+            return encodeRle(state);
+        }
+        String separator = System.lineSeparator();
+        StringBuilder text = new StringBuilder((state.getWidth() + separator.length()) * state.getHeight());
+        for (int line = 0; line < state.getHeight(); line++) {
+            for (int col = 0; col < state.getWidth(); col++) {
+                text.append(CellState.toSymbol(state.getCell(state.index(line, col))));
+            }
+            text.append(separator);
+        }
+        return StandardCharsets.UTF_8.encode(text.toString());
+    }
+
+    /**
+     * Encodes a position in the run-length encoded form, the symbols of the cells going straight
+     * to the RleWriter: only the encoded text is built, never the XSB text.
+     */
+    private static ByteBuffer encodeRle(PlayState state) {
+        StringWriter encoded = new StringWriter(state.size() / 4 + 16);
+        try (RleWriter writer = new RleWriter(encoded)) {
+            for (int line = 0; line < state.getHeight(); line++) {
+                for (int col = 0; col < state.getWidth(); col++) {
+                    writer.write(CellState.toSymbol(state.getCell(state.index(line, col))));
+                }
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Not thrown by a StringWriter
+        }
+        return StandardCharsets.UTF_8.encode(encoded.toString());
+    }
+
+    /**
+     * Replaces the content of a file in one atomic step, through a temporary file forced to the disk.
+     *
+     * @param path    The file to write.
+     * @param content The new content of the file.
+     * @throws IOException if the file cannot be written; the previous file is then left as it was.
+     */
+    public static void writeAtomically(Path path, ByteBuffer content) throws IOException {
+        Path target = path.toAbsolutePath();
+        // Saves run one at a time (see GridViewModel), so a fixed name is enough; created with the usual rights
+        Path temp = target.resolveSibling("." + target.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
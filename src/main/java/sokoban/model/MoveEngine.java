@@ -0,0 +1,75 @@
+package sokoban.model;
+
+/**
+ * The MoveEngine class holds the movement rules of the Sokoban game.
+ * It works only on a PlayState and has no JavaFX dependency, so the same rules are used by
+ * the play grid and by headless tools. A move is a handful of array accesses and allocates
+ * nothing; the target is at least ten million moves per second on the levels of the boards directory.
+ * The Zobrist hash of the state is updated with the keys of the squares that changed.
+ */
+public final class MoveEngine {
+
+    private MoveEngine() {
+    }
+
+    /**
+     * Applies a move of the player in the given direction.
+     * The player cannot enter a wall or leave the grid, and can push a single box
+     * onto a cell holding only ground or a goal.
+     *
+     * @param state     the state to update.
+     * @param direction the direction of the move.
+     * @return the outcome of the move.
+     */
+    public static MoveResult apply(PlayState state, Direction direction) {
+        int from = state.player;
+        if (from < 0) {
+            return MoveResult.BLOCKED;
+        }
+        int width = state.getWidth();
+        int line = from / width + direction.getDeltaRow();
+        int col = from % width + direction.getDeltaCol();
+        if (!isValidPosition(state, line, col)) {
+            return MoveResult.BLOCKED;
+        }
+
+        byte[] cells = state.cells;
+        int to = line * width + col;
+        if (CellState.has(cells[to], CellState.WALL)) {
+            return MoveResult.BLOCKED;
+        }
+
+        MoveResult result = MoveResult.MOVED;
+        if (CellState.has(cells[to], CellState.BOX)) {
+            int nextLine = line + direction.getDeltaRow();
+            int nextCol = col + direction.getDeltaCol();
+            if (!isValidPosition(state, nextLine, nextCol)) {
+                return MoveResult.BLOCKED;
+            }
+            int next = nextLine * width + nextCol;
+            if (!CellState.acceptsBox(cells[next])) {
+                return MoveResult.BLOCKED;
+            }
+            int number = state.boxNumbers[to];
+            cells[to] &= ~CellState.BOX;
+            cells[next] |= CellState.BOX;
+            state.boxNumbers[next] = (short) number;
+            state.boxNumbers[to] = 0;
+            state.hash ^= Zobrist.box(to, number) ^ Zobrist.box(next, number);
+            state.markChanged(next);
+            result = MoveResult.PUSHED;
+        }
+
+        cells[from] &= ~CellState.PLAYER;
+        cells[to] |= CellState.PLAYER;
+        state.player = to;
+        state.hash ^= Zobrist.player(from) ^ Zobrist.player(to);
+        state.markChanged(from);
+        state.markChanged(to);
+        return result;
+    }
+
+    private static boolean isValidPosition(PlayState state, int line, int col) {
+        return line >= 0 && line < state.getHeight() && col >= 0 && col < state.getWidth();
+    }
+}
@@ -0,0 +1,19 @@
+package sokoban.model;
+
+/**
+ * The MoveResult enum represents the outcome of applying a move with the MoveEngine.
+ */
+public enum MoveResult {
+    BLOCKED, // The player could not move, the state is unchanged.
+    MOVED,   // The player moved to an adjacent cell.
+    PUSHED;  // The player moved and pushed a box one cell further.
+
+    /**
+     * Checks if the state was changed by the move.
+     *
+     * @return true if the player moved, false otherwise.
+     */
+    public boolean isMove() {
+        return this != BLOCKED;
+    }
+}
@@ -0,0 +1,458 @@
+package sokoban.model;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The PlayState class holds the complete position of a game being played, without any JavaFX object:
+ * the packed code of every cell (see CellState), the numbers of the boxes and goals,
+ * the player position and the mushroom. It is the state the MoveEngine works on,
+ * so the rules can run in batch tools as well as behind the play grid.
+ */
+public class PlayState {
+    private final int width;
+    private final int height;
+
+    // Packed content of the cells and numbers of the boxes and goals, indexed by row * width + col
+    final byte[] cells;
+    final short[] boxNumbers;
+    final short[] goalNumbers;
+
+    // Index of the player cell, -1 if there is no player
+    int player = -1;
+
+    // Index and visibility of the magic mushroom
+    int mushroom = -1;
+    boolean mushroomVisible;
+
+    // Zobrist hash of the player and box squares, see Zobrist
+    long hash;
+
+    // Cells changed since the last call to clearChanged, without duplicates
+    private final ChangedCells changed;
+
+    /**
+     * Constructs an empty state (only ground) with the given dimensions.
+     *
+     * @param width  The width of the grid.
+     * @param height The height of the grid.
+     */
+    public PlayState(int width, int height) {
+        this.width = width;
+        this.height = height;
+        cells = new byte[width * height];
+        boxNumbers = new short[width * height];
+        goalNumbers = new short[width * height];
+        changed = new ChangedCells(width * height);
+    }
+
+    /**
+     * Builds a state from the lines of an XSB level. Empty lines are ignored,
+     * shorter lines are padded with ground.
+     *
+     * @param lines The lines of the level.
+     * @return The state of the level.
+     * @throws IllegalArgumentException if a line contains an unknown symbol.
+     */
+    public static PlayState parse(List<String> lines) {
+        int width = 0;
+        int height = 0;
+        for (String line : lines) {
+            if (!line.isEmpty()) {
+                width = Math.max(width, line.length());
+                height++;
+            }
+        }
+
+        PlayState state = new PlayState(width, height);
+        int row = 0;
+        for (String line : lines) {
+            if (!line.isEmpty()) {
+                for (int col = 0; col < line.length(); col++) {
+                    int code = CellState.fromSymbol(line.charAt(col));
+                    if (code < 0) {
+                        throw new IllegalArgumentException("Symbole inconnu '" + line.charAt(col) + "'");
+                    }
+                    state.cells[row * width + col] = (byte) code;
+                }
+                row++;
+            }
+        }
+        state.locate();
+        return state;
+    }
+
+    /**
+     * Builds the state of a level, with no number on the boxes and goals.
+     *
+     * @param level The level.
+     * @return The state of the level.
+     */
+    public static PlayState of(Level level) {
+        PlayState state = new PlayState(level.getWidth(), level.getHeight());
+        for (int line = 0; line < state.height; line++) {
+            for (int col = 0; col < state.width; col++) {
+                state.cells[line * state.width + col] = level.getCell(line, col);
+            }
+        }
+        state.locate();
+        return state;
+    }
+
+    /**
+     * Replaces the whole position with another of the same dimensions.
+     *
+     * @param other The position to copy.
+     */
+    void load(PlayState other) {
+        if (other.width != width || other.height != height) {
+            throw new IllegalArgumentException("Grid dimensions do not match.");
+        }
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+        System.arraycopy(other.boxNumbers, 0, boxNumbers, 0, cells.length);
+        System.arraycopy(other.goalNumbers, 0, goalNumbers, 0, cells.length);
+        player = other.player;
+        mushroom = other.mushroom;
+        mushroomVisible = other.mushroomVisible;
+        hash = other.hash;
+        markAllChanged();
+    }
+
+    // Getters for dimensions and cells
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int size() { return cells.length; }
+
+    public int index(int line, int col) {
+        return line * width + col;
+    }
+
+    public byte getCell(int index) {
+        return cells[index];
+    }
+
+    public int getBoxNumber(int index) {
+        return boxNumbers[index];
+    }
+
+    public int getGoalNumber(int index) {
+        return goalNumbers[index];
+    }
+
+    /**
+     * Gets the index of the player cell.
+     *
+     * @return The index of the player, -1 if there is no player.
+     */
+    public int getPlayer() {
+        return player;
+    }
+
+    public int getMushroom() {
+        return mushroom;
+    }
+
+    /**
+     * Gets the Zobrist hash of the position: the player square and the squares and numbers of the boxes.
+     * Two states with the same hash hold the same position, except for a very unlikely collision.
+     *
+     * @return The hash of the position.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Replaces the code of a cell. The box number is cleared when the cell no longer holds a box.
+     *
+     * @param index The index of the cell.
+     * @param code  The new code of the cell.
+     */
+    public void setCell(int index, byte code) {
+        byte old = cells[index];
+        hash ^= Zobrist.key(old, index, boxNumbers[index]);
+        cells[index] = code;
+        markChanged(index);
+        if (!CellState.has(code, CellState.BOX)) {
+            boxNumbers[index] = 0;
+        }
+        hash ^= Zobrist.key(code, index, boxNumbers[index]);
+        if (CellState.has(code, CellState.PLAYER)) {
+            player = index;
+        } else if (CellState.has(old, CellState.PLAYER) && player == index) {
+            player = -1;
+        }
+        if (CellState.has(code, CellState.MUSHROOM)) {
+            mushroom = index;
+        } else if (CellState.has(old, CellState.MUSHROOM) && mushroom == index) {
+            mushroom = -1;
+        }
+    }
+
+    /**
+     * Sets the numbers of the box and of the goal of a cell.
+     *
+     * @param index      The index of the cell.
+     * @param boxNumber  The number of the box, 0 if none.
+     * @param goalNumber The number of the goal, 0 if none.
+     */
+    public void setNumbers(int index, int boxNumber, int goalNumber) {
+        hash ^= Zobrist.key(cells[index], index, boxNumbers[index]);
+        boxNumbers[index] = (short) boxNumber;
+        hash ^= Zobrist.key(cells[index], index, boxNumbers[index]);
+        goalNumbers[index] = (short) goalNumber;
+        markChanged(index);
+    }
+
+    /**
+     * Remembers that a cell changed. Each cell is listed once until the next call to clearChanged.
+     *
+     * @param index The index of the cell.
+     */
+    void markChanged(int index) {
+        changed.add(index);
+    }
+
+    void markAllChanged() {
+        for (int index = 0; index < cells.length; index++) {
+            markChanged(index);
+        }
+    }
+
+    /**
+     * Gets the number of cells changed since the last call to clearChanged.
+     *
+     * @return The number of changed cells.
+     */
+    public int getChangedCount() {
+        return changed.size();
+    }
+
+    /**
+     * Gets the index of a changed cell.
+     *
+     * @param i The position in the list of changed cells, between 0 and getChangedCount() - 1.
+     * @return The index of the cell.
+     */
+    public int getChanged(int i) {
+        return changed.get(i);
+    }
+
+    /**
+     * Forgets the list of changed cells.
+     */
+    public void clearChanged() {
+        changed.clear();
+    }
+
+    /**
+     * Looks up the player and the mushroom and computes the hash again, after the cells were written directly.
+     */
+    void locate() {
+        player = -1;
+        mushroom = -1;
+        for (int index = 0; index < cells.length; index++) {
+            if (CellState.has(cells[index], CellState.PLAYER)) {
+                player = index;
+            }
+            if (CellState.has(cells[index], CellState.MUSHROOM)) {
+                mushroom = index;
+            }
+        }
+        hash = Zobrist.hash(this);
+    }
+
+    /**
+     * Checks if a box stands on the goal with the same number at the given index.
+     *
+     * @param index The index of the cell.
+     * @return true if the box is on its target, false otherwise.
+     */
+    public boolean isBoxInTarget(int index) {
+        byte code = cells[index];
+        return CellState.has(code, CellState.BOX) && CellState.has(code, CellState.GOAL)
+                && boxNumbers[index] == goalNumbers[index];
+    }
+
+    /**
+     * Checks if every goal holds its box.
+     *
+     * @return true if the level is solved, false otherwise.
+     */
+    public boolean isSolved() {
+        for (int index = 0; index < cells.length; index++) {
+            if (CellState.has(cells[index], CellState.GOAL) && !isBoxInTarget(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates an independent copy of this state.
+     *
+     * @return The copy.
+     */
+    public PlayState copy() {
+        PlayState copy = new PlayState(width, height);
+        System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+        System.arraycopy(boxNumbers, 0, copy.boxNumbers, 0, cells.length);
+        System.arraycopy(goalNumbers, 0, copy.goalNumbers, 0, cells.length);
+        copy.player = player;
+        copy.mushroom = mushroom;
+        copy.mushroomVisible = mushroomVisible;
+        copy.hash = hash;
+        return copy;
+    }
+
+    // Numbering of boxes and goals
+
+    /**
+     * Numbers all the boxes sequentially, in reading order, starting from 1.
+     */
+    public void numberBoxes() {
+        short number = 0;
+        for (int index = 0; index < cells.length; index++) {
+            if (CellState.has(cells[index], CellState.BOX)) {
+                boxNumbers[index] = ++number;
+                markChanged(index);
+            }
+        }
+        hash = Zobrist.hash(this);
+    }
+
+    /**
+     * Numbers all the goals sequentially, in reading order, starting from 1.
+     */
+    public void numberGoals() {
+        short number = 0;
+        for (int index = 0; index < cells.length; index++) {
+            if (CellState.has(cells[index], CellState.GOAL)) {
+                goalNumbers[index] = ++number;
+                markChanged(index);
+            }
+        }
+    }
+
+    /**
+     * Gives the goals a random permutation of the numbers 1 to the number of goals.
+     *
+     * @param random The random generator to use.
+     */
+    public void shuffleGoalNumbers(Random random) {
+        short[] numbers = new short[goalTotal()];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = (short) (i + 1);
+        }
+        for (int i = numbers.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            short tmp = numbers[i];
+            numbers[i] = numbers[j];
+            numbers[j] = tmp;
+        }
+        int next = 0;
+        for (int index = 0; index < cells.length; index++) {
+            if (CellState.has(cells[index], CellState.GOAL)) {
+                goalNumbers[index] = numbers[next++];
+                markChanged(index);
+            }
+        }
+    }
+
+    /**
+     * Counts the goals of the grid.
+     *
+     * @return The number of goals.
+     */
+    public int goalTotal() {
+        int count = 0;
+        for (byte code : cells) {
+            if (CellState.has(code, CellState.GOAL)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Mushroom feature
+
+    /**
+     * Moves the mushroom to a random cell of plain ground and hides it.
+     *
+     * @param random The random generator to use.
+     */
+    public void placeMushroom(Random random) {
+        if (mushroom >= 0) {
+            cells[mushroom] &= ~CellState.MUSHROOM;
+            markChanged(mushroom);
+            mushroom = -1;
+        }
+        mushroomVisible = false;
+        while (mushroom < 0) {
+            int index = random.nextInt(cells.length);
+            if (cells[index] == CellState.EMPTY) {
+                cells[index] = CellState.MUSHROOM;
+                mushroom = index;
+                markChanged(index);
+            }
+        }
+    }
+
+    /**
+     * Removes all the boxes and puts them back on random free cells or goals, away from the sides.
+     * The boxes are numbered again in the order they are placed.
+     *
+     * @param random The random generator to use.
+     */
+    public void shuffleBoxes(Random random) {
+        int boxes = 0;
+        for (int index = 0; index < cells.length; index++) {
+            if (CellState.has(cells[index], CellState.BOX)) {
+                cells[index] &= ~CellState.BOX;
+                boxNumbers[index] = 0;
+                markChanged(index);
+                boxes++;
+            }
+        }
+        short number = 1;
+        while (boxes > 0) {
+            int i = random.nextInt(height);
+            int j = random.nextInt(width);
+            int index = index(i, j);
+            if (i != 0 && j != 0 && i != height - 1 && j != width - 1
+                    && (cells[index] == CellState.EMPTY || cells[index] == CellState.GOAL)) {
+                cells[index] |= CellState.BOX;
+                boxNumbers[index] = number++;
+                markChanged(index);
+                boxes--;
+            }
+        }
+        hash = Zobrist.hash(this);
+    }
+
+    /**
+     * Shows the mushroom if it is hidden, hides it otherwise.
+     *
+     * @return true if the mushroom was made visible, false otherwise.
+     */
+    public boolean toggleMushroom() {
+        if (mushroom < 0) {
+            return false;
+        }
+        mushroomVisible = !mushroomVisible;
+        return mushroomVisible;
+    }
+
+    /**
+     * Checks if the mushroom is visible. A grid without mushroom is considered visible.
+     *
+     * @return true if the mushroom is visible, false otherwise.
+     */
+    public boolean isMushroomVisible() {
+        return mushroom < 0 || mushroomVisible;
+    }
+
+    void setMushroomVisible(boolean mushroomVisible) {
+        this.mushroomVisible = mushroomVisible;
+    }
+}
@@ -0,0 +1,111 @@
+package sokoban.model;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The RleWriter class encodes a level in the XSB format to its run-length encoded form while it is written:
+ * a run of the same symbol is written as its length followed by the symbol ({@code ###} becomes {@code 3#}),
+ * the ground as '-' so that no space is lost, and the lines are separated by '|' on a single line.
+ * <p>
+ * Only the current run is kept, so the text of the level is never held in full. LevelReader reads this form.
+ */
+public class RleWriter extends FilterWriter {
+    public static final String EXTENSION = ".rle";
+
+    private char symbol;       // Symbol of the current run
+    private int run;           // Length of the current run, 0 if none
+    private boolean newLine;   // A line ended, its separator is written before the next symbol
+    private boolean started;   // Something was written, so the text ends with an end of line
+
+    /**
+     * Constructor of the encoder.
+     *
+     * @param out The writer receiving the encoded level.
+     */
+    public RleWriter(Writer out) {
+        super(out);
+    }
+
+    /**
+     * Checks if a file name asks for the run-length encoded form.
+     *
+     * @param name The name of the file.
+     * @return true if the name ends with .rle, false otherwise.
+     */
+    public static boolean isRle(String name) {
+        return name.toLowerCase().endsWith(EXTENSION);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        char next = c == ' ' ? '-' : (char) c;
+        if (next == '\r') {
+            return;
+        }
+        if (next == '\n') {
+            flushRun();
+            newLine = true;
+            return;
+        }
+        if (run > 0 && next == symbol) {
+            run++;
+            return;
+        }
+        flushRun();
+        if (newLine) {
+            out.write('|');
+            newLine = false;
+        }
+        symbol = next;
+        run = 1;
+        started = true;
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            write(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(String text, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            write(text.charAt(i));
+        }
+    }
+
+    private void flushRun() throws IOException {
+        if (run > 1) {
+            out.write(Integer.toString(run));
+        }
+        if (run > 0) {
+            out.write(symbol);
+        }
+        run = 0;
+    }
+
+    /**
+     * Writes the pending run, without ending the level.
+     */
+    @Override
+    public void flush() throws IOException {
+        flushRun();
+        out.flush();
+    }
+
+    /**
+     * Writes the pending run and the end of line of the level, then closes the underlying writer.
+     */
+    @Override
+    public void close() throws IOException {
+        flushRun();
+        if (started) {
+            out.write(System.lineSeparator());
+            started = false;
+        }
+        out.close();
+    }
+}
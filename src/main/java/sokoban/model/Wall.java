@@ -1,25 +1,26 @@
 package sokoban.model;
 
-import javafx.scene.image.Image;
-
 /**
  * The Wall class represents a wall element in the Sokoban game.
  * It inherits from the GameElement class.
  */
 public class Wall extends GameElement {
 
+    // Shared instance, a wall has no state
+    public static final Wall INSTANCE = new Wall();
+
     /**
      * Constructs a Wall object with the default image.
      */
     public Wall() {
-        image = new Image("wall.png"); // Set the image for the wall
+        super(ImageRegistry.WALL); // Set the image for the wall
     }
 
     /**
      * Creates a copy of the Wall object.
-     * @return A new Wall object.
+     * @return The shared Wall object.
      */
     public Wall copy() {
-        return new Wall();
+        return INSTANCE;
     }
 }
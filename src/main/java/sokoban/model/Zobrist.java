@@ -0,0 +1,78 @@
+package sokoban.model;
+
+/**
+ * The Zobrist class provides the 64-bit keys used to hash a position of the game.
+ * The hash of a position is the xor of the key of the player square and of the keys of the boxes
+ * (square and number), so a move updates it in O(1) by xoring out the old keys and xoring in the new ones.
+ * <p>
+ * The keys are derived from the square with a SplitMix64 mix instead of being stored in a table,
+ * so they are the same for every grid size and between runs, and replays can be compared by their hash.
+ */
+public final class Zobrist {
+    private static final long PLAYER_SEED = 0x9E3779B97F4A7C15L;
+    private static final long BOX_SEED = 0xD1B54A32D192ED03L;
+
+    private Zobrist() {
+    }
+
+    /**
+     * Gets the key of the player standing on a square.
+     *
+     * @param index the index of the square.
+     * @return the key.
+     */
+    public static long player(int index) {
+        return mix(PLAYER_SEED + index);
+    }
+
+    /**
+     * Gets the key of a box on a square. Boxes with different numbers have different keys.
+     *
+     * @param index  the index of the square.
+     * @param number the number of the box, 0 if none.
+     * @return the key.
+     */
+    public static long box(int index, int number) {
+        return mix(BOX_SEED + (((long) index << 16) | (number & 0xFFFF)));
+    }
+
+    /**
+     * Computes the hash of a whole state.
+     *
+     * @param state the state to hash.
+     * @return the hash of the state.
+     */
+    public static long hash(PlayState state) {
+        long hash = 0;
+        for (int index = 0; index < state.size(); index++) {
+            hash ^= key(state.getCell(index), index, state.getBoxNumber(index));
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the part of the hash contributed by a cell.
+     *
+     * @param code   the code of the cell.
+     * @param index  the index of the cell.
+     * @param number the number of the box on the cell, 0 if none.
+     * @return the xor of the keys of the cell.
+     */
+    static long key(byte code, int index, int number) {
+        long key = 0;
+        if (CellState.has(code, CellState.PLAYER)) {
+            key ^= player(index);
+        }
+        if (CellState.has(code, CellState.BOX)) {
+            key ^= box(index, number);
+        }
+        return key;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
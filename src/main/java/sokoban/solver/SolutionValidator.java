@@ -0,0 +1,176 @@
+package sokoban.solver;
+
+import sokoban.model.BinaryLevel;
+import sokoban.model.Direction;
+import sokoban.model.LevelFormatException;
+import sokoban.model.LevelReader;
+import sokoban.model.MoveEngine;
+import sokoban.model.MoveResult;
+import sokoban.model.PlayState;
+import sokoban.model.RleWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The SolutionValidator class replays a solution in LURD notation on a level, without any view:
+ * lowercase letters are moves, uppercase letters are pushes. Every move must be played as written,
+ * so a move that is blocked, that pushes a box where the letter is lowercase or that does not push
+ * where it is uppercase makes the solution invalid at that step.
+ * <p>
+ * The moves are applied with the MoveEngine on a copy of the level, a few array accesses each.
+ * A count before a letter repeats it ({@code 3r} is {@code rrr}) and white space is ignored,
+ * so solutions saved over several lines or in the run-length encoded form are read as well.
+ * <p>
+ * The main method checks in bulk the levels (.xsb, .rle or .sokb) of the given files and directories
+ * that have a solution alongside, in a file with the same name and the .lurd extension.
+ * <p>
+ * Usage: {@code java -cp target/classes sokoban.solver.SolutionValidator [paths...]}
+ */
+public final class SolutionValidator {
+    public static final String EXTENSION = ".lurd";
+
+    // Longest repetition accepted before a letter
+    private static final int MAX_RUN = 1 << 16;
+
+    private SolutionValidator() {
+    }
+
+    /**
+     * Replays a solution on a copy of a level.
+     *
+     * @param level    The position to start from; it is left unchanged.
+     * @param solution The moves in LURD notation.
+     * @return The outcome of the replay.
+     */
+    public static ValidationResult validate(PlayState level, CharSequence solution) {
+        PlayState state = level.copy();
+        int moves = 0;
+        int pushes = 0;
+        int run = 0;
+        for (int i = 0; i < solution.length(); i++) {
+            char letter = solution.charAt(i);
+            if (letter >= '0' && letter <= '9') {
+                run = run * 10 + (letter - '0');
+                if (run > MAX_RUN) {
+                    return invalid(moves + 1, pushes, "Repetition too long");
+                }
+                continue;
+            }
+            if (Character.isWhitespace(letter)) {
+                continue;
+            }
+            Direction direction = Direction.fromLetter(letter);
+            if (direction == null) {
+                return invalid(moves + 1, pushes, "Unknown letter '" + letter + "'");
+            }
+            boolean push = Character.isUpperCase(letter);
+            for (int count = Math.max(run, 1); count > 0; count--) {
+                moves++;
+                MoveResult result = MoveEngine.apply(state, direction);
+                if (result == MoveResult.BLOCKED) {
+                    return invalid(moves, pushes, "Move '" + letter + "' is blocked");
+                }
+                if (push != (result == MoveResult.PUSHED)) {
+                    return invalid(moves, pushes, push ? "Move '" + letter + "' does not push a box"
+                            : "Move '" + letter + "' pushes a box, the letter should be uppercase");
+                }
+                if (push) {
+                    pushes++;
+                }
+            }
+            run = 0;
+        }
+        if (run > 0) {
+            return invalid(moves + 1, pushes, "Repetition without a letter");
+        }
+        return new ValidationResult(state.isSolved() ? ValidationResult.Status.SOLVED
+                : ValidationResult.Status.UNSOLVED, moves, pushes, null);
+    }
+
+    private static ValidationResult invalid(int step, int pushes, String message) {
+        return new ValidationResult(ValidationResult.Status.INVALID, step, pushes, message);
+    }
+
+    /**
+     * Gets the file of the solution of a level, alongside it.
+     *
+     * @param level The file of the level.
+     * @return The file with the same name and the .lurd extension.
+     */
+    public static Path solutionOf(Path level) {
+        String name = level.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return level.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + EXTENSION);
+    }
+
+    /**
+     * Reads a level file in any of the forms the game opens.
+     *
+     * @param path The file to read.
+     * @return The position of the level.
+     * @throws IOException if the file cannot be read.
+     * @throws LevelFormatException if the file contains an unknown symbol.
+     */
+    public static PlayState readLevel(Path path) throws IOException {
+        return BinaryLevel.isBinary(path.getFileName().toString())
+                ? BinaryLevel.read(path) : PlayState.of(LevelReader.read(path));
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Path> levels = new ArrayList<>();
+        for (String arg : args) {
+            addLevels(Path.of(arg), levels);
+        }
+        if (args.length == 0) {
+            addLevels(Path.of("boards"), levels);
+        }
+
+        int solved = 0;
+        long totalMoves = 0;
+        long totalNanos = 0;
+        System.out.printf("%-40s %-9s %8s %7s  %s%n", "level", "status", "moves", "pushes", "message");
+        for (Path level : levels) {
+            ValidationResult result;
+            try {
+                PlayState state = readLevel(level);
+                String solution = Files.readString(solutionOf(level));
+                long start = System.nanoTime();
+                result = validate(state, solution);
+                totalNanos += System.nanoTime() - start;
+            } catch (IOException | LevelFormatException e) {
+                System.out.printf("%-40s %-9s %8s %7s  %s%n", level, "ERROR", "", "", e.getMessage());
+                continue;
+            }
+            totalMoves += result.getMoves();
+            if (result.isSolved()) {
+                solved++;
+            }
+            System.out.printf("%-40s %-9s %8d %7d  %s%n", level, result.getStatus(), result.getMoves(),
+                    result.getPushes(), result.getMessage() == null ? "" : result.getMessage());
+        }
+        System.out.printf("%d/%d solved, %d moves in %d ms (%.1f million moves/s)%n", solved, levels.size(),
+                totalMoves, totalNanos / 1_000_000, totalNanos == 0 ? 0.0 : totalMoves * 1e3 / totalNanos);
+    }
+
+    // Adds the levels of a file or directory that have a solution alongside
+    private static void addLevels(Path path, List<Path> levels) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.walk(path)) {
+                files.filter(SolutionValidator::isLevel).filter(file -> Files.exists(solutionOf(file)))
+                        .sorted().forEach(levels::add);
+            }
+        } else {
+            levels.add(path);
+        }
+    }
+
+    private static boolean isLevel(Path path) {
+        String name = path.getFileName().toString();
+        return name.endsWith(".xsb") || RleWriter.isRle(name) || BinaryLevel.isBinary(name);
+    }
+}
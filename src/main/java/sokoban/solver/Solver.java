@@ -0,0 +1,602 @@
+package sokoban.solver;
+
+import sokoban.model.CellState;
+import sokoban.model.Direction;
+import sokoban.model.Grid;
+import sokoban.model.PlayState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The Solver class searches a solution for a level with A* over push states.
+ * <p>
+ * A node of the search is the position of the boxes and the region the player can reach without pushing,
+ * represented by its smallest square: all the positions where the player can walk to the same squares are
+ * the same node. Each edge is a single push, so the search explores pushes and finds the walks between them
+ * only when the solution is rebuilt. The heuristic is the number of pushes needed to bring every box to
+ * the nearest goal with the same number, ignoring the other boxes; boxes are numbered in play mode, so two
+ * boxes with different numbers are different. Pushes onto a square from which a box can never reach a
+ * goal, and pushes freezing a box off its goal in a 2x2 block, are pruned.
+ * <p>
+ * The search stops at the node, memory and time limits given to the constructor. Boards of more than
+ * MAX_SQUARES squares are not searched.
+ * It runs on the calling thread; solveAsync runs it on a background thread, so it never blocks the FX thread.
+ */
+public class Solver {
+    public static final long DEFAULT_MAX_NODES = 2_000_000;
+    public static final long DEFAULT_MAX_MEMORY = 256L << 20;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * Largest number of squares of a board, with the border of walls the search adds around it:
+     * a box state keeps the square of the box in 16 bits, next to its number.
+     */
+    public static final int MAX_SQUARES = 1 << 16;
+
+    // Estimated size of a node without its boxes: the object, its entry in the map and its slot in the queue
+    private static final int NODE_OVERHEAD = 112;
+    private static final int INFINITE = Integer.MAX_VALUE / 4;
+
+    // Directions of the moves, the search numbers them in this order
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    // Background thread running the searches started by solveAsync
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sokoban-solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long maxNodes;
+    private final long maxMemory;
+    private final long timeoutMillis;
+
+    /**
+     * Constructs a solver with the default limits.
+     */
+    public Solver() {
+        this(DEFAULT_MAX_NODES, DEFAULT_MAX_MEMORY, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Constructs a solver with the given limits.
+     *
+     * @param maxNodes      The maximum number of nodes created by a search.
+     * @param maxMemory     The maximum memory, in bytes, estimated for the nodes of a search.
+     * @param timeoutMillis The maximum duration of a search, in milliseconds.
+     */
+    public Solver(long maxNodes, long maxMemory, long timeoutMillis) {
+        if (maxNodes <= 0 || maxMemory <= 0 || timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Solver limits must be positive.");
+        }
+        this.maxNodes = maxNodes;
+        this.maxMemory = maxMemory;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Copies the position of a grid, as loaded by Board.open or being played, into a new state.
+     * The grid is not thread-safe, so the copy must be taken on the thread owning the grid.
+     *
+     * @param grid The grid to copy.
+     * @return The state of the grid.
+     */
+    public static PlayState snapshot(Grid grid) {
+        return grid.snapshot();
+    }
+
+    /**
+     * Searches a solution for the position of a grid.
+     *
+     * @param grid The grid to solve.
+     * @return The result of the search.
+     */
+    public SolverResult solve(Grid grid) {
+        return solve(snapshot(grid));
+    }
+
+    /**
+     * Searches a solution for the position of a grid on a background thread.
+     * The position is copied on the calling thread, so the grid can be modified during the search.
+     *
+     * @param grid The grid to solve.
+     * @return The future result of the search.
+     */
+    public CompletableFuture<SolverResult> solveAsync(Grid grid) {
+        PlayState state = snapshot(grid);
+        return CompletableFuture.supplyAsync(() -> solve(state), executor);
+    }
+
+    /**
+     * Searches a solution for a state.
+     *
+     * @param state The state to solve. It is not modified.
+     * @return The result of the search.
+     */
+    public SolverResult solve(PlayState state) {
+        if ((state.getWidth() + 2L) * (state.getHeight() + 2L) > MAX_SQUARES) {
+            return new SolverResult(SolverResult.Status.TOO_LARGE, null, 0, 0);
+        }
+        return new Search(state).run();
+    }
+
+    /**
+     * A push state of the search.
+     */
+    private static final class Node {
+        private final int[] boxes;   // Boxes as (number << 16 | square), sorted
+        private final int player;    // Smallest square of the region reachable by the player
+        private final Node parent;
+        private final int pushFrom;  // Square of the pushed box before the push
+        private final int direction; // Index of the direction of the push
+        private final int pushes;
+        private final int estimate;  // Pushes plus heuristic
+        private final int hash;
+
+        private Node(int[] boxes, int player, Node parent, int pushFrom, int direction, int pushes, int heuristic) {
+            this.boxes = boxes;
+            this.player = player;
+            this.parent = parent;
+            this.pushFrom = pushFrom;
+            this.direction = direction;
+            this.pushes = pushes;
+            this.estimate = pushes + heuristic;
+            this.hash = 31 * Arrays.hashCode(boxes) + player;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Node)) {
+                return false;
+            }
+            Node node = (Node) o;
+            return player == node.player && hash == node.hash && Arrays.equals(boxes, node.boxes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * One search, working on a copy of the level surrounded by walls so no bounds check is needed.
+     */
+    private final class Search {
+        private final int width;
+        private final int size;
+        private final int[] steps;
+        private final boolean[] wall;
+        private final int[] goals;
+        private final int[] goalNumberAt; // Number of the goal on each square, -1 if none
+        private final int[][] goalDistance; // Pushes from each square to each goal, ignoring the other boxes
+        private final int[][] numberDistance; // Pushes from each square to the nearest goal of each box number
+        private final int start;
+        private final int[] startBoxes;
+        private final boolean everyBoxNeeded;
+
+        // Scratch arrays
+        private final int[] boxAt;
+        private final int[] queue;
+        private final int[] mark;
+        private final int[] region;
+        private final int[] previous;
+        private int stamp;
+
+        // Arrays of the Hungarian method, indexed from 1
+        private final int[][] cost;
+        private final int[] rowPotential;
+        private final int[] colPotential;
+        private final int[] matched;
+        private final int[] way;
+        private final int[] minSlack;
+        private final boolean[] used;
+
+        private Search(PlayState state) {
+            int stateWidth = state.getWidth();
+            width = stateWidth + 2;
+            size = width * (state.getHeight() + 2);
+            steps = new int[]{-width, width, -1, 1};
+            wall = new boolean[size];
+            goalNumberAt = new int[size];
+            boxAt = new int[size];
+            queue = new int[size];
+            mark = new int[size];
+            region = new int[size];
+            previous = new int[size];
+            Arrays.fill(wall, true);
+            Arrays.fill(goalNumberAt, -1);
+            Arrays.fill(boxAt, -1);
+
+            List<Integer> goalList = new ArrayList<>();
+            List<Integer> boxList = new ArrayList<>();
+            int maxNumber = 0;
+            for (int index = 0; index < state.size(); index++) {
+                int square = (index / stateWidth + 1) * width + index % stateWidth + 1;
+                byte code = state.getCell(index);
+                wall[square] = CellState.has(code, CellState.WALL);
+                if (CellState.has(code, CellState.GOAL)) {
+                    goalList.add(square);
+                    goalNumberAt[square] = state.getGoalNumber(index);
+                    maxNumber = Math.max(maxNumber, state.getGoalNumber(index));
+                }
+                if (CellState.has(code, CellState.BOX)) {
+                    boxList.add(state.getBoxNumber(index) << 16 | square);
+                    maxNumber = Math.max(maxNumber, state.getBoxNumber(index));
+                }
+            }
+            int player = state.getPlayer();
+            start = player < 0 ? -1 : (player / stateWidth + 1) * width + player % stateWidth + 1;
+            goals = goalList.stream().mapToInt(Integer::intValue).toArray();
+            startBoxes = boxList.stream().mapToInt(Integer::intValue).sorted().toArray();
+            everyBoxNeeded = startBoxes.length == goals.length;
+            int n = goals.length + 1;
+            cost = new int[n][n];
+            rowPotential = new int[n];
+            colPotential = new int[n];
+            matched = new int[n];
+            way = new int[n];
+            minSlack = new int[n];
+            used = new boolean[n];
+
+            goalDistance = new int[goals.length][];
+            for (int g = 0; g < goals.length; g++) {
+                goalDistance[g] = pullDistances(goals[g]);
+            }
+            numberDistance = new int[maxNumber + 1][size];
+            for (int[] distances : numberDistance) {
+                Arrays.fill(distances, INFINITE);
+            }
+            for (int g = 0; g < goals.length; g++) {
+                int[] distances = numberDistance[goalNumberAt[goals[g]]];
+                for (int square = 0; square < size; square++) {
+                    distances[square] = Math.min(distances[square], goalDistance[g][square]);
+                }
+            }
+        }
+
+        /**
+         * Computes the pushes needed to bring a box from every square to the goal, by pulling it from the goal.
+         */
+        private int[] pullDistances(int goal) {
+            int[] distances = new int[size];
+            Arrays.fill(distances, INFINITE);
+            distances[goal] = 0;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = goal;
+            while (head < tail) {
+                int square = queue[head++];
+                for (int step : steps) {
+                    int from = square - step; // The box was pushed from there, by a player standing one step behind
+                    if (!wall[from] && !wall[from - step] && distances[from] == INFINITE) {
+                        distances[from] = distances[square] + 1;
+                        queue[tail++] = from;
+                    }
+                }
+            }
+            return distances;
+        }
+
+        private SolverResult run() {
+            long startTime = System.nanoTime();
+            if (start < 0) {
+                return new SolverResult(SolverResult.Status.UNSOLVABLE, null, 0, 0);
+            }
+            place(startBoxes);
+            int startHeuristic = heuristic(startBoxes);
+            Node root = new Node(startBoxes, reach(start), null, -1, -1, 0, startHeuristic);
+            boolean solved = isSolved();
+            clear(startBoxes);
+            if (solved) {
+                return new SolverResult(SolverResult.Status.SOLVED, "", 1, elapsed(startTime));
+            }
+            if (startHeuristic >= INFINITE) {
+                return new SolverResult(SolverResult.Status.UNSOLVABLE, null, 1, elapsed(startTime));
+            }
+
+            PriorityQueue<Node> open = new PriorityQueue<>((a, b) ->
+                    a.estimate != b.estimate ? Integer.compare(a.estimate, b.estimate) : Integer.compare(b.pushes, a.pushes));
+            Map<Node, Node> best = new HashMap<>();
+            open.add(root);
+            best.put(root, root);
+            long nodes = 1;
+            long bytesPerNode = NODE_OVERHEAD + 4L * startBoxes.length;
+            long expanded = 0;
+
+            while (!open.isEmpty()) {
+                Node node = open.poll();
+                if (best.get(node) != node) {
+                    continue; // A shorter path to this node was found after it was queued
+                }
+                if ((++expanded & 0xFF) == 0) {
+                    if (elapsed(startTime) > timeoutMillis) {
+                        return new SolverResult(SolverResult.Status.TIMEOUT, null, nodes, elapsed(startTime));
+                    }
+                }
+
+                place(node.boxes);
+                reach(node.player, region);
+                int reached = stamp;
+                for (int i = 0; i < node.boxes.length; i++) {
+                    int box = node.boxes[i];
+                    int square = box & 0xFFFF;
+                    int number = box >>> 16;
+                    for (int direction = 0; direction < steps.length; direction++) {
+                        int step = steps[direction];
+                        int target = square + step;
+                        if (region[square - step] != reached || wall[target] || boxAt[target] >= 0
+                                || (everyBoxNeeded && numberDistance[number][target] >= INFINITE)) {
+                            continue;
+                        }
+
+                        // Push the box, look at the new position, then put the box back
+                        boxAt[square] = -1;
+                        boxAt[target] = number;
+                        Node child = null;
+                        if (!isFrozen(target)) {
+                            int[] boxes = node.boxes.clone();
+                            boxes[i] = number << 16 | target;
+                            Arrays.sort(boxes);
+                            int heuristic = heuristic(boxes);
+                            if (heuristic < INFINITE) {
+                                child = new Node(boxes, reach(square), node, square, direction, node.pushes + 1, heuristic);
+                                if (isSolved()) {
+                                    boxAt[target] = -1;
+                                    boxAt[square] = number;
+                                    clear(node.boxes);
+                                    place(node.boxes);
+                                    String solution = solution(child);
+                                    clear(node.boxes);
+                                    return new SolverResult(SolverResult.Status.SOLVED, solution, nodes + 1, elapsed(startTime));
+                                }
+                            }
+                        }
+                        boxAt[target] = -1;
+                        boxAt[square] = number;
+
+                        if (child != null) {
+                            Node known = best.get(child);
+                            if (known == null || known.pushes > child.pushes) {
+                                best.put(child, child);
+                                open.add(child);
+                                if (++nodes >= maxNodes) {
+                                    clear(node.boxes);
+                                    return new SolverResult(SolverResult.Status.NODE_LIMIT, null, nodes, elapsed(startTime));
+                                }
+                                if (nodes * bytesPerNode >= maxMemory) {
+                                    clear(node.boxes);
+                                    return new SolverResult(SolverResult.Status.MEMORY_LIMIT, null, nodes, elapsed(startTime));
+                                }
+                            }
+                        }
+                    }
+                }
+                clear(node.boxes);
+            }
+            return new SolverResult(SolverResult.Status.UNSOLVABLE, null, nodes, elapsed(startTime));
+        }
+
+        private long elapsed(long startTime) {
+            return (System.nanoTime() - startTime) / 1_000_000;
+        }
+
+        private void place(int[] boxes) {
+            for (int box : boxes) {
+                boxAt[box & 0xFFFF] = box >>> 16;
+            }
+        }
+
+        private void clear(int[] boxes) {
+            for (int box : boxes) {
+                boxAt[box & 0xFFFF] = -1;
+            }
+        }
+
+        /**
+         * Checks if every goal holds a box with its number, with the boxes placed in boxAt.
+         */
+        private boolean isSolved() {
+            for (int goal : goals) {
+                if (boxAt[goal] != goalNumberAt[goal]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Lower bound of the pushes left. When there are as many boxes as goals, it is the cost of the best
+         * assignment of the boxes to the goals with their number (Hungarian method); otherwise every goal
+         * needs at least the pushes of the nearest box with its number.
+         */
+        private int heuristic(int[] boxes) {
+            if (everyBoxNeeded) {
+                return assignment(boxes);
+            }
+            int total = 0;
+            for (int g = 0; g < goals.length; g++) {
+                int nearest = INFINITE;
+                for (int box : boxes) {
+                    if (box >>> 16 == goalNumberAt[goals[g]]) {
+                        nearest = Math.min(nearest, goalDistance[g][box & 0xFFFF]);
+                    }
+                }
+                if (nearest >= INFINITE) {
+                    return INFINITE;
+                }
+                total += nearest;
+            }
+            return total;
+        }
+
+        /**
+         * Computes the minimum total pushes to bring every box on a different goal with its number.
+         */
+        private int assignment(int[] boxes) {
+            int n = boxes.length;
+            for (int i = 1; i <= n; i++) {
+                int box = boxes[i - 1];
+                for (int g = 1; g <= n; g++) {
+                    cost[i][g] = box >>> 16 == goalNumberAt[goals[g - 1]] ? goalDistance[g - 1][box & 0xFFFF] : INFINITE;
+                }
+            }
+            Arrays.fill(rowPotential, 0);
+            Arrays.fill(colPotential, 0);
+            Arrays.fill(matched, 0);
+            for (int i = 1; i <= n; i++) {
+                matched[0] = i;
+                int col = 0;
+                Arrays.fill(minSlack, Integer.MAX_VALUE);
+                Arrays.fill(used, false);
+                do {
+                    used[col] = true;
+                    int row = matched[col];
+                    int delta = Integer.MAX_VALUE;
+                    int nextCol = 0;
+                    for (int g = 1; g <= n; g++) {
+                        if (!used[g]) {
+                            int slack = cost[row][g] - rowPotential[row] - colPotential[g];
+                            if (slack < minSlack[g]) {
+                                minSlack[g] = slack;
+                                way[g] = col;
+                            }
+                            if (minSlack[g] < delta) {
+                                delta = minSlack[g];
+                                nextCol = g;
+                            }
+                        }
+                    }
+                    if (delta >= INFINITE) {
+                        return INFINITE; // Some box cannot reach any free goal with its number
+                    }
+                    for (int g = 0; g <= n; g++) {
+                        if (used[g]) {
+                            rowPotential[matched[g]] += delta;
+                            colPotential[g] -= delta;
+                        } else {
+                            minSlack[g] -= delta;
+                        }
+                    }
+                    col = nextCol;
+                } while (matched[col] != 0);
+                do {
+                    int previousCol = way[col];
+                    matched[col] = matched[previousCol];
+                    col = previousCol;
+                } while (col != 0);
+            }
+            return -colPotential[0];
+        }
+
+        /**
+         * Checks if a box just pushed on the square closes a 2x2 block of walls and boxes
+         * holding a box that is not on its goal: none of these boxes can ever move again.
+         */
+        private boolean isFrozen(int square) {
+            if (!everyBoxNeeded) {
+                return false;
+            }
+            int[] corners = {square, square - 1, square - width, square - width - 1};
+            for (int corner : corners) {
+                int[] block = {corner, corner + 1, corner + width, corner + width + 1};
+                boolean closed = true;
+                boolean misplaced = false;
+                for (int cell : block) {
+                    if (boxAt[cell] >= 0) {
+                        misplaced |= goalNumberAt[cell] != boxAt[cell];
+                    } else if (!wall[cell]) {
+                        closed = false;
+                        break;
+                    }
+                }
+                if (closed && misplaced) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int reach(int from) {
+            return reach(from, mark);
+        }
+
+        /**
+         * Marks with a new stamp the squares the player can reach from the given square without pushing.
+         *
+         * @return The smallest reachable square.
+         */
+        private int reach(int from, int[] mark) {
+            stamp++;
+            int smallest = from;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = from;
+            mark[from] = stamp;
+            while (head < tail) {
+                int square = queue[head++];
+                smallest = Math.min(smallest, square);
+                for (int step : steps) {
+                    int next = square + step;
+                    if (mark[next] != stamp && !wall[next] && boxAt[next] < 0) {
+                        mark[next] = stamp;
+                        previous[next] = square;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            return smallest;
+        }
+
+        /**
+         * Rebuilds the LURD solution leading to a node, with the walks of the player between the pushes.
+         * The boxes of the parent of the node must be placed in boxAt.
+         */
+        private String solution(Node last) {
+            List<Node> path = new ArrayList<>();
+            for (Node node = last; node.parent != null; node = node.parent) {
+                path.add(node);
+            }
+            clear(last.parent.boxes);
+
+            StringBuilder solution = new StringBuilder();
+            int player = start;
+            for (int n = path.size() - 1; n >= 0; n--) {
+                Node node = path.get(n);
+                place(node.parent.boxes);
+                int behind = node.pushFrom - steps[node.direction];
+                reach(player);
+                StringBuilder walk = new StringBuilder();
+                for (int square = behind; square != player; square = previous[square]) {
+                    walk.append(DIRECTIONS[direction(previous[square], square)].getLetter(false));
+                }
+                solution.append(walk.reverse());
+                solution.append(DIRECTIONS[node.direction].getLetter(true));
+                player = node.pushFrom;
+                clear(node.parent.boxes);
+            }
+            place(last.parent.boxes);
+            return solution.toString();
+        }
+
+        private int direction(int from, int to) {
+            for (int direction = 0; direction < steps.length; direction++) {
+                if (from + steps[direction] == to) {
+                    return direction;
+                }
+            }
+            throw new IllegalStateException("Squares " + from + " and " + to + " are not neighbours.");
+        }
+    }
+}
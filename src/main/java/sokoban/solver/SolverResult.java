@@ -0,0 +1,88 @@
+package sokoban.solver;
+
+/**
+ * The SolverResult class holds the outcome of a search of the Solver:
+ * the status, the solution in LURD notation when one was found, and statistics of the search.
+ */
+public class SolverResult {
+
+    /**
+     * The possible outcomes of a search.
+     */
+    public enum Status {
+        SOLVED,         // A solution was found
+        UNSOLVABLE,     // The whole search space was explored without finding a solution
+        NODE_LIMIT,     // The search stopped after the maximum number of nodes
+        MEMORY_LIMIT,   // The search stopped when the estimated memory reached the limit
+        TIMEOUT,        // The search stopped after the maximum time
+        TOO_LARGE       // The board has more squares than a box state can hold (see Solver.MAX_SQUARES)
+    }
+
+    private final Status status;
+    private final String solution;
+    private final long nodes;
+    private final long elapsedMillis;
+
+    SolverResult(Status status, String solution, long nodes, long elapsedMillis) {
+        this.status = status;
+        this.solution = solution;
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    /**
+     * Gets the solution in LURD notation: lowercase letters are moves, uppercase letters are pushes.
+     *
+     * @return The solution, or null if the level was not solved.
+     */
+    public String getSolution() {
+        return solution;
+    }
+
+    /**
+     * Counts the pushes of the solution.
+     *
+     * @return The number of pushes, 0 if the level was not solved.
+     */
+    public int getPushes() {
+        int pushes = 0;
+        if (solution != null) {
+            for (int i = 0; i < solution.length(); i++) {
+                if (Character.isUpperCase(solution.charAt(i))) {
+                    pushes++;
+                }
+            }
+        }
+        return pushes;
+    }
+
+    /**
+     * Gets the number of nodes (push states) created by the search.
+     *
+     * @return The number of nodes.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        if (isSolved()) {
+            return "Solved in " + solution.length() + " moves and " + getPushes() + " pushes ("
+                    + nodes + " nodes, " + elapsedMillis + " ms): " + solution;
+        }
+        return status + " (" + nodes + " nodes, " + elapsedMillis + " ms)";
+    }
+}
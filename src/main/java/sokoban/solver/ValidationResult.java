@@ -0,0 +1,77 @@
+package sokoban.solver;
+
+/**
+ * The ValidationResult class holds the outcome of the replay of a LURD solution by the SolutionValidator:
+ * the status, the number of moves and pushes played and, for an invalid solution, the step at fault.
+ */
+public class ValidationResult {
+
+    /**
+     * The possible outcomes of a replay.
+     */
+    public enum Status {
+        SOLVED,     // Every move was played and the level ends solved
+        UNSOLVED,   // Every move was played but some goals are still free
+        INVALID     // A letter is unknown, or a move is blocked or does not match its case
+    }
+
+    private final Status status;
+    private final int moves;
+    private final int pushes;
+    private final String message;
+
+    ValidationResult(Status status, int moves, int pushes, String message) {
+        this.status = status;
+        this.moves = moves;
+        this.pushes = pushes;
+        this.message = message;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    /**
+     * Gets the number of moves played, including the pushes.
+     * For an invalid solution, the move at fault is the last one counted.
+     *
+     * @return The number of moves.
+     */
+    public int getMoves() {
+        return moves;
+    }
+
+    public int getPushes() {
+        return pushes;
+    }
+
+    /**
+     * Gets the step at fault of an invalid solution, counted from 1 once the repetitions are expanded.
+     *
+     * @return The step, or 0 if the solution is not invalid.
+     */
+    public int getStep() {
+        return status == Status.INVALID ? moves : 0;
+    }
+
+    /**
+     * Gets the reason of an invalid solution.
+     *
+     * @return The reason, or null if the solution is not invalid.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        if (status == Status.INVALID) {
+            return "INVALID at step " + moves + ": " + message;
+        }
+        return status + " in " + moves + " moves and " + pushes + " pushes";
+    }
+}
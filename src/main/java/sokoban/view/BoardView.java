@@ -1,5 +1,7 @@
 package sokoban.view;
 
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.DoubleBinding;
 import javafx.beans.property.DoubleProperty;
@@ -17,12 +19,17 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import sokoban.model.Board;
 import sokoban.model.Grid;
+import sokoban.model.LevelCollection;
+import sokoban.model.LevelFormatException;
 import sokoban.viewmodel.BoardViewModel;
 import sokoban.viewmodel.GridViewModel;
 import sokoban.viewmodel.ToolViewModel;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletionException;
 
 public abstract class BoardView extends BorderPane {
 
@@ -35,6 +42,8 @@ public abstract class BoardView extends BorderPane {
     private final Label errGoal = new Label("- At least one target is required.");
     private final Label errBox = new Label("");
     private final Label errCountBoxGoal = new Label("- Number of box and target must be equals.");
+    private final Label warnPlacement = new Label("");
+    private boolean warnPlacementScheduled;
     private final VBox vbox = new VBox();
     private final HBox boxCellCount = new HBox();
     private final VBox boxRules = new VBox();
@@ -43,6 +52,7 @@ public abstract class BoardView extends BorderPane {
     private final MenuItem menuItemNew = new MenuItem("New...");
     private final MenuItem menuItemOpen = new MenuItem("Open...");
     private final MenuItem menuItemSave = new MenuItem("Save As...");
+    private final MenuItem menuItemSolve = new MenuItem("Check Solvable...");
     private final MenuItem menuItemExit = new MenuItem("Exit...");
     private final HBox boardGame = new HBox();
     protected final int SCENE_MIN_WIDTH = 1080;
@@ -63,6 +73,7 @@ public abstract class BoardView extends BorderPane {
         toolViewModel = new ToolViewModel();
         toolView = new ToolView();
         start(this.primaryStage);
+        boardViewModel.setOnGridReplaced(this::refresh);
 
         layoutControls();
     }
@@ -127,7 +138,7 @@ public abstract class BoardView extends BorderPane {
 
     // Method to create the menu bar
     private void createMenuBar(Stage stage) {
-        fileMenu.getItems().addAll(menuItemNew, menuItemOpen, menuItemSave, menuItemExit);
+        fileMenu.getItems().addAll(menuItemNew, menuItemOpen, menuItemSave, menuItemSolve, menuItemExit);
         MenuBar sameMenuBar = new MenuBar();
         sameMenuBar.getMenus().add(fileMenu);
         vbox.getChildren().add(sameMenuBar);
@@ -143,6 +154,7 @@ public abstract class BoardView extends BorderPane {
             }
         });
         menuItemSave.setOnAction(action -> handleSave(stage));
+        menuItemSolve.setOnAction(action -> handleSolve());
     }
 
     // Method to handle exit action
@@ -179,7 +191,25 @@ public abstract class BoardView extends BorderPane {
         FileChooser fileChooser = new FileChooser();
         File selectedFile = fileChooser.showOpenDialog(stage);
         if (selectedFile != null) {
-            boardViewModel.openBoard(selectedFile);
+            try {
+                if (LevelCollection.isCollection(selectedFile.toPath())) {
+                    LevelCollection collection = LevelCollection.open(selectedFile.toPath());
+                    int level = LevelChooser.showDialog(collection);
+                    if (level < 0) {
+                        return;
+                    }
+                    boardViewModel.openLevel(collection, level);
+                } else {
+                    boardViewModel.openBoard(selectedFile);
+                }
+            } catch (LevelFormatException | IOException | UncheckedIOException e) {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Open");
+                alert.setHeaderText("The level cannot be read.");
+                alert.setContentText(e.getMessage());
+                alert.showAndWait();
+                return;
+            }
             refresh();
         }
     }
@@ -189,10 +219,60 @@ public abstract class BoardView extends BorderPane {
         FileChooser fileChooser = new FileChooser();
         File selectedFile = fileChooser.showSaveDialog(stage);
 
+        if (selectedFile == null) {
+            return;
+        }
         Grid grid = boardViewModel.getBoard().getGrid();
         GridViewModel gvm = boardViewModel.getGridViewModel();
-        gvm.saveMenu(grid, selectedFile);
+        // The grid is copied at once, the file is written in the background
         boardViewModel.setChanged(false);
+        gvm.saveMenu(grid, selectedFile).whenComplete((result, error) -> {
+            if (error != null) {
+                Platform.runLater(() -> {
+                    boardViewModel.setChanged(true);
+                    boardViewModel.journalDesign();
+                    showSaveError(selectedFile, error);
+                });
+            }
+        });
+    }
+
+    /**
+     * Reports a save that failed; the previous content of the file is left as it was.
+     */
+    static void showSaveError(File file, Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof UncheckedIOException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Save");
+        alert.setHeaderText(file.getName() + " could not be saved.");
+        alert.setContentText(cause.getClass().getSimpleName() + ": " + cause.getMessage());
+        alert.show();
+    }
+
+    // Method to check if the level can be solved, the search runs off the FX thread
+    private void handleSolve() {
+        menuItemSolve.setDisable(true);
+        boardViewModel.checkSolvable().whenComplete((result, error) -> Platform.runLater(() -> {
+            menuItemSolve.setDisable(false);
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Solver");
+            if (error != null) {
+                alert.setAlertType(Alert.AlertType.ERROR);
+                alert.setHeaderText("The solver failed.");
+                alert.setContentText(error.getMessage());
+            } else if (result.isSolved()) {
+                alert.setHeaderText("This level can be solved in " + result.getPushes() + " pushes.");
+                alert.setContentText(result.getSolution());
+            } else {
+                alert.setAlertType(Alert.AlertType.WARNING);
+                alert.setHeaderText("No solution found: " + result.getStatus());
+                alert.setContentText(result.toString());
+            }
+            alert.show();
+        }));
     }
 
     // Method to create the header
@@ -217,6 +297,24 @@ public abstract class BoardView extends BorderPane {
                 .otherwise("The number of boxes and targets must be equal."));
 
         btnPlay.disableProperty().bind(boardViewModel.rulesOKProperty().not());
+
+        // Warnings on useless boxes and targets, computed once per pulse whatever the number of changed cells
+        InvalidationListener placementListener = observable -> scheduleWarnPlacement();
+        boardViewModel.filledCellsCountProperty().addListener(placementListener);
+        boardViewModel.boxCountProperty().addListener(placementListener);
+        boardViewModel.goalCountProperty().addListener(placementListener);
+        boardViewModel.playerCountProperty().addListener(placementListener);
+        scheduleWarnPlacement();
+    }
+
+    private void scheduleWarnPlacement() {
+        if (!warnPlacementScheduled) {
+            warnPlacementScheduled = true;
+            Platform.runLater(() -> {
+                warnPlacementScheduled = false;
+                warnPlacement.setText(boardViewModel.placementWarnings());
+            });
+        }
     }
 
     // Method to insert the header into the VBox
@@ -226,11 +324,12 @@ public abstract class BoardView extends BorderPane {
         errGoal.setTextFill(Color.RED);
         errPlayer.setTextFill(Color.RED);
         errCountBoxGoal.setTextFill(Color.RED);
+        warnPlacement.setTextFill(Color.ORANGE);
 
         cellCountLabel.getStyleClass().add("header");
 
         boxCellCount.getChildren().add(cellCountLabel);
-        boxRules.getChildren().addAll(errBox, errGoal, errPlayer, errCountBoxGoal);
+        boxRules.getChildren().addAll(errBox, errGoal, errPlayer, errCountBoxGoal, warnPlacement);
         boxCellCount.setAlignment(Pos.CENTER);
         boxRules.setAlignment(Pos.CENTER);
         vbox.getChildren().add(boxCellCount);
@@ -278,6 +377,9 @@ public abstract class BoardView extends BorderPane {
         errCountBoxGoal.fontProperty().bind(Bindings.createObjectBinding(() ->
                         Font.font("Verdana", boxRules.getWidth() / 60),
                 boxRules.widthProperty()));
+        warnPlacement.fontProperty().bind(Bindings.createObjectBinding(() ->
+                        Font.font("Verdana", boxRules.getWidth() / 70),
+                boxRules.widthProperty()));
     }
 
     // Method to refresh the view
@@ -312,7 +414,16 @@ public abstract class BoardView extends BorderPane {
     private void startGame(Stage playStage) {
         boardViewModel.saveGridDesign(); // Sauvegarde état actuel de la grille avant de lancer le jeu
         boardViewModel.getBoard().setGrid(boardViewModel.gridGame()); // création et attribution grille de jeu
-        GridView4Play gridViewPlay = new GridView4Play(boardViewModel.getGridViewModel(), gridWidth, gridHeight);
+        showGame(playStage);
+    }
+
+    // Method to show the game already on the board, such as a game restored from the journal
+    public void resumeGame() {
+        showGame(primaryStage);
+    }
+
+    private void showGame(Stage playStage) {
+        GridView gridViewPlay = GridView.forPlay(boardViewModel.getGridViewModel(), gridWidth, gridHeight);
 
         new BoardView4Play(playStage, gridViewPlay, boardViewModel);
         // refresh des cellules
@@ -1,32 +1,45 @@
 package sokoban.view;
 
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.input.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import sokoban.model.Direction;
+import sokoban.solver.SolutionValidator;
+import sokoban.solver.ValidationResult;
 import sokoban.viewmodel.BoardViewModel;
 
+import java.io.File;
+import java.io.IOException;
+
 public class BoardView4Play extends BoardView  {
-    private GridView4Play gridView;
+    private GridView gridView;
     private Label title = new Label("Score");
     private Label numberOfMovesPlayed = new Label("");
     private Label goal = new Label("");
     private Label finisher = new Label("");
+    private Label deadlock = new Label("");
+    private Label repainted = new Label("");
     private HBox level = new HBox();
     private VBox headerPlay = new VBox();
     private Button btnFinish = new Button("Finish");
     private Button btnMushroom = new Button("Show mushroom");
     private Button target = new Button("Numbering targets");
+    private Button btnSaveMoves = new Button("Save moves");
+    private Button btnLoadMoves = new Button("Load moves");
     // Constructeur de la vue de jeu
-    public BoardView4Play(Stage primaryStage, GridView4Play gridView, BoardViewModel boardViewModel) {
+    public BoardView4Play(Stage primaryStage, GridView gridView, BoardViewModel boardViewModel) {
         super(primaryStage, boardViewModel);
         this.gridView = gridView;
         this.primaryStage = primaryStage;
@@ -38,6 +51,7 @@ public class BoardView4Play extends BoardView  {
         setupFinishButton(boardViewModel, primaryStage);
         showMushroom();
         targetBtn();
+        movesButtons();
     }
 
     // Initialisation des composants de la vue
@@ -47,6 +61,10 @@ public class BoardView4Play extends BoardView  {
         headerPlay.getStyleClass().add("header");
         title.setFont(Font.font("Verdana", FontWeight.BOLD, 20));
         finisher.setFont(Font.font("Verdana", FontWeight.BOLD, 15));
+        deadlock.setFont(Font.font("Verdana", FontWeight.BOLD, 15));
+        deadlock.setTextFill(Color.RED);
+        repainted.setFont(Font.font("Verdana", 10));
+        repainted.setTextFill(Color.GRAY);
 
         // Organisation des composants
         headerPlay.setAlignment(Pos.CENTER);
@@ -55,11 +73,11 @@ public class BoardView4Play extends BoardView  {
         boardLvl.setAlignment(Pos.CENTER);
 
         // Ajout des composants à leurs conteneurs
-        HBox boxBtn = new HBox(btnFinish, btnMushroom, target);
+        HBox boxBtn = new HBox(btnFinish, btnMushroom, target, btnSaveMoves, btnLoadMoves);
         boxBtn.setSpacing(15);
         boxBtn.setAlignment(Pos.CENTER);
 
-        headerPlay.getChildren().addAll(title, numberOfMovesPlayed, goal, finisher);
+        headerPlay.getChildren().addAll(title, numberOfMovesPlayed, goal, finisher, deadlock, repainted);
         level.getChildren().add(gridView);
         boardLvl.getChildren().addAll(headerPlay, level, boxBtn);
         bindings();
@@ -108,10 +126,15 @@ public class BoardView4Play extends BoardView  {
         finisher.textProperty().bind(Bindings.when(boardViewModel.boxInTargetCountProperty().isEqualTo(boardViewModel.goalCountProperty()))
                 .then(Bindings.concat("You won in ", boardViewModel.moveCountProperty().asString(), " moves, congratulations"))
                 .otherwise(""));
+        deadlock.textProperty().bind(Bindings.when(boardViewModel.deadlockProperty())
+                .then("Deadlock: a box can no longer reach its target, undo with Ctrl+Z.")
+                .otherwise(""));
+        repainted.textProperty().bind(gridView.repaintedCellsProperty().asString("Cells repainted: %d"));
     }
 
     private void bindings(){
         btnMushroom.disableProperty().bind(boardViewModel.boxInTargetCountProperty().isEqualTo(boardViewModel.goalCountProperty()));
+        btnLoadMoves.disableProperty().bind(btnMushroom.disableProperty());
 
         // Ajoute ou retire le filtre d'événements en fonction de la valeur de la liaison
         boardViewModel.boxInTargetCountProperty().isEqualTo(boardViewModel.goalCountProperty()).not()
@@ -135,13 +158,72 @@ public class BoardView4Play extends BoardView  {
 
     private void targetBtn(){
         target.setOnAction(action -> {
-            boardViewModel.randomTarget();
-            gridView.fillGrid(gridView.gridViewModel, gridWidth,gridHeight);
+            boardViewModel.randomTarget(); // Les cellules des cibles sont redessinées par la grille
             boardViewModel.configureBindings();
         });
     }
 
+    // Configuration des boutons d'enregistrement et de relecture des mouvements (notation LURD)
+    private void movesButtons() {
+        btnSaveMoves.setOnAction(action -> {
+            String moves = boardViewModel.getMoves();
+            if (moves == null) {
+                showMovesAlert(Alert.AlertType.WARNING, "The mushroom moved the boxes, the moves cannot be replayed.", "");
+                return;
+            }
+            File selectedFile = movesFileChooser().showSaveDialog(primaryStage);
+            if (selectedFile == null) {
+                return;
+            }
+            boardViewModel.saveMoves(selectedFile).whenComplete((result, error) -> {
+                if (error != null) {
+                    Platform.runLater(() -> showSaveError(selectedFile, error));
+                }
+            });
+        });
+        btnLoadMoves.setOnAction(action -> {
+            File selectedFile = movesFileChooser().showOpenDialog(primaryStage);
+            if (selectedFile == null) {
+                return;
+            }
+            try {
+                ValidationResult result = boardViewModel.loadMoves(selectedFile);
+                switch (result.getStatus()) {
+                    case SOLVED -> showMovesAlert(Alert.AlertType.INFORMATION, "The moves solve the level.", result.toString());
+                    case UNSOLVED -> showMovesAlert(Alert.AlertType.INFORMATION, "The moves were played, the level is not solved yet.", result.toString());
+                    case INVALID -> showMovesAlert(Alert.AlertType.ERROR, "The moves cannot be played on this level.", result.toString());
+                }
+            } catch (IOException e) {
+                showMovesAlert(Alert.AlertType.ERROR, selectedFile.getName() + " cannot be read.", e.getMessage());
+            }
+        });
+    }
+
+    // Sélecteur de fichier proposant le fichier .lurd à côté du niveau
+    private FileChooser movesFileChooser() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("LURD", "*" + SolutionValidator.EXTENSION),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+        File movesFile = boardViewModel.getMovesFile();
+        if (movesFile != null) {
+            fileChooser.setInitialDirectory(movesFile.getParentFile());
+            fileChooser.setInitialFileName(movesFile.getName());
+        }
+        return fileChooser;
+    }
+
+    private void showMovesAlert(Alert.AlertType type, String header, String content) {
+        Alert alert = new Alert(type);
+        alert.setTitle("Moves");
+        alert.setHeaderText(header);
+        alert.setContentText(content);
+        alert.showAndWait();
+    }
+
     public void GameAgain(){
+        // La vue de jeu est abandonnée : elle ne doit plus écouter le plateau ni le modèle
+        gridView.dispose();
         boardViewModel.endGame();
         boardViewModel.goToDesign();
         boardViewModel.configureBindings();
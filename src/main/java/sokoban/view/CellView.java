@@ -1,15 +1,13 @@
 package sokoban.view;
 
-import javafx.beans.binding.Bindings;
 import javafx.beans.binding.DoubleBinding;
 import javafx.geometry.Pos;
-import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.StackPane;
-import javafx.scene.text.Font;
 import sokoban.model.GameElement;
 import sokoban.model.Goal;
+import sokoban.model.ImageRegistry;
 import sokoban.viewmodel.CellViewModel;
 
 import java.util.List;
@@ -21,9 +19,9 @@ import java.util.List;
 public abstract class CellView extends StackPane {
 
     // Images des différents éléments de jeu
-    protected static final Image box = new Image("box.png");
-    protected static final Image ground = new Image("ground.png");
-    protected static final Image goal = new Image("goal.png");
+    protected static final Image box = ImageRegistry.get(ImageRegistry.BOX);
+    protected static final Image ground = ImageRegistry.get(ImageRegistry.GROUND);
+    protected static final Image goal = ImageRegistry.get(ImageRegistry.GOAL);
 
     protected final CellViewModel viewModel;
     protected final DoubleBinding width;
@@ -36,6 +34,8 @@ public abstract class CellView extends StackPane {
     protected ImageView imageView = new ImageView();
     protected ImageView midImageView = new ImageView();
     protected ImageView topImageView = new ImageView();
+    // Numéro de la boîte ou du but, image partagée par les cellules (voir NumberGlyphs)
+    protected ImageView numberView = new ImageView();
 
     /**
      * Constructeur pour CellView.
@@ -48,6 +48,9 @@ public abstract class CellView extends StackPane {
         this.width = cellWidthProperty;
         this.height = cellHeightProperty;
         setAlignment(Pos.CENTER);
+        numberView.setPreserveRatio(true);
+        numberView.fitHeightProperty().bind(width.multiply(NumberGlyphs.HEIGHT_RATIO));
+        stackPane.getChildren().add(numberView);
         init();
 
     }
@@ -56,26 +59,19 @@ public abstract class CellView extends StackPane {
      * Gère l'affichage du numéro de la boîte s'il y a une boîte dans la cellule.
      */
     protected void handleBoxNumber() {
-        Label numberLabel = viewModel.getBoxNumberLabel();
-        if (numberLabel != null && stackPane.getChildren().isEmpty()) {
-            // Lier la taille de la police du label à la plus petite dimension de la cellule
-            numberLabel.fontProperty().bind(Bindings.createObjectBinding(() ->
-                            Font.font("Verdana", Math.min(width.get(), width.get()) / 2),
-                    width));
-            stackPane.getChildren().add(numberLabel);
-            StackPane.setAlignment(numberLabel, Pos.CENTER);
+        int number = viewModel.getBoxNumber();
+        if (number > 0) {
+            numberView.setImage(NumberGlyphs.image(number));
         }
     }
 
+    /**
+     * Gère l'affichage du numéro du but, si la boîte n'en affiche pas déjà un.
+     */
     protected void handleGoalNumber() {
-        Label label = viewModel.getGoalNumberLabel();
-        if (label != null) {
-            // Lier la taille de la police du label à la plus petite dimension de la cellule
-            label.fontProperty().bind(Bindings.createObjectBinding(() ->
-                            Font.font("Verdana", Math.min(width.get(), width.get()) / 2),
-                    width));
-            stackPane.getChildren().add(label);
-            StackPane.setAlignment(label, Pos.CENTER);
+        int number = viewModel.getGoalNumber();
+        if (number > 0 && numberView.getImage() == null) {
+            numberView.setImage(NumberGlyphs.image(number));
         }
     }
 
@@ -113,7 +109,7 @@ public abstract class CellView extends StackPane {
     protected void setImage(List<GameElement> elements) {
         midImageView.setImage(null);
         topImageView.setImage(null);
-        stackPane.getChildren().clear();
+        numberView.setImage(null);
 
 
         if (elements.size() > 2 && elements.get(1) instanceof Goal) {
@@ -30,8 +30,10 @@ public class CellView4Play extends CellView{
             viewModel.placeMushroom();
             viewModel.addBoardHistory();
         });
+    }
 
-        // Écoutez les changements dans les cellules
-        viewModel.valueProperty().addListener((obs, old, newVal) -> setImage(newVal));
+    // Redessine la cellule, appelé par GridView4Play pour les seules cellules changées
+    void refresh() {
+        setImage(viewModel.valueProperty());
     }
 }
\ No newline at end of file
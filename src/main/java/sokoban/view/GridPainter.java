@@ -0,0 +1,166 @@
+package sokoban.view;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import sokoban.model.CellState;
+import sokoban.model.ImageRegistry;
+import sokoban.model.PlayState;
+
+/**
+ * The GridPainter class draws a play grid on a GraphicsContext straight from the codes of its PlayState,
+ * with the same images and stacking as CellView: ground, then what stands on it, the number of the box
+ * or of the goal, and the goal above a box or the player.
+ * <p>
+ * A cell is a few drawImage calls, with no node and no binding, so a whole frame of a 50x50 board
+ * is a few thousand commands recorded in the buffer of the canvas.
+ */
+public final class GridPainter {
+
+    private final Image ground;
+    private final Image wall;
+    private final Image goal;
+    private final Image box;
+    private final Image player;
+    private final Image mushroom;
+
+    private final NumberGlyphs numbers = new NumberGlyphs();
+
+    /**
+     * Constructor of a painter with the given images of the game elements.
+     */
+    public GridPainter(Image ground, Image wall, Image goal, Image box, Image player, Image mushroom) {
+        this.ground = ground;
+        this.wall = wall;
+        this.goal = goal;
+        this.box = box;
+        this.player = player;
+        this.mushroom = mushroom;
+    }
+
+    /**
+     * Creates a painter with the images of the ImageRegistry, the ones of the views of the cells.
+     *
+     * @return The painter.
+     */
+    public static GridPainter ofRegistry() {
+        return new GridPainter(ImageRegistry.get(ImageRegistry.GROUND), ImageRegistry.get(ImageRegistry.WALL),
+                ImageRegistry.get(ImageRegistry.GOAL), ImageRegistry.get(ImageRegistry.BOX),
+                ImageRegistry.get(ImageRegistry.PLAYER), ImageRegistry.get(ImageRegistry.MUSHROOM));
+    }
+
+    /**
+     * Draws the whole grid, from the top left corner of the context.
+     *
+     * @param gc       The context to draw on.
+     * @param state    The position to draw.
+     * @param cellSize The side of a cell, in pixels.
+     */
+    public void paint(GraphicsContext gc, PlayState state, double cellSize) {
+        paintViewport(gc, state, 0, 0, cellSize);
+    }
+
+    /**
+     * Draws the part of the grid seen through the context, the top left corner of the grid being at the
+     * given origin, which may be outside of the context. Only the cells in the context are drawn, so the
+     * cost depends on the size of the context and of the cells, not on the size of the grid.
+     *
+     * @param gc       The context to draw on.
+     * @param state    The position to draw.
+     * @param originX  The abscissa of the top left corner of the grid in the context.
+     * @param originY  The ordinate of the top left corner of the grid in the context.
+     * @param cellSize The side of a cell, in pixels.
+     * @return The number of cells drawn.
+     */
+    public int paintViewport(GraphicsContext gc, PlayState state, double originX, double originY, double cellSize) {
+        double width = gc.getCanvas().getWidth();
+        double height = gc.getCanvas().getHeight();
+        // Clearing the whole canvas also drops the commands of the previous frames not rendered yet
+        gc.clearRect(0, 0, width, height);
+        int firstCol = Math.max(0, (int) Math.floor(-originX / cellSize));
+        int lastCol = Math.min(state.getWidth(), (int) Math.ceil((width - originX) / cellSize));
+        int firstLine = Math.max(0, (int) Math.floor(-originY / cellSize));
+        int lastLine = Math.min(state.getHeight(), (int) Math.ceil((height - originY) / cellSize));
+        for (int line = firstLine; line < lastLine; line++) {
+            for (int col = firstCol; col < lastCol; col++) {
+                drawCell(gc, state, line * state.getWidth() + col, originX + col * cellSize,
+                        originY + line * cellSize, cellSize);
+            }
+        }
+        return Math.max(0, lastLine - firstLine) * Math.max(0, lastCol - firstCol);
+    }
+
+    /**
+     * Draws a cell of the grid over its previous content.
+     *
+     * @param gc       The context to draw on.
+     * @param state    The position to draw.
+     * @param index    The index of the cell.
+     * @param cellSize The side of a cell, in pixels.
+     */
+    public void paintCell(GraphicsContext gc, PlayState state, int index, double cellSize) {
+        paintCell(gc, state, index, 0, 0, cellSize);
+    }
+
+    /**
+     * Draws a cell of the grid over its previous content, if it is in the context,
+     * the top left corner of the grid being at the given origin (see paintViewport).
+     *
+     * @param gc       The context to draw on.
+     * @param state    The position to draw.
+     * @param index    The index of the cell.
+     * @param originX  The abscissa of the top left corner of the grid in the context.
+     * @param originY  The ordinate of the top left corner of the grid in the context.
+     * @param cellSize The side of a cell, in pixels.
+     * @return true if the cell was drawn, false if it is out of the context.
+     */
+    public boolean paintCell(GraphicsContext gc, PlayState state, int index, double originX, double originY,
+                             double cellSize) {
+        double x = originX + index % state.getWidth() * cellSize;
+        double y = originY + index / state.getWidth() * cellSize;
+        if (x + cellSize <= 0 || y + cellSize <= 0 || x >= gc.getCanvas().getWidth() || y >= gc.getCanvas().getHeight()) {
+            return false;
+        }
+        gc.clearRect(x, y, cellSize, cellSize);
+        drawCell(gc, state, index, x, y, cellSize);
+        return true;
+    }
+
+    private void drawCell(GraphicsContext gc, PlayState state, int index, double x, double y, double cellSize) {
+        byte code = state.getCell(index);
+        boolean hasPlayer = CellState.has(code, CellState.PLAYER);
+
+        gc.drawImage(ground, x, y, cellSize, cellSize);
+        if (CellState.has(code, CellState.WALL)) {
+            gc.drawImage(wall, x, y, cellSize, cellSize);
+            return;
+        }
+        if (CellState.has(code, CellState.MUSHROOM)) {
+            // A hidden mushroom looks like the ground, a visible one stands above the player
+            if (hasPlayer) {
+                gc.drawImage(player, x, y, cellSize, cellSize);
+            }
+            if (state.isMushroomVisible()) {
+                gc.drawImage(mushroom, x, y, cellSize, cellSize);
+            }
+            return;
+        }
+        boolean hasBox = CellState.has(code, CellState.BOX);
+        boolean hasGoal = CellState.has(code, CellState.GOAL);
+        if (hasBox) {
+            gc.drawImage(box, x, y, cellSize, cellSize);
+        } else if (hasPlayer) {
+            gc.drawImage(player, x, y, cellSize, cellSize);
+        }
+        if (hasGoal && !hasBox && !hasPlayer) {
+            gc.drawImage(goal, x, y, cellSize, cellSize);
+        }
+        int number = hasBox && state.getBoxNumber(index) > 0 ? state.getBoxNumber(index)
+                : hasGoal ? state.getGoalNumber(index) : 0;
+        if (number > 0) {
+            numbers.draw(gc, number, x + cellSize / 2, y + cellSize / 2, cellSize);
+        }
+        if (hasGoal && (hasBox || hasPlayer)) {
+            gc.drawImage(goal, x, y, cellSize, cellSize);
+        }
+    }
+}
@@ -1,17 +1,27 @@
 package sokoban.view;
 
 import javafx.beans.binding.DoubleBinding;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
 import javafx.geometry.Insets;
 import javafx.scene.layout.*;
 import sokoban.viewmodel.BoardViewModel;
 import sokoban.viewmodel.GridViewModel;
 
 public abstract class GridView extends GridPane {
+    /**
+     * Largest side of the play grids shown by default with a node per cell, the larger ones are shown
+     * through a GridView4Viewport.
+     */
+    static final int MAX_NODE_GRID_SIZE = 50;
+
     protected int gridWidth;
     protected int gridHeight;
     protected DoubleBinding boardWidth;
     protected DoubleBinding boardHeight;
     protected GridViewModel gridViewModel;
+    // Number of cells drawn again by the last repaint of the play grid
+    protected final ReadOnlyIntegerWrapper repaintedCells = new ReadOnlyIntegerWrapper();
 
     GridView(GridViewModel gridViewModel, DoubleBinding gridWidth, DoubleBinding gridHeight) {
         this.gridViewModel = gridViewModel;
@@ -20,4 +30,43 @@ public abstract class GridView extends GridPane {
         this.gridWidth = gridViewModel.gridWidth();
         this.gridHeight = gridViewModel.gridHeight();
     }
+
+    /**
+     * Creates the view of the play grid chosen by the system property sokoban.renderer:
+     * canvas for a GridView4Canvas, viewport for a GridView4Viewport, nodes for a GridView4Play
+     * with a node per cell. By default, a GridView4Play up to MAX_NODE_GRID_SIZE cells per side,
+     * and a GridView4Viewport for the larger grids.
+     */
+    static GridView forPlay(GridViewModel gridViewModel, DoubleBinding gridWidth, DoubleBinding gridHeight) {
+        String renderer = System.getProperty("sokoban.renderer");
+        if (renderer == null) {
+            boolean large = gridViewModel.gridWidth() > MAX_NODE_GRID_SIZE || gridViewModel.gridHeight() > MAX_NODE_GRID_SIZE;
+            renderer = large ? "viewport" : "nodes";
+        }
+        return switch (renderer) {
+            case "canvas" -> new GridView4Canvas(gridViewModel, gridWidth, gridHeight);
+            case "viewport" -> new GridView4Viewport(gridViewModel, gridWidth, gridHeight);
+            default -> new GridView4Play(gridViewModel, gridWidth, gridHeight);
+        };
+    }
+
+    /**
+     * Property holding the number of cells drawn again by the last repaint, once per pulse after an action
+     * (a move, an undo, the boxes moved by the mushroom...).
+     */
+    public ReadOnlyIntegerProperty repaintedCellsProperty() {
+        return repaintedCells.getReadOnlyProperty();
+    }
+
+    /**
+     * Shows the cells of the grid again, such as after the numbers of the goals changed.
+     */
+    public abstract void fillGrid(GridViewModel gridViewModel, DoubleBinding boardWidth, DoubleBinding boardHeight);
+
+    /**
+     * Detaches the view from the bindings of the board and from the view model, which outlive it,
+     * when the view is closed. Nothing to detach by default.
+     */
+    public void dispose() {
+    }
 }
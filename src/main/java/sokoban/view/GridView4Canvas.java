@@ -0,0 +1,96 @@
+package sokoban.view;
+
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.binding.DoubleBinding;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.input.MouseEvent;
+import sokoban.model.ChangedCells;
+import sokoban.viewmodel.CellViewModel;
+import sokoban.viewmodel.GridViewModel;
+
+/**
+ * Play grid drawn on a single Canvas by a GridPainter, instead of a CellView4Play per cell as in GridView4Play.
+ * The scene graph holds one node whatever the size of the board, so resizing the window lays out one node.
+ * After an action, only the cells changed by the model (see Grid4Play.getChanges) are drawn again,
+ * once per pulse; the whole grid is drawn again only when the size of the cells changes.
+ * <p>
+ * Chosen with the system property sokoban.renderer=canvas (see GridView.forPlay).
+ */
+public class GridView4Canvas extends GridView {
+    private final Canvas canvas = new Canvas();
+    private final GridPainter painter = GridPainter.ofRegistry();
+    private final InvalidationListener repaintListener = observable -> scheduleRepaint();
+    private boolean repaintScheduled;
+    private double paintedCellSize = -1; // Side of the cells drawn on the canvas, -1 to draw the whole grid
+
+    public GridView4Canvas(GridViewModel gridViewModel, DoubleBinding gridWidth, DoubleBinding gridHeight) {
+        super(gridViewModel, gridWidth, gridHeight);
+        add(canvas, 0, 0);
+        // Un clic sur une cellule la joue, comme dans CellView4Play
+        canvas.setOnMouseClicked(this::cellClicked);
+        gridViewModel.revisionProperty().addListener(repaintListener);
+        fillGrid(gridViewModel, gridWidth, gridHeight);
+    }
+
+    @Override
+    public void fillGrid(GridViewModel gridViewModel, DoubleBinding boardWidth, DoubleBinding boardHeight) {
+        boardWidth.removeListener(repaintListener);
+        boardHeight.removeListener(repaintListener);
+        boardWidth.addListener(repaintListener);
+        boardHeight.addListener(repaintListener);
+        paintedCellSize = -1;
+        repaint();
+    }
+
+    @Override
+    public void dispose() {
+        boardWidth.removeListener(repaintListener);
+        boardHeight.removeListener(repaintListener);
+        gridViewModel.revisionProperty().removeListener(repaintListener);
+    }
+
+    // Side of a cell: the whole grid fits in the space given to the board
+    private double cellSize() {
+        return Math.floor(Math.min(boardWidth.get() / gridWidth, boardHeight.get() / gridHeight));
+    }
+
+    private void scheduleRepaint() {
+        if (!repaintScheduled) {
+            repaintScheduled = true;
+            Platform.runLater(this::repaint);
+        }
+    }
+
+    private void repaint() {
+        repaintScheduled = false;
+        double cellSize = cellSize();
+        ChangedCells changes = gridViewModel.getChanges();
+        if (cellSize != paintedCellSize) {
+            canvas.setWidth(cellSize * gridWidth);
+            canvas.setHeight(cellSize * gridHeight);
+            painter.paint(canvas.getGraphicsContext2D(), gridViewModel.getPlayState(), cellSize);
+            paintedCellSize = cellSize;
+            repaintedCells.set(gridWidth * gridHeight);
+        } else {
+            for (int i = 0; i < changes.size(); i++) {
+                painter.paintCell(canvas.getGraphicsContext2D(), gridViewModel.getPlayState(), changes.get(i), cellSize);
+            }
+            repaintedCells.set(changes.size());
+        }
+        gridViewModel.clearChanges();
+    }
+
+    private void cellClicked(MouseEvent event) {
+        double cellSize = cellSize();
+        int line = (int) (event.getY() / cellSize);
+        int col = (int) (event.getX() / cellSize);
+        if (line >= gridHeight || col >= gridWidth) {
+            return;
+        }
+        CellViewModel viewModel = gridViewModel.getCellViewModel(line, col);
+        viewModel.isMushroom();
+        viewModel.placeMushroom();
+        viewModel.addBoardHistory();
+    }
+}
@@ -12,6 +12,7 @@ public class GridView4Design extends GridView{
         fillGrid(gridViewModel, gridWidth, gridHeight);
     }
 
+    @Override
     public void fillGrid(GridViewModel gridViewModel, DoubleBinding boardWidth, DoubleBinding boardHeight) {
         //taille de chaque cellule
         DoubleBinding cellWidth = boardWidth
@@ -1,15 +1,25 @@
 package sokoban.view;
 
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
 import javafx.beans.binding.DoubleBinding;
-import javafx.geometry.Insets;
+import sokoban.model.ChangedCells;
 import sokoban.viewmodel.GridViewModel;
 
 public class GridView4Play extends GridView{
+    // Vues des cellules, par index de cellule (ligne * largeur + colonne)
+    private CellView4Play[] cellViews;
+    private boolean repaintScheduled;
+    private final InvalidationListener repaintListener = observable -> scheduleRepaint();
+
     public GridView4Play(GridViewModel gridViewModel, DoubleBinding gridWidth, DoubleBinding gridHeight) {
         super(gridViewModel, gridWidth, gridHeight);
         fillGrid(gridViewModel, gridWidth, gridHeight);
+        // Seules les cellules changées par une action sont redessinées, une fois par pulse
+        gridViewModel.revisionProperty().addListener(repaintListener);
 }
 
+    @Override
     public void fillGrid(GridViewModel gridViewModel, DoubleBinding boardWidth, DoubleBinding boardHeight) {
         //taille de chaque cellule
         DoubleBinding cellWidth = boardWidth
@@ -18,12 +28,38 @@ public class GridView4Play extends GridView{
                 .divide(gridHeight);
 
         // Remplissage de la grille
+        getChildren().clear();
+        cellViews = new CellView4Play[gridWidth * gridHeight];
         for (int i = 0; i < gridHeight; ++i) {
             for (int j = 0; j < gridWidth; ++j) {
                 CellView4Play cellView = new CellView4Play(gridViewModel.getCellViewModel(i, j), cellWidth, cellHeight);
+                cellViews[i * gridWidth + j] = cellView;
                 add(cellView, j, i); // lignes/colonnes inversées dans gridpane
             }
         }
+        gridViewModel.clearChanges();
+        repaintedCells.set(cellViews.length);
+    }
+
+    @Override
+    public void dispose() {
+        gridViewModel.revisionProperty().removeListener(repaintListener);
+    }
+
+    private void scheduleRepaint() {
+        if (!repaintScheduled) {
+            repaintScheduled = true;
+            Platform.runLater(this::repaint);
+        }
     }
 
+    private void repaint() {
+        repaintScheduled = false;
+        ChangedCells changes = gridViewModel.getChanges();
+        for (int i = 0; i < changes.size(); i++) {
+            cellViews[changes.get(i)].refresh();
+        }
+        repaintedCells.set(changes.size());
+        gridViewModel.clearChanges();
+    }
 }
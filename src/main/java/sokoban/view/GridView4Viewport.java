@@ -0,0 +1,225 @@
+package sokoban.view;
+
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.binding.DoubleBinding;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.input.ZoomEvent;
+import sokoban.model.ChangedCells;
+import sokoban.model.PlayState;
+import sokoban.viewmodel.CellViewModel;
+import sokoban.viewmodel.GridViewModel;
+
+/**
+ * Play grid seen through a viewport the size of the space given to the board, for the boards too large to
+ * fit in the window: a Canvas of that size on which the GridPainter draws only the visible cells, so the
+ * memory and the time of a frame depend on the size of the window and of the cells, not on the size of
+ * the board. The cells of the model get no view (see Grid4Play.getValues).
+ * <p>
+ * The wheel or a pinch zooms around the pointer, dragging the board pans it, and the view follows the
+ * player: when a move takes it near the border of the viewport, the viewport is centered on it again.
+ * Between two moves, only the visible cells changed by the model are drawn again.
+ * <p>
+ * Chosen with the system property sokoban.renderer=viewport, and by default for the boards
+ * larger than GridView.MAX_NODE_GRID_SIZE (see GridView.forPlay).
+ */
+public class GridView4Viewport extends GridView {
+    // Bounds of the side of the cells, in pixels: the smallest bounds the number of cells of a frame
+    private static final double MIN_CELL_SIZE = 4;
+    private static final double MAX_CELL_SIZE = 128;
+    // Side of the cells at first, when the whole board does not fit in the viewport
+    private static final double DEFAULT_CELL_SIZE = 24;
+    // Cells kept between the player and the border of the viewport before it is centered again
+    private static final int FOLLOW_MARGIN = 2;
+
+    private final Canvas canvas = new Canvas();
+    private final GridPainter painter = GridPainter.ofRegistry();
+    private final InvalidationListener resizeListener = observable -> scheduleRepaint(true);
+    private final InvalidationListener revisionListener = observable -> scheduleRepaint(false);
+    private boolean repaintScheduled;
+    private boolean fullRepaint = true;
+
+    // Zoom (side of the cells, continuous) and position of the top left corner of the grid in the viewport
+    private double zoom = -1;
+    private double originX;
+    private double originY;
+
+    // Position of the pointer when the board is dragged, and whether the last press dragged the board
+    private double dragX;
+    private double dragY;
+    private boolean dragged;
+
+    public GridView4Viewport(GridViewModel gridViewModel, DoubleBinding gridWidth, DoubleBinding gridHeight) {
+        super(gridViewModel, gridWidth, gridHeight);
+        add(canvas, 0, 0);
+        canvas.setOnScroll(this::scrolled);
+        canvas.setOnZoom(this::zoomed);
+        canvas.setOnMousePressed(this::pressed);
+        canvas.setOnMouseDragged(this::dragged);
+        // Un clic sur une cellule la joue, comme dans CellView4Play, sauf à la fin d'un glissement
+        canvas.setOnMouseClicked(this::cellClicked);
+        gridViewModel.revisionProperty().addListener(revisionListener);
+        fillGrid(gridViewModel, gridWidth, gridHeight);
+    }
+
+    @Override
+    public void fillGrid(GridViewModel gridViewModel, DoubleBinding boardWidth, DoubleBinding boardHeight) {
+        boardWidth.removeListener(resizeListener);
+        boardHeight.removeListener(resizeListener);
+        boardWidth.addListener(resizeListener);
+        boardHeight.addListener(resizeListener);
+        scheduleRepaint(true);
+    }
+
+    @Override
+    public void dispose() {
+        boardWidth.removeListener(resizeListener);
+        boardHeight.removeListener(resizeListener);
+        gridViewModel.revisionProperty().removeListener(revisionListener);
+    }
+
+    // Side of the cells as drawn: whole pixels, so that the tiles leave no seam between them
+    private double cellSize() {
+        return Math.round(zoom);
+    }
+
+    private void scheduleRepaint(boolean full) {
+        fullRepaint |= full;
+        if (!repaintScheduled) {
+            repaintScheduled = true;
+            Platform.runLater(this::repaint);
+        }
+    }
+
+    private void repaint() {
+        repaintScheduled = false;
+        PlayState state = gridViewModel.getPlayState();
+        if (canvas.getWidth() != boardWidth.get() || canvas.getHeight() != boardHeight.get()) {
+            canvas.setWidth(boardWidth.get());
+            canvas.setHeight(boardHeight.get());
+            fullRepaint = true;
+        }
+        if (zoom < 0) {
+            // The whole board if it fits with readable cells, otherwise a part of it around the player
+            double fit = Math.floor(Math.min(canvas.getWidth() / gridWidth, canvas.getHeight() / gridHeight));
+            zoom = fit >= DEFAULT_CELL_SIZE ? Math.min(fit, MAX_CELL_SIZE) : DEFAULT_CELL_SIZE;
+            originX = Math.floor((canvas.getWidth() - cellSize() * gridWidth) / 2);
+            originY = Math.floor((canvas.getHeight() - cellSize() * gridHeight) / 2);
+        }
+        if (followPlayer(state)) {
+            fullRepaint = true;
+        }
+
+        ChangedCells changes = gridViewModel.getChanges();
+        if (fullRepaint) {
+            repaintedCells.set(painter.paintViewport(canvas.getGraphicsContext2D(), state, originX, originY, cellSize()));
+            fullRepaint = false;
+        } else {
+            int repainted = 0;
+            for (int i = 0; i < changes.size(); i++) {
+                if (painter.paintCell(canvas.getGraphicsContext2D(), state, changes.get(i), originX, originY, cellSize())) {
+                    repainted++;
+                }
+            }
+            repaintedCells.set(repainted);
+        }
+        gridViewModel.clearChanges();
+    }
+
+    // Centers the viewport on the player when it came near its border; returns true if the viewport moved
+    private boolean followPlayer(PlayState state) {
+        int player = state.getPlayer();
+        if (player < 0) {
+            return false;
+        }
+        double cellSize = cellSize();
+        double x = originX + player % gridWidth * cellSize;
+        double y = originY + player / gridWidth * cellSize;
+        double margin = FOLLOW_MARGIN * cellSize;
+        double newOriginX = originX;
+        double newOriginY = originY;
+        if (x < margin || x + cellSize > canvas.getWidth() - margin) {
+            newOriginX = clampOrigin(Math.floor(canvas.getWidth() / 2 - (player % gridWidth + 0.5) * cellSize),
+                    canvas.getWidth(), gridWidth);
+        }
+        if (y < margin || y + cellSize > canvas.getHeight() - margin) {
+            newOriginY = clampOrigin(Math.floor(canvas.getHeight() / 2 - (player / gridWidth + 0.5) * cellSize),
+                    canvas.getHeight(), gridHeight);
+        }
+        // Along the border of the board, the viewport cannot move further
+        boolean moved = newOriginX != originX || newOriginY != originY;
+        originX = newOriginX;
+        originY = newOriginY;
+        return moved;
+    }
+
+    // Keeps the board in the viewport: centered if it is smaller, without empty space on a side otherwise
+    private double clampOrigin(double origin, double viewport, int cells) {
+        double size = cellSize() * cells;
+        if (size <= viewport) {
+            return Math.floor((viewport - size) / 2);
+        }
+        return Math.max(viewport - size, Math.min(0, origin));
+    }
+
+    // Zoom and pan
+
+    private void scrolled(ScrollEvent event) {
+        zoomAt(Math.pow(1.002, event.getDeltaY()), event.getX(), event.getY());
+        event.consume();
+    }
+
+    private void zoomed(ZoomEvent event) {
+        zoomAt(event.getZoomFactor(), event.getX(), event.getY());
+        event.consume();
+    }
+
+    // Zooms by a factor, the point of the board under the pointer staying under it
+    private void zoomAt(double factor, double x, double y) {
+        double before = cellSize();
+        zoom = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, zoom * factor));
+        double after = cellSize();
+        if (after != before) {
+            originX = clampOrigin(Math.floor(x - (x - originX) * after / before), canvas.getWidth(), gridWidth);
+            originY = clampOrigin(Math.floor(y - (y - originY) * after / before), canvas.getHeight(), gridHeight);
+            scheduleRepaint(true);
+        }
+    }
+
+    private void pressed(MouseEvent event) {
+        dragX = event.getX();
+        dragY = event.getY();
+        dragged = false;
+    }
+
+    private void dragged(MouseEvent event) {
+        double x = clampOrigin(originX + Math.round(event.getX() - dragX), canvas.getWidth(), gridWidth);
+        double y = clampOrigin(originY + Math.round(event.getY() - dragY), canvas.getHeight(), gridHeight);
+        dragX = event.getX();
+        dragY = event.getY();
+        dragged = true;
+        if (x != originX || y != originY) {
+            originX = x;
+            originY = y;
+            scheduleRepaint(true);
+        }
+    }
+
+    private void cellClicked(MouseEvent event) {
+        if (dragged) {
+            return;
+        }
+        double cellSize = cellSize();
+        int line = (int) Math.floor((event.getY() - originY) / cellSize);
+        int col = (int) Math.floor((event.getX() - originX) / cellSize);
+        if (line < 0 || col < 0 || line >= gridHeight || col >= gridWidth) {
+            return;
+        }
+        CellViewModel viewModel = gridViewModel.getCellViewModel(line, col);
+        viewModel.isMushroom();
+        viewModel.placeMushroom();
+        viewModel.addBoardHistory();
+    }
+}
@@ -0,0 +1,85 @@
+package sokoban.view;
+
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import sokoban.model.LevelCollection;
+
+import java.util.AbstractList;
+
+/**
+ * The LevelChooser dialog lists the levels of a collection to choose the one to open.
+ * The list only holds the indices of the levels, and the titles are read for the visible rows only.
+ */
+public class LevelChooser {
+
+    private static int choice;
+
+    /**
+     * Shows the dialog and waits for the choice of the user.
+     *
+     * @param collection The collection to choose from.
+     * @return The index of the chosen level, or -1 if the dialog was cancelled.
+     */
+    public static int showDialog(LevelCollection collection) {
+        choice = -1;
+        Stage dialog = new Stage();
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        dialog.setTitle(collection.getPath().getFileName().toString());
+
+        Label label = new Label(collection.size() + " levels");
+        ListView<Integer> levels = new ListView<>(FXCollections.observableList(new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                return index;
+            }
+
+            @Override
+            public int size() {
+                return collection.size();
+            }
+        }));
+        levels.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(Integer index, boolean empty) {
+                super.updateItem(index, empty);
+                setText(empty || index == null ? null : (index + 1) + ". " + collection.getTitle(index));
+            }
+        });
+        levels.getSelectionModel().selectFirst();
+
+        Button okButton = new Button("Ok");
+        Button cancelButton = new Button("Cancel");
+        okButton.disableProperty().bind(levels.getSelectionModel().selectedItemProperty().isNull());
+        okButton.setOnAction(e -> {
+            choice = levels.getSelectionModel().getSelectedIndex();
+            dialog.close();
+        });
+        levels.setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2 && !levels.getSelectionModel().isEmpty()) {
+                okButton.fire();
+            }
+        });
+        cancelButton.setOnAction(e -> dialog.close());
+
+        HBox hbox = new HBox(10, okButton, cancelButton);
+        hbox.setAlignment(Pos.BASELINE_RIGHT);
+
+        VBox vbox = new VBox(10, label, levels, hbox);
+        vbox.setPadding(new Insets(10));
+
+        dialog.setScene(new Scene(vbox, 350, 450));
+        dialog.showAndWait();
+
+        return choice;
+    }
+}
@@ -16,6 +16,16 @@ import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
 
 public class NewGridView {
+    /**
+     * Smallest side of a new grid.
+     */
+    public static final int MIN_GRID_SIZE = 10;
+
+    /**
+     * Largest side of a new grid, 50 by default, set with the system property sokoban.maxGridSize
+     * for the large boards (see GridView4Viewport).
+     */
+    public static final int MAX_GRID_SIZE = Math.max(MIN_GRID_SIZE, Integer.getInteger("sokoban.maxGridSize", 50));
 
     private final BoardViewModel boardViewModel;
 
@@ -34,8 +44,8 @@ public class NewGridView {
         Button btnOk = new Button("Ok");
         Button btnCancel = new Button("Cancel");
 
-        // Validation des dimensions entre 10 et 50 avec affichage des messages d'erreur
-        String errorMessage = "Value must be between 10 and 50";
+        // Validation des dimensions entre les tailles minimale et maximale avec affichage des messages d'erreur
+        String errorMessage = "Value must be between " + MIN_GRID_SIZE + " and " + MAX_GRID_SIZE;
         Label errorLabelWidth = new Label();
         Label errorLabelHeight = new Label();
 
@@ -43,8 +53,8 @@ public class NewGridView {
             if (!newValue.matches("\\d*")) {
                 txtWidth.setText(newValue.replaceAll("[^\\d]", ""));
             }
-            int value = !newValue.isEmpty() ? Integer.parseInt(newValue) : 0;
-            if (value < 10 || value > 50) {
+            int value = parse(newValue);
+            if (value < MIN_GRID_SIZE || value > MAX_GRID_SIZE) {
                 errorLabelWidth.setText(errorMessage);
             } else {
                 errorLabelWidth.setText("");
@@ -57,8 +67,8 @@ public class NewGridView {
             if (!newValue.matches("\\d*")) {
                 txtHeight.setText(newValue.replaceAll("[^\\d]", ""));
             }
-            int value = !newValue.isEmpty() ? Integer.parseInt(newValue) : 0;
-            if (value < 10 || value > 50) {
+            int value = parse(newValue);
+            if (value < MIN_GRID_SIZE || value > MAX_GRID_SIZE) {
                 errorLabelHeight.setText(errorMessage);
             } else {
                 errorLabelHeight.setText("");
@@ -86,4 +96,17 @@ public class NewGridView {
         dialog.setScene(dialogScene);
         dialog.showAndWait();
     }
+
+    // Reads a dimension, too many digits counting as out of bounds
+    private static int parse(String text) {
+        String digits = text.replaceAll("[^\\d]", "");
+        if (digits.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(digits);
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
 }
@@ -0,0 +1,86 @@
+package sokoban.view;
+
+import javafx.geometry.VPos;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The NumberGlyphs class draws the numbers of the boxes and of the goals: black Verdana text half as high as
+ * a cell, on a white rectangle at the center of the cell. The canvas renderer draws them straight on its
+ * context; the views of the cells show an image of each number, drawn once and shared by all the cells.
+ */
+final class NumberGlyphs {
+    /**
+     * Height of the rectangle of a number, relative to the side of a cell.
+     */
+    static final double HEIGHT_RATIO = 0.6;
+
+    // Side of the tiles of the ImageRegistry: the images of the numbers are drawn at the same scale
+    private static final double TILE = 64;
+
+    // Images of the numbers, drawn on first use
+    private static final Map<Integer, Image> images = new HashMap<>();
+    private static final NumberGlyphs tileGlyphs = new NumberGlyphs();
+
+    // Font of the numbers, created again only when the size of the cells changes
+    private Font font;
+    private double fontCellSize;
+
+    /**
+     * Draws a number centered on a point.
+     *
+     * @param gc       The context to draw on.
+     * @param number   The number to draw.
+     * @param centerX  The abscissa of the center of the number.
+     * @param centerY  The ordinate of the center of the number.
+     * @param cellSize The side of a cell, in pixels.
+     */
+    void draw(GraphicsContext gc, int number, double centerX, double centerY, double cellSize) {
+        if (font == null || fontCellSize != cellSize) {
+            font = Font.font("Verdana", cellSize / 2);
+            fontCellSize = cellSize;
+        }
+        String text = String.valueOf(number);
+        double width = width(text, cellSize);
+        double height = HEIGHT_RATIO * cellSize;
+        gc.setFill(Color.WHITE);
+        gc.fillRect(centerX - width / 2, centerY - height / 2, width, height);
+        gc.setFill(Color.BLACK);
+        gc.setFont(font);
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.fillText(text, centerX, centerY);
+    }
+
+    // Width of the rectangle of a number: a digit is about 0.6 em wide, plus a margin
+    private static double width(String text, double cellSize) {
+        return (0.6 * text.length() + 0.6) * cellSize / 2;
+    }
+
+    /**
+     * Gets the image of a number, of the scale of the tiles of the game elements: shown HEIGHT_RATIO
+     * times as high as a cell, it looks like a number drawn by draw. Must be called on the JavaFX thread.
+     *
+     * @param number The number.
+     * @return The image, the same for all the calls with this number.
+     */
+    static Image image(int number) {
+        return images.computeIfAbsent(number, n -> {
+            double width = Math.ceil(width(String.valueOf(n), TILE));
+            double height = Math.ceil(HEIGHT_RATIO * TILE);
+            Canvas canvas = new Canvas(width, height);
+            tileGlyphs.draw(canvas.getGraphicsContext2D(), n, width / 2, height / 2, TILE);
+            SnapshotParameters parameters = new SnapshotParameters();
+            parameters.setFill(Color.TRANSPARENT);
+            return canvas.snapshot(parameters, null);
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package sokoban.view;
+
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
+
+import java.util.Optional;
+
+/**
+ * The RestoreConfirm dialog offers to restore the work found in the journal at start-up,
+ * left unsaved by a crash or an exit without saving.
+ */
+public class RestoreConfirm {
+
+    /**
+     * Shows the dialog and waits for the choice of the user.
+     *
+     * @return true to restore the work, false to start with an empty board.
+     */
+    public static boolean showDialog() {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "", ButtonType.YES, ButtonType.NO);
+        alert.setTitle("Restore");
+        alert.setHeaderText("Your last work was not saved.");
+        alert.setContentText("Do you want to restore it?");
+        Optional<ButtonType> response = alert.showAndWait();
+        return response.isPresent() && response.get() == ButtonType.YES;
+    }
+}
@@ -1,5 +1,6 @@
 package sokoban.view;
 
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -45,7 +46,11 @@ public class SaveConfirm {
                 BoardViewModel boardVM = new BoardViewModel(board);
                 Grid grid = boardVM.getBoard().getGrid();
                 GridViewModel gvm = boardVM.getGridViewModel();
-                gvm.saveMenu(grid, selectedFile);
+                gvm.saveMenu(grid, selectedFile).whenComplete((result, error) -> {
+                    if (error != null) {
+                        Platform.runLater(() -> BoardView.showSaveError(selectedFile, error));
+                    }
+                });
             }
         });
 
@@ -18,11 +18,11 @@ import sokoban.model.*;
 public class ToolView extends FlowPane {
 
     private static final Image[] images = {
-            new Image("ground.png"),
-            new Image("goal.png"),
-            new Image("wall.png"),
-            new Image("player.png"),
-            new Image("box.png")
+            ImageRegistry.get(ImageRegistry.GROUND),
+            ImageRegistry.get(ImageRegistry.GOAL),
+            ImageRegistry.get(ImageRegistry.WALL),
+            ImageRegistry.get(ImageRegistry.PLAYER),
+            ImageRegistry.get(ImageRegistry.BOX)
     };
 
     public ToolView() {
@@ -100,13 +100,13 @@ public class ToolView extends FlowPane {
     public  static GameElement determineToolFromImageView(ImageView imageView) {
         Image image = imageView.getImage();
         if (image == images[0]) {
-            return new Ground();
+            return Ground.INSTANCE;
         } else if (image == images[1]) {
             return new Goal();
         } else if (image == images[2]) {
-            return new Wall();
+            return Wall.INSTANCE;
         } else if (image == images[3]) {
-            return new Player();
+            return Player.INSTANCE;
         } else if (image == images[4]) {
             Box box = new Box();
             return box;
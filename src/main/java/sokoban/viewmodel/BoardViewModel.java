@@ -1,13 +1,21 @@
 package sokoban.viewmodel;
 
+import javafx.application.Platform;
 import javafx.beans.binding.BooleanBinding;
-import javafx.beans.binding.LongBinding;
 import javafx.beans.property.*;
 import sokoban.model.*;
+import sokoban.solver.SolutionValidator;
+import sokoban.solver.Solver;
+import sokoban.solver.SolverResult;
+import sokoban.solver.ValidationResult;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.List;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 
 public class BoardViewModel {
 
@@ -15,6 +23,9 @@ public class BoardViewModel {
     private GridState gridState;
     private Board board;
     private Grid4Design saveGridDesign;
+    private PlayState playStart; // Position at the start of the game, to compact the journal
+    private Runnable onGridReplaced; // Shows the grid again when a level reloaded from disk changed size
+    private final Solver solver = new Solver();
 
     /**
      * Constructor initializing the BoardViewModel with the given Board
@@ -41,23 +52,23 @@ public class BoardViewModel {
         return board.moveCountProperty();
     }
 
-    public LongBinding filledCellsCountProperty() {
+    public ReadOnlyLongProperty filledCellsCountProperty() {
         return board.filledCellsCountProperty();
     }
 
-    public LongBinding boxCountProperty() {
+    public ReadOnlyLongProperty boxCountProperty() {
         return board.boxCountProperty();
     }
 
-    public LongBinding goalCountProperty() {
+    public ReadOnlyLongProperty goalCountProperty() {
         return board.goalCountProperty();
     }
 
-    public LongBinding playerCountProperty() {
+    public ReadOnlyLongProperty playerCountProperty() {
         return board.playerCountProperty();
     }
 
-    public LongBinding boxInTargetCountProperty() {
+    public ReadOnlyLongProperty boxInTargetCountProperty() {
         return board.boxInTargetCountProperty();
     }
 
@@ -99,7 +110,7 @@ public class BoardViewModel {
      * Exits the application
      */
     public static void exitMenu() {
-        System.exit(0);
+        System.exit(0); // The journal is written to the end by the shutdown hook of SokobanApp
     }
 
     /**
@@ -111,6 +122,9 @@ public class BoardViewModel {
     public void newGridMenu(int width, int height) {
         board.setGrid(new Grid4Design(width, height));
         board.configureBindings();
+        if (board.getJournal() != null) {
+            board.getJournal().clear();
+        }
     }
 
     /**
@@ -123,6 +137,115 @@ public class BoardViewModel {
          return board.open(file);
     }
 
+    /**
+     * Opens a level of a collection, from the LevelCache if it was read already
+     *
+     * @param collection the collection holding the level
+     * @param index      the index of the level in the collection
+     * @return the opened Grid
+     * @throws IOException if the file of the collection cannot be read
+     */
+    public Grid openLevel(LevelCollection collection, int index) throws IOException {
+        return board.open(LevelCache.getShared().get(collection, index));
+    }
+
+    /**
+     * Watches a directory of levels, to load again the level open in the editor when its file is changed
+     * outside of the game. The files are read on the thread of the library, the grid is updated on the FX thread.
+     *
+     * @param directory the directory of levels
+     * @return the library watching the directory, to close when done
+     * @throws IOException if the directory cannot be watched
+     */
+    public LevelLibrary watchLevels(Path directory) throws IOException {
+        return new LevelLibrary(directory, LevelLibrary.DEFAULT_DEBOUNCE_MILLIS,
+                (path, level) -> Platform.runLater(() -> {
+                    if (isOpenLevel(path) && !reloadLevel(path, level) && onGridReplaced != null) {
+                        onGridReplaced.run();
+                    }
+                }));
+    }
+
+    /**
+     * Sets the action showing the grid again when a level reloaded from disk replaced it
+     *
+     * @param onGridReplaced the action, run on the FX thread
+     */
+    public void setOnGridReplaced(Runnable onGridReplaced) {
+        this.onGridReplaced = onGridReplaced;
+    }
+
+    /**
+     * Checks if a level changed on disk is the one open in the editor, and can be loaded again without losing edits
+     *
+     * @param path the file of the level
+     * @return true if the level is open in the editor without unsaved changes
+     */
+    public boolean isOpenLevel(Path path) {
+        File file = board.getLevelFile();
+        return file != null && board.getGrid() instanceof Grid4Design && !isChanged()
+                && file.toPath().toAbsolutePath().normalize().equals(path.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Loads the new content of the level open in the editor, changed on disk
+     *
+     * @param path  the file of the level
+     * @param level the new content of the level
+     * @return true if only the cells were updated, false if the grid was replaced and must be shown again
+     */
+    public boolean reloadLevel(Path path, Level level) {
+        if (board.reload(level)) {
+            return true;
+        }
+        board.open(path.toFile()); // Taken from the LevelCache, where the library put the new level
+        return false;
+    }
+
+    /**
+     * Property true when the position played can no longer be solved
+     *
+     * @return the deadlock property of the play grid
+     */
+    public ReadOnlyBooleanProperty deadlockProperty() {
+        return board.getPlayGrid().deadlockProperty();
+    }
+
+    /**
+     * Looks for useless placements in the level on the grid: boxes that can never reach a target
+     * and targets that no box can reach
+     *
+     * @return the warnings, one per line, or an empty string if there is none
+     */
+    public String placementWarnings() {
+        PlayState state = board.getGrid().snapshot();
+        Deadlocks deadlocks = Deadlocks.of(state);
+        int deadBoxes = deadlocks.countDeadBoxes(state);
+        int unreachableGoals = deadlocks.countUnreachableGoals(state);
+        StringBuilder warnings = new StringBuilder();
+        if (deadBoxes > 0) {
+            warnings.append("- ").append(deadBoxes).append(deadBoxes == 1 ? " box" : " boxes")
+                    .append(" can never reach a target.");
+        }
+        if (unreachableGoals > 0) {
+            if (warnings.length() > 0) {
+                warnings.append('\n');
+            }
+            warnings.append("- ").append(unreachableGoals).append(unreachableGoals == 1 ? " target" : " targets")
+                    .append(" can never be reached by a box.");
+        }
+        return warnings.toString();
+    }
+
+    /**
+     * Searches a solution for the level on the grid, on a background thread
+     *
+     * @return the future result of the search
+     */
+    public CompletableFuture<SolverResult> checkSolvable() {
+        return solver.solveAsync(board.getGrid());
+    }
+
     // Static property to track if the model has changed
     public  BooleanProperty isChangedProperty() {
         return board.isChangedProperty();
@@ -157,147 +280,118 @@ public class BoardViewModel {
         if (endGame()) {
             return false;
         }
+        return playMove(direction);
+    }
 
+    /**
+     * Plays a move on the play grid and records it in the history and the journal, whether the game has ended or not
+     */
+    private boolean playMove(Direction direction) {
         // Save initial state if the history is empty
-        if (gridState.getBoardHistory().isEmpty()) {
+        if (gridState.isEmpty()) {
             gridState.addBoardState(board);
         }
 
-        // Find the cell containing the player
-        CellViewModel playerCell = findPlayerCell();
-        if (playerCell == null) {
-            System.out.println("Player not found!");
-            return false;
-        }
-
-        // Calculate the new position for the player
-        int newRow = playerCell.getLine() + direction.getDeltaRow();
-        int newCol = playerCell.getCol() + direction.getDeltaCol();
-
-        // Check if the new position is valid
-        if (!isValidPosition(newRow, newCol)) {
-            return false;
-        }
-
-        // Get the items in the target cell
-        List<GameElement> targetCellItems = board.getGrid().getValues(newRow, newCol);
-
-        // Check if a wall or a mushroom is blocking the way
-        if (targetCellItems.stream().anyMatch(element -> element instanceof Wall)) {
-            System.out.println("Move invalid: something is blocking the way.");
+        // Apply the move with the rules of the game
+        MoveResult result = board.getPlayGrid().movePlayer(direction);
+        if (!result.isMove()) {
             return false;
         }
 
-        // Check if the move involves pushing a box
-        if (targetCellItems.stream().anyMatch(element -> element instanceof Box)) {
-            int nextRow = newRow + direction.getDeltaRow();
-            int nextCol = newCol + direction.getDeltaCol();
-
-            // Check if the box can be pushed
-            if (!canPushBox(nextRow, nextCol) || !isValidPosition(nextRow, nextCol)) {
-                System.out.println("Move invalid: Cannot push the box.");
-                return false;
-            }
-
-            // Move the box to the next cell
-            Box box = getBox(targetCellItems);
-            if (box != null) {
-                targetCellItems.remove(box);
-                board.getGrid().getValues(nextRow, nextCol).add(box);
+        // Save the current state to the history, with the letter of the move
+        char letter = direction.getLetter(result == MoveResult.PUSHED);
+        int movesBefore = gridState.getMoveCount();
+        gridState.addBoardState(board, letter);
+
+        // The move count follows the moves of the history: one more, or less the loop closed by the move
+        incrementMoveCount(gridState.getMoveCount() - movesBefore);
+        Journal journal = board.getJournal();
+        if (journal != null) {
+            journal.move(letter);
+            if (journal.needsCompaction()) {
+                compactJournal();
             }
         }
-
-        // Move the player to the new position
-        if (targetCellItems.stream().anyMatch(gameElement -> gameElement instanceof Mushroom)){
-            targetCellItems.clear();
-            targetCellItems.add(new Ground());
-            targetCellItems.add(new Mushroom());
-        }
-        targetCellItems.add(new Player());
-
-        // Remove the player from the original cell
-        List<GameElement> playerCellItems = board.getGrid().getValues(playerCell.getLine(), playerCell.getCol());
-        if (playerCellItems.stream().anyMatch(gameElement -> gameElement instanceof Mushroom)){
-            playerCellItems.clear();
-            playerCellItems.add(new Ground());
-            playerCellItems.add(new Mushroom());
-            playerCellItems.add(new Ground());
-        }
-        playerCellItems.removeIf(element -> element instanceof Player);
-
-        // Increment the move count
-        incrementMoveCount(1);
-        boxInTargetCountProperty().invalidate();
-
-        // Save the current state to the history
-        gridState.addBoardState(board);
         return true;
     }
 
+    // Feature: Recording and replaying the moves
+
     /**
-     * Retrieves the first Box from the list of game elements
+     * Gets the moves played from the start of the level, in LURD notation
      *
-     * @param targetCellItems the list of game elements in the target cell
-     * @return the first Box found, or null if no Box is present
+     * @return the moves, or null if the position does not only come from moves (the mushroom moved the boxes)
      */
-    public Box getBox(List<GameElement> targetCellItems) {
-        return (Box) targetCellItems.stream()
-                .filter(element -> element instanceof Box)
-                .findFirst()
-                .orElse(null);
+    public String getMoves() {
+        return gridState.isEmpty() ? "" : gridState.getMoves();
     }
 
     /**
-     * Checks if the specified position is valid within the grid
+     * Gets the file proposed to save the moves: alongside the level, with the .lurd extension
      *
-     * @param row the row index
-     * @param col the column index
-     * @return true if the position is valid, false otherwise
+     * @return the file, or null if the level was not opened from a file
      */
-    public boolean isValidPosition(int row, int col) {
-        if (!board.getGrid().isValidPosition(row, col)) {
-            System.out.println("Move invalid: Position is out of bounds.");
-            return false;
-        }
-        return true;
+    public File getMovesFile() {
+        File level = board.getLevelFile();
+        return level == null ? null : SolutionValidator.solutionOf(level.toPath()).toFile();
     }
 
     /**
-     * Checks if a box can be pushed to the specified target position
+     * Saves the moves played in LURD notation, atomically on a background thread
      *
-     * @param targetRow the target row index
-     * @param targetCol the target column index
-     * @return true if the box can be pushed, false otherwise
+     * @param file the file to write
+     * @return a future completed when the file is written, or completed exceptionally if it could not be
+     * @throws IllegalStateException if the position does not only come from moves
      */
-    private boolean canPushBox(int targetRow, int targetCol) {
-        if (!board.getGrid().isValidPosition(targetRow, targetCol)) {
-            return false;
+    public CompletableFuture<Void> saveMoves(File file) {
+        String moves = getMoves();
+        if (moves == null) {
+            throw new IllegalStateException("The mushroom moved the boxes, the moves cannot be replayed.");
         }
-
-        List<GameElement> targetCellItems = board.getGrid().getValues(targetRow, targetCol);
-
-        // Check if the target cell contains only a goal or only ground elements
-        boolean containsOnlyGoal = targetCellItems.size() == 2 && targetCellItems.get(1) instanceof Goal;
-        boolean containsOnlyGround = targetCellItems.stream().allMatch(element -> element instanceof Ground);
-
-        return containsOnlyGoal || containsOnlyGround;
+        return GridViewModel.write(file.toPath(), StandardCharsets.UTF_8.encode(moves + System.lineSeparator()));
     }
 
     /**
-     * Finds the cell containing the player
+     * Loads moves in LURD notation and plays them from the start of the level, if they are valid
      *
-     * @return the CellViewModel representing the player's cell, or null if not found
-     */
-    private CellViewModel findPlayerCell() {
-        for (int row = 0; row < gridHeight(); row++) {
-            for (int col = 0; col < gridWidth(); col++) {
-                List<GameElement> cellItems = this.board.valueProperty(row, col).get();
-                if (cellItems.stream().anyMatch(element -> element instanceof Player)) {
-                    return new CellViewModel(row, col, board);
+     * @param file the file to read
+     * @return the outcome of the replay; the grid is left as it was unless the moves are valid
+     * @throws IOException if the file cannot be read
+     */
+    public ValidationResult loadMoves(File file) throws IOException {
+        String moves = Files.readString(file.toPath());
+        Grid4Play grid = board.getPlayGrid();
+        // The moves start from the first state of the history, or from the current one if nothing was played
+        int current = gridState.getCurrentIndex();
+        if (current > 0) {
+            gridState.restore(grid, 0);
+        }
+        ValidationResult result = SolutionValidator.validate(grid.getState(), moves);
+        if (result.getStatus() == ValidationResult.Status.INVALID) {
+            if (current > 0) {
+                gridState.restore(grid, current);
+            }
+            return result;
+        }
+        moveCountProperty().set(0);
+        gridState.clear();
+        int run = 0;
+        for (int i = 0; i < moves.length(); i++) {
+            char letter = moves.charAt(i);
+            if (letter >= '0' && letter <= '9') {
+                run = run * 10 + (letter - '0');
+                continue;
+            }
+            Direction direction = Direction.fromLetter(letter);
+            if (direction != null) {
+                // Played even once the level is solved or with the mushroom shown: the validator checked every move
+                for (int count = Math.max(run, 1); count > 0; count--) {
+                    playMove(direction);
                 }
+                run = 0;
             }
         }
-        return null;
+        return result;
     }
 
     /**
@@ -319,18 +413,14 @@ public class BoardViewModel {
             return;
         }
 
-        if (gridState.hasPreviousState()) {
-            Board previousBoard = gridState.getPreviousState();
-            if (previousBoard == null) {
-                System.out.println("Empty grid");
-                return;
-            }
-            board.getGrid().copy(previousBoard.getGrid());
-
-            // Decrement the move count (or update accordingly)
-            if (moveCountProperty().get() > 0) {
-                incrementMoveCount(-1);
+        // Only the cells changed by the last move are put back
+        int movesBefore = gridState.getMoveCount();
+        if (gridState.undo(board.getPlayGrid())) {
+            if (board.getJournal() != null) {
+                board.getJournal().undo();
             }
+            // One move less, none if the state undone did not come from a move
+            incrementMoveCount(gridState.getMoveCount() - movesBefore);
         }
     }
 
@@ -342,16 +432,13 @@ public class BoardViewModel {
             return;
         }
 
-        if (gridState.hasNextState()) {
-            Board nextBoard = gridState.getNextState();
-            if (nextBoard == null) {
-                System.out.println("Empty grid");
-                return;
+        int movesBefore = gridState.getMoveCount();
+        if (gridState.redo(board.getPlayGrid())) {
+            if (board.getJournal() != null) {
+                board.getJournal().redo();
             }
-            board.getGrid().copy(nextBoard.getGrid());
-
-            // Increment the move count (or update accordingly)
-            incrementMoveCount(1);
+            // One move more, none if the state redone did not come from a move
+            incrementMoveCount(gridState.getMoveCount() - movesBefore);
         }
     }
 
@@ -364,10 +451,28 @@ public class BoardViewModel {
      */
     public Grid4Play gridGame() {
         Grid4Play gridGame = new Grid4Play(gridWidth(), gridHeight());
-        gridGame.copy(board.getGrid());
-        boxNumber(gridGame);
-        goalNumber(gridGame);
-        mushroom(gridGame);
+        // The copy, the numbers and the mushroom change the whole grid: the views and the counters are updated once
+        gridGame.beginUpdate();
+        try {
+            gridGame.copy(board.getGrid());
+            boxNumber(gridGame);
+            goalNumber(gridGame);
+            mushroom(gridGame);
+        } finally {
+            gridGame.commitUpdate();
+        }
+        gridGame.computeDeadlocks();
+        // A new game starts with no history, whatever the way the previous one ended
+        gridState.clear();
+        moveCountProperty().set(0);
+        playStart = gridGame.snapshot();
+        Journal journal = board.getJournal();
+        if (journal != null) {
+            if (journal.isEmpty()) {
+                journal.design(board.getGrid().snapshot());
+            }
+            journal.play(playStart);
+        }
         return gridGame;
     }
 
@@ -377,6 +482,12 @@ public class BoardViewModel {
 
     public void goToDesign(){
         board.setGrid(this.getSaveGridDesign());
+        // The moves of the game left, won or not, must not be exported nor replayed from the next one
+        gridState.clear();
+        moveCountProperty().set(0);
+        if (board.getJournal() != null) {
+            board.getJournal().end();
+        }
     }
 
     /**
@@ -384,11 +495,11 @@ public class BoardViewModel {
      *
      * @param grid the grid to update
      */
-    public void boxNumber(Grid grid) {
+    public void boxNumber(Grid4Play grid) {
         board.boxNumber(grid);
     }
 
-    public void goalNumber(Grid grid) {
+    public void goalNumber(Grid4Play grid) {
         board.goalNumber(grid);
     }
 
@@ -397,7 +508,7 @@ public class BoardViewModel {
      *
      * @param grid the grid to update
      */
-    public void mushroom(Grid grid) {
+    public void mushroom(Grid4Play grid) {
         board.mushroom(grid);
     }
 
@@ -436,18 +547,167 @@ public class BoardViewModel {
         return saveGridDesign;
     }
 
+    // Feature: Journal of the work in progress
+
+    /**
+     * Starts the journal over with the current work: the level being designed and, during a game,
+     * the start of the game followed by the moves to the current position
+     */
+    public void compactJournal() {
+        Journal journal = board.getJournal();
+        if (journal == null) {
+            return;
+        }
+        if (!(board.getGrid() instanceof Grid4Play)) {
+            journal.design(board.getGrid().snapshot());
+            return;
+        }
+        journal.design(saveGridDesign.snapshot());
+        journal.play(playStart);
+        String moves = getMoves();
+        if (moves == null) {
+            // The mushroom moved the boxes, the position is recorded as is
+            journal.position(board.getPlayGrid().snapshot(), moveCountProperty().get(), false);
+        } else {
+            for (int i = 0; i < moves.length(); i++) {
+                journal.move(moves.charAt(i));
+            }
+        }
+        journal.markCompacted();
+    }
+
+    /**
+     * Starts the journal over with the level being designed, when a save of it failed
+     */
+    public void journalDesign() {
+        if (board.getJournal() != null && !(board.getGrid() instanceof Grid4Play)) {
+            board.getJournal().design(board.getGrid().snapshot());
+        }
+    }
+
+    /**
+     * Restores the work recorded in the journal: the level being designed, and the game being played if any,
+     * with its history rebuilt by playing the moves again
+     *
+     * @return true if a game was being played, false if the level was being designed
+     * @throws IOException if the journal cannot be read
+     */
+    public boolean restoreJournal() throws IOException {
+        Journal journal = board.getJournal();
+        if (journal == null) {
+            return false;
+        }
+        JournalRestorer restorer = new JournalRestorer();
+        board.setJournal(null);
+        try {
+            Journal.replay(journal.getPath(), restorer);
+            restorer.finish();
+        } finally {
+            board.setJournal(journal);
+        }
+        compactJournal();
+        setChanged(true);
+        return restorer.playing;
+    }
+
+    /**
+     * Applies the records of the journal to the board, through the same actions as the player.
+     */
+    private final class JournalRestorer implements Journal.Handler {
+        private PlayState design;
+        private boolean playing;
+
+        @Override
+        public void design(PlayState state) {
+            design = state;
+            playing = false;
+        }
+
+        @Override
+        public void cell(int index, byte code) {
+            if (design != null && !playing) {
+                design.setCell(index, code);
+            }
+        }
+
+        @Override
+        public void play(PlayState state) {
+            if (design == null) {
+                return;
+            }
+            board.open(Level.of(design));
+            saveGridDesign();
+            Grid4Play grid = new Grid4Play(state.getWidth(), state.getHeight());
+            grid.load(state); // Computes the dead squares of the level too
+            board.setGrid(grid);
+            board.configureBindings();
+            gridState.clear();
+            moveCountProperty().set(0);
+            playStart = state;
+            playing = true;
+        }
+
+        @Override
+        public void move(char letter) {
+            Direction direction = Direction.fromLetter(letter);
+            if (playing && direction != null) {
+                playMove(direction); // Recorded as played, such as the moves loaded after the level is solved
+            }
+        }
+
+        @Override
+        public void undo() {
+            if (playing) {
+                BoardViewModel.this.undo();
+            }
+        }
+
+        @Override
+        public void redo() {
+            if (playing) {
+                BoardViewModel.this.redo();
+            }
+        }
+
+        @Override
+        public void position(PlayState state, long moveCount, boolean history) {
+            if (!playing) {
+                return;
+            }
+            if (history && gridState.isEmpty()) {
+                gridState.addBoardState(board);
+            }
+            board.getPlayGrid().load(state); // Computes the dead squares of the level too
+            moveCountProperty().set(moveCount);
+            if (history) {
+                gridState.addBoardState(board);
+            }
+        }
+
+        @Override
+        public void end() {
+            playing = false;
+            gridState.clear();
+            moveCountProperty().set(0);
+        }
+
+        // Opens the level being designed when the journal does not end in a game
+        private void finish() {
+            if (!playing && design != null) {
+                board.open(Level.of(design));
+            }
+        }
+    }
+
     /**
-     * Checks if the game has ended
+     * Checks if the game has ended: the level is solved or the mushroom is shown. The history is kept,
+     * so the moves of a solved level can still be saved; it is cleared when a game starts or ends
      *
      * @return true if the game has ended, false otherwise
      */
     public boolean endGame() {
         if (this.boxInTargetCountProperty().get() == this.goalCountProperty().get()) {
-            if (gridState.getBoardHistory() != null) {
-                gridState.getBoardHistory().clear();
-                gridState.setCurrentIndex(0);
-                return true;
-            }
+            return true;
         }
         return mushVisible();
     }
@@ -2,11 +2,8 @@ package sokoban.viewmodel;
 
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ReadOnlyListProperty;
-import javafx.scene.control.Label;
 import sokoban.model.*;
 
-import java.util.List;
-
 public class CellViewModel {
     private final Board board;
     private final int line, col;
@@ -31,31 +28,6 @@ public class CellViewModel {
         return valueProperty();
     }
 
-    protected static char getSymbolForElement(List<GameElement> elements) {
-        if (elements.stream().anyMatch(element -> element instanceof Wall)) {
-            return '#';
-        } else if (elements.stream().anyMatch(element -> element instanceof Goal)
-                && elements.size() < 3) {
-            return '.';
-        } else if (elements.stream().anyMatch(element -> element instanceof Box)
-                && elements.size() < 3) {
-            return '$';
-        } else if ((elements.stream().anyMatch(element -> element instanceof Box))
-                && (elements.stream().anyMatch(element -> element instanceof Goal))) {
-            return '*';
-        } else if (elements.stream().anyMatch(element -> element instanceof Player)
-                && elements.size() < 3) {
-            return '@';
-        } else if ((elements.stream().anyMatch(element -> element instanceof Player))
-                && (elements.stream().anyMatch(element -> element instanceof Goal))) {
-            return '+';
-        } else if (elements.stream().anyMatch(element -> element instanceof Ground)) {
-            return ' ';
-        } else {
-            return ' ';
-        }
-    }
-
     public Board getBoard() {
         return board;
     }
@@ -72,45 +44,32 @@ public class CellViewModel {
         return (valueProperty().stream().anyMatch(element -> element instanceof Box));
     }
 
-    public Label createBoxNumberLabel() {
-        if (isBox()) {
-            Box box = (Box) getCellValue().stream().filter(element -> element instanceof Box).findFirst().orElse(null);
-            if (box != null && box.getNumberLabel() != null) {
-                Label numberLabel = box.getNumberLabel();
-                numberLabel.setStyle("-fx-font-size: 26px; -fx-text-fill: black;" +
-                        " -fx-font-weight: bold; -fx-background-color: white; -fx-padding: 30%; -fx-height: 50%");
-                return numberLabel;
+    /**
+     * Gets the number of the box of the cell.
+     *
+     * @return the number, 0 if there is no box or it is not numbered.
+     */
+    public int getBoxNumber() {
+        for (GameElement element : getCellValue()) {
+            if (element instanceof Box) {
+                return ((Box) element).getNumber();
             }
         }
-        return null;
+        return 0;
     }
 
-    public Label getBoxNumberLabel() {
-        Label label = new Label();
-        if (isBox()){
-            for (GameElement element : getCellValue()) {
-                if (element instanceof Box) {
-                    label = ((Box) element).getNumberLabel();
-                    label.setStyle("-fx-font-size: 26px; -fx-text-fill: black;" +
-                            " -fx-font-weight: bold; -fx-background-color: white; -fx-padding: 30%; -fx-height: 50%");
-            }
-            }
-        }
-        return label;
-    }
-
-    public Label getGoalNumberLabel() {
-        Label label = new Label();
-        if (isGoal()) {
-            for (GameElement element : getCellValue()) {
-                if (element instanceof Goal) {
-                    label = ((Goal) element).getNumberLabel();
-                    label.setStyle("-fx-font-size: 10px; -fx-text-fill: black;" +
-                            " -fx-font-weight: bold; -fx-background-color: white; -fx-padding: 30%; -fx-height: 20%");
-                }
+    /**
+     * Gets the number of the goal of the cell.
+     *
+     * @return the number, 0 if there is no goal or it is not numbered.
+     */
+    public int getGoalNumber() {
+        for (GameElement element : getCellValue()) {
+            if (element instanceof Goal) {
+                return ((Goal) element).getNumber();
             }
         }
-        return label;
+        return 0;
     }
 
     /**
@@ -122,7 +81,7 @@ public class CellViewModel {
     }
 
     public void placeMushroom(){
-        board.mushroom(board.getGrid());
+        board.mushroom(board.getPlayGrid());
     }
 
     public boolean mushroomDisplay(){
@@ -131,6 +90,7 @@ public class CellViewModel {
 
     public void addBoardHistory(){
         board.getGridState().addBoardState(board);
+        board.journalPosition(true);
     }
     public boolean isGoal() {
         return (valueProperty().stream().anyMatch(element -> element instanceof Goal));
@@ -1,34 +1,106 @@
 package sokoban.viewmodel;
 
+import javafx.beans.property.ReadOnlyLongProperty;
 import sokoban.model.*;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.List;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class GridViewModel {
+    // Background thread writing the files saved by saveMenu, in the order of the saves
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sokoban-save");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final Board board;
     GridViewModel(Board board) {this.board = board;}
     public CellViewModel getCellViewModel(int line, int col) {
         return new CellViewModel(line,col, board);
     }
-    public void saveMenu(Grid grid, File selectedFile){
+    /**
+     * Saves the grid in the XSB format, run-length encoded when the file name ends with .rle,
+     * or in the binary form when it ends with .sokb
+     * <p>
+     * The position is copied right away, so the grid can change as soon as this method returns; the file is
+     * encoded and written atomically on a background thread (see LevelWriter), one save after the other.
+     * Saving the level being designed empties the journal of the work in progress.
+     *
+     * @param grid         the grid to save
+     * @param selectedFile the file to write
+     * @return a future completed when the file is written, or completed exceptionally if it could not be
+     */
+    public CompletableFuture<Void> saveMenu(Grid grid, File selectedFile) {
+        PlayState state = grid.snapshot();
+        Path path = selectedFile.toPath();
+        if (grid == board.getGrid() && grid instanceof Grid4Design && board.getJournal() != null) {
+            board.getJournal().clear(); // The level is saved, nothing left to restore
+        }
+        return CompletableFuture.runAsync(() -> {
+            try {
+                LevelWriter.write(state, path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(selectedFile))) {
-            for (int i = 0; i < grid.getGridHeight(); i++) {
-                for (int j = 0; j < grid.getGridWidth(); j++) {
-                    List<GameElement> cellItems = grid.getValues(i, j);
-                    char symbol = CellViewModel.getSymbolForElement(cellItems);
-                    writer.print(symbol);
-                }
-                writer.println();
+    /**
+     * Writes a file atomically on the background thread of the saves, after the saves already asked for
+     *
+     * @param path    the file to write
+     * @param content the new content of the file
+     * @return a future completed when the file is written, or completed exceptionally if it could not be
+     */
+    static CompletableFuture<Void> write(Path path, ByteBuffer content) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                LevelWriter.writeAtomically(path, content);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-        } catch (Exception e) {
-            // Gérer l'exception IOException ici
-            System.out.println("aucun fichier sauvegardé");
-        }
+        }, executor);
+    }
+
+    /**
+     * Gets the position of the play grid, to draw it without the views of the cells
+     *
+     * @return the state of the play grid
+     */
+    public PlayState getPlayState() {
+        return board.getPlayGrid().getState();
+    }
+
+    /**
+     * Property incremented at each change of the play grid
+     *
+     * @return the revision property of the play grid
+     */
+    public ReadOnlyLongProperty revisionProperty() {
+        return board.getPlayGrid().revisionProperty();
+    }
+
+    /**
+     * Gets the cells of the play grid changed since the view last drew them
+     *
+     * @return the changed cells
+     */
+    public ChangedCells getChanges() {
+        return board.getPlayGrid().getChanges();
+    }
+
+    /**
+     * Forgets the changed cells of the play grid, once the view drew them
+     */
+    public void clearChanges() {
+        board.getPlayGrid().clearChanges();
     }
 
     public int gridWidth(){
@@ -0,0 +1,82 @@
+package sokoban.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryLevelTest {
+
+    private static PlayState level() {
+        return PlayState.parse(List.of(
+                "  #####",
+                "###   #",
+                "#.@$  #",
+                "### $.#",
+                "#.##$ #",
+                "# # . ##",
+                "#$ *$$.#",
+                "#   .  #",
+                "########"));
+    }
+
+    private static void assertSamePosition(PlayState expected, PlayState actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int index = 0; index < expected.size(); index++) {
+            assertEquals(expected.getCell(index), actual.getCell(index), "cell " + index);
+            assertEquals(expected.getBoxNumber(index), actual.getBoxNumber(index), "box " + index);
+            assertEquals(expected.getGoalNumber(index), actual.getGoalNumber(index), "goal " + index);
+        }
+        assertEquals(expected.getPlayer(), actual.getPlayer());
+        assertEquals(expected.getMushroom(), actual.getMushroom());
+        assertEquals(expected.isMushroomVisible(), actual.isMushroomVisible());
+        assertEquals(expected.getHash(), actual.getHash());
+    }
+
+    @Test
+    void levelWithoutNumbersIsReadBack() throws IOException {
+        PlayState state = level();
+        assertSamePosition(state, BinaryLevel.read(BinaryLevel.encode(state)));
+    }
+
+    @Test
+    void gameWithNumbersAndTheMushroomIsReadBack() throws IOException {
+        PlayState state = level();
+        state.numberBoxes();
+        state.numberGoals();
+        state.shuffleGoalNumbers(new Random(3));
+        state.placeMushroom(new Random(5));
+        assertFalse(state.isMushroomVisible());
+        assertSamePosition(state, BinaryLevel.read(BinaryLevel.encode(state)));
+
+        assertTrue(state.toggleMushroom());
+        assertSamePosition(state, BinaryLevel.read(BinaryLevel.encode(state)));
+    }
+
+    @Test
+    void sizeNotMultipleOfTheWordsIsReadBack() throws IOException {
+        // 65 cells: the layers take two words, the last one with a single cell
+        StringBuilder line = new StringBuilder("@$.");
+        line.append(" ".repeat(61)).append('#');
+        PlayState state = PlayState.parse(List.of(line.toString()));
+        assertSamePosition(state, BinaryLevel.read(BinaryLevel.encode(state)));
+    }
+
+    @Test
+    void otherBytesAreRejected() {
+        ByteBuffer text = ByteBuffer.wrap("#####\n#@$.#\n#####\n".getBytes());
+        assertThrows(IOException.class, () -> BinaryLevel.read(text));
+
+        ByteBuffer encoded = BinaryLevel.encode(level());
+        ByteBuffer truncated = encoded.limit(encoded.limit() - 3);
+        assertThrows(IOException.class, () -> BinaryLevel.read(truncated));
+    }
+}
@@ -0,0 +1,50 @@
+package sokoban.model;
+
+import org.junit.jupiter.api.Test;
+import sokoban.solver.Solver;
+import sokoban.solver.SolverResult;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadlocksTest {
+
+    // Two boxes side by side under a wall: the right one is only frozen while the left one is taken as a wall,
+    // but the left one can be pushed up to its goal
+    private static final List<String> NEIGHBOUR_TAKEN_AS_WALL = List.of(
+            "#########",
+            "####.####",
+            "#.  $$  #",
+            "#   @   #",
+            "#########");
+
+    @Test
+    void neighbourFrozenOnlyByTheCheckedBoxIsNoDeadlock() {
+        PlayState state = PlayState.parse(NEIGHBOUR_TAKEN_AS_WALL);
+        Deadlocks deadlocks = Deadlocks.of(state);
+
+        assertFalse(deadlocks.isDeadlocked(state));
+        assertFalse(deadlocks.isDeadlockedAfterPush(state, state.index(2, 4)));
+        assertFalse(deadlocks.isDeadlockedAfterPush(state, state.index(2, 5)));
+
+        SolverResult result = new Solver().solve(state);
+        assertEquals(SolverResult.Status.SOLVED, result.getStatus());
+    }
+
+    @Test
+    void boxesFrozenAgainstEachOtherOffTheirGoalsAreADeadlock() {
+        PlayState state = PlayState.parse(List.of(
+                "#######",
+                "#.   .#",
+                "#  $$ #",
+                "#  $$ #",
+                "#@ .. #",
+                "#######"));
+        Deadlocks deadlocks = Deadlocks.of(state);
+
+        assertTrue(deadlocks.isDeadlocked(state));
+    }
+}
@@ -0,0 +1,196 @@
+package sokoban.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GridStateTest {
+
+    private final Board board = new Board();
+    private final GridState history = new GridState();
+
+    private Grid4Play play(String... lines) {
+        PlayState state = PlayState.parse(List.of(lines));
+        Grid4Play grid = new Grid4Play(state.getWidth(), state.getHeight());
+        grid.load(state);
+        board.setGrid(grid);
+        history.addBoardState(board);
+        return grid;
+    }
+
+    // Plays a move and records it as BoardViewModel.movePlayer does
+    private void move(Grid4Play grid, Direction direction) {
+        MoveResult result = grid.movePlayer(direction);
+        assertTrue(result.isMove(), "Move " + direction + " blocked");
+        history.addBoardState(board, direction.getLetter(result == MoveResult.PUSHED));
+    }
+
+    @Test
+    void undoAndRedoPutBackTheCells() {
+        Grid4Play grid = play(
+                "#######",
+                "#@ $ .#",
+                "#######");
+        PlayState start = grid.snapshot();
+        move(grid, Direction.RIGHT);
+        move(grid, Direction.RIGHT);
+        PlayState pushed = grid.snapshot();
+
+        assertTrue(history.undo(grid));
+        assertTrue(history.undo(grid));
+        assertFalse(history.undo(grid));
+        assertEquals(start.getHash(), grid.getHash());
+        assertEquals(CellState.BOX, grid.getCell(1, 3));
+        assertEquals(CellState.PLAYER, grid.getCell(1, 1));
+
+        assertTrue(history.redo(grid));
+        assertTrue(history.redo(grid));
+        assertFalse(history.redo(grid));
+        assertEquals(pushed.getHash(), grid.getHash());
+        assertEquals(CellState.BOX, grid.getCell(1, 4));
+        assertEquals(CellState.PLAYER, grid.getCell(1, 3));
+    }
+
+    @Test
+    void newMoveAfterUndoDropsTheRedo() {
+        Grid4Play grid = play(
+                "#####",
+                "# @ #",
+                "#   #",
+                "#####");
+        move(grid, Direction.RIGHT);
+        history.undo(grid);
+        move(grid, Direction.DOWN);
+
+        assertFalse(history.hasNextState());
+        assertEquals("d", history.getMoves());
+    }
+
+    @Test
+    void restoreRebuildsStatesAcrossCheckpoints() {
+        int moves = 2 * GridState.CHECKPOINT_INTERVAL + 10;
+        Grid4Play grid = play("@" + " ".repeat(moves));
+        for (int i = 0; i < moves; i++) {
+            move(grid, Direction.RIGHT);
+        }
+        assertEquals(moves + 1, history.size());
+
+        for (int index : new int[]{GridState.CHECKPOINT_INTERVAL + 3, 5, moves, 0, GridState.CHECKPOINT_INTERVAL}) {
+            history.restore(grid, index);
+            assertEquals(index, grid.getState().getPlayer());
+            assertEquals(Zobrist.hash(grid.getState()), grid.getHash());
+            assertEquals(1, grid.playerCountProperty().get());
+        }
+        assertTrue(history.redo(grid));
+        assertEquals(GridState.CHECKPOINT_INTERVAL + 1, grid.getState().getPlayer());
+    }
+
+    @Test
+    void getMovesListsTheLettersWithThePushesInUppercase() {
+        Grid4Play grid = play(
+                "#######",
+                "#@ $ .#",
+                "#     #",
+                "#######");
+        assertEquals("", history.getMoves());
+        move(grid, Direction.RIGHT);
+        move(grid, Direction.RIGHT);
+        move(grid, Direction.DOWN);
+        assertEquals("rRd", history.getMoves());
+
+        history.undo(grid);
+        assertEquals("rR", history.getMoves());
+
+        grid.shuffleBoxes(new Random(1));
+        history.addBoardState(board);
+        assertNull(history.getMoves());
+    }
+
+    @Test
+    void movesBackToAnEarlierPositionCollapseTheLoop() {
+        Grid4Play grid = play(
+                "######",
+                "#@   #",
+                "######");
+        move(grid, Direction.RIGHT);
+        move(grid, Direction.RIGHT);
+        move(grid, Direction.RIGHT);
+        move(grid, Direction.LEFT);
+        move(grid, Direction.LEFT);
+
+        assertEquals(1, history.getCurrentIndex());
+        assertEquals(1, history.getMoveCount());
+        assertEquals("r", history.getMoves());
+        assertFalse(history.hasNextState());
+        assertTrue(history.undo(grid));
+        assertEquals(0, history.getMoveCount());
+        assertEquals(grid.getState().index(1, 1), grid.getState().getPlayer());
+    }
+
+    @Test
+    void loopThroughAStateThatIsNotAMoveIsKept() {
+        Grid4Play grid = play(
+                "######",
+                "#@   #",
+                "######");
+        PlayState state = grid.getState();
+        move(grid, Direction.RIGHT);
+        move(grid, Direction.RIGHT);
+        // The mushroom put where the player started, a change the hash does not see
+        state.setCell(state.index(1, 1), CellState.MUSHROOM);
+        history.addBoardState(board);
+        move(grid, Direction.LEFT);
+
+        assertEquals(4, history.getCurrentIndex());
+        assertEquals(3, history.getMoveCount());
+        assertNull(history.getMoves());
+
+        history.undo(grid);
+        assertEquals(state.index(1, 1), state.getMushroom());
+        history.undo(grid);
+        assertEquals(-1, state.getMushroom());
+        history.undo(grid);
+        history.undo(grid);
+        assertEquals(CellState.PLAYER, state.getCell(state.index(1, 1)));
+        assertEquals(0, history.getMoveCount());
+    }
+
+    @Test
+    void largeBoxNumbersArePutBackByUndo() {
+        Grid4Play grid = play(
+                "#####",
+                "#@$ #",
+                "#####");
+        PlayState state = grid.getState();
+        int box = state.index(1, 2);
+        state.setNumbers(box, GridState.MAX_BOX_NUMBER, 0);
+        history.clear();
+        history.addBoardState(board);
+
+        move(grid, Direction.RIGHT);
+        assertEquals(GridState.MAX_BOX_NUMBER, state.getBoxNumber(state.index(1, 3)));
+        history.undo(grid);
+        assertEquals(GridState.MAX_BOX_NUMBER, state.getBoxNumber(box));
+        assertEquals(0, state.getBoxNumber(state.index(1, 3)));
+    }
+
+    @Test
+    void boxNumbersTheHistoryCannotHoldAreRejected() {
+        Grid4Play grid = play(
+                "#####",
+                "#@$ #",
+                "#####");
+        grid.getState().setNumbers(grid.getState().index(1, 2), GridState.MAX_BOX_NUMBER + 1, 0);
+        history.clear();
+
+        assertThrows(IllegalArgumentException.class, () -> history.addBoardState(board));
+        assertTrue(history.isEmpty());
+    }
+}
@@ -0,0 +1,203 @@
+package sokoban.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalTest {
+    // Size of a record without data: type, length and CRC
+    private static final int OVERHEAD = 9;
+
+    @TempDir
+    Path directory;
+
+    private static PlayState level() {
+        return PlayState.parse(List.of(
+                "#####",
+                "#@$.#",
+                "#####"));
+    }
+
+    // Lists the records replayed, one line per record
+    private static final class Recorder implements Journal.Handler {
+        private final List<String> records = new ArrayList<>();
+
+        @Override
+        public void design(PlayState state) {
+            records.add("design " + state.getWidth() + "x" + state.getHeight());
+        }
+
+        @Override
+        public void cell(int index, byte code) {
+            records.add("cell " + index + " " + code);
+        }
+
+        @Override
+        public void play(PlayState state) {
+            records.add("play " + state.getPlayer());
+        }
+
+        @Override
+        public void move(char letter) {
+            records.add("move " + letter);
+        }
+
+        @Override
+        public void undo() {
+            records.add("undo");
+        }
+
+        @Override
+        public void redo() {
+            records.add("redo");
+        }
+
+        @Override
+        public void position(PlayState state, long moveCount, boolean history) {
+            records.add("position " + state.getPlayer() + " " + moveCount + " " + history);
+        }
+
+        @Override
+        public void end() {
+            records.add("end");
+        }
+    }
+
+    private static List<String> replay(Path path) throws IOException {
+        Recorder recorder = new Recorder();
+        int count = Journal.replay(path, recorder);
+        assertEquals(recorder.records.size(), count);
+        return recorder.records;
+    }
+
+    // Writes a design, a game with a move, and two more moves: 4 records before the last two moves
+    private Path writeGame() throws IOException {
+        Path path = directory.resolve("journal");
+        try (Journal journal = new Journal(path)) {
+            journal.design(level());
+            journal.play(level());
+            journal.move('R');
+            journal.undo();
+            journal.move('r');
+            journal.move('l');
+        }
+        return path;
+    }
+
+    @Test
+    void recordsAreReplayedInOrder() throws IOException {
+        Path path = directory.resolve("journal");
+        PlayState state = level();
+        try (Journal journal = new Journal(path)) {
+            journal.design(state);
+            journal.cell(7, CellState.GOAL);
+            journal.play(state);
+            journal.move('R');
+            journal.undo();
+            journal.redo();
+            journal.position(state, 42, true);
+            journal.end();
+        }
+
+        assertTrue(Journal.hasRecords(path));
+        assertEquals(List.of("design 5x3", "cell 7 2", "play 6", "move R", "undo", "redo", "position 6 42 true", "end"),
+                replay(path));
+    }
+
+    @Test
+    void recordsAfterATornWriteAreIgnored() throws IOException {
+        Path path = writeGame();
+        byte[] bytes = Files.readAllBytes(path);
+        // The last move cut in the middle, as by a crash during the write
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertEquals(List.of("design 5x3", "play 6", "move R", "undo", "move r"), replay(path));
+    }
+
+    @Test
+    void recordsFromADamagedOneAreIgnored() throws IOException {
+        Path path = writeGame();
+        byte[] bytes = Files.readAllBytes(path);
+        int move = 2 * OVERHEAD + 2 * BinaryLevel.encode(level()).remaining();
+        bytes[move + 1 + Integer.BYTES + 1] ^= 1; // The letter of the first move, after its type and length
+        Files.write(path, bytes);
+
+        assertEquals(List.of("design 5x3", "play 6"), replay(path));
+    }
+
+    @Test
+    void recordWithAnImpossibleLengthStopsTheReplay() throws IOException {
+        Path path = writeGame();
+        byte[] bytes = Files.readAllBytes(path);
+        int move = 2 * OVERHEAD + 2 * BinaryLevel.encode(level()).remaining();
+        bytes[move + 1] = (byte) 0x7F; // Length of the first move, far past the end of the file
+        Files.write(path, bytes);
+
+        assertEquals(List.of("design 5x3", "play 6"), replay(path));
+    }
+
+    @Test
+    void missingJournalHasNoRecords() throws IOException {
+        Path path = directory.resolve("missing");
+        assertFalse(Journal.hasRecords(path));
+        assertEquals(List.of(), replay(path));
+    }
+
+    @Test
+    void designStartsTheJournalOverAndClearEmptiesIt() throws IOException {
+        Path path = writeGame();
+        try (Journal journal = new Journal(path)) {
+            journal.move('u');
+            journal.design(level());
+            journal.cell(6, CellState.EMPTY);
+            journal.flush();
+            assertEquals(List.of("design 5x3", "cell 6 0"), replay(path));
+
+            journal.clear();
+            journal.flush();
+            assertTrue(journal.isEmpty());
+            assertFalse(Files.exists(path));
+        }
+    }
+
+    @Test
+    void compactedJournalIsCompactedAgainOnlyWhenItDoubled() throws IOException {
+        Path path = directory.resolve("journal");
+        try (Journal journal = new Journal(path)) {
+            journal.design(level());
+            journal.play(level());
+            long moveBytes = OVERHEAD + Character.BYTES;
+            long moves = Journal.COMPACT_BYTES / moveBytes + 1;
+            for (long i = 0; i < moves; i++) {
+                journal.move('r');
+            }
+            assertTrue(journal.needsCompaction());
+
+            // The compaction writes the same records again, then takes them all as the snapshot
+            journal.design(level());
+            journal.play(level());
+            for (long i = 0; i < moves; i++) {
+                journal.move('r');
+            }
+            journal.markCompacted();
+            long added = 0;
+            while (!journal.needsCompaction()) {
+                journal.move('r');
+                added++;
+            }
+            // As many moves again as the snapshot holds, plus the size of the design and of the start of the game
+            assertTrue(added > moves, added + " moves");
+            assertTrue(added < moves + 2 * BinaryLevel.encode(level()).remaining(), added + " moves");
+        }
+    }
+}
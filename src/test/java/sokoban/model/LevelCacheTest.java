@@ -0,0 +1,126 @@
+package sokoban.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LevelCacheTest {
+    // 5 x 3 cells and the estimated size of an entry, see LevelCache.weight
+    private static final long LEVEL_BYTES = 5 * 3 + 160;
+
+    @TempDir
+    Path directory;
+
+    private Path write(String name, String text) throws IOException {
+        return Files.writeString(directory.resolve(name), text);
+    }
+
+    private Path level(String name) throws IOException {
+        return write(name, "#####\n#@$.#\n#####\n");
+    }
+
+    @Test
+    void levelReadAgainIsTakenFromTheCache() throws IOException {
+        LevelCache cache = new LevelCache(LevelCache.DEFAULT_MAX_BYTES);
+        Path path = level("a.xsb");
+
+        Level first = cache.get(path);
+        assertSame(first, cache.get(path));
+        assertSame(first, cache.get(directory.resolve(".").resolve("a.xsb")));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(LEVEL_BYTES, cache.getBytes());
+    }
+
+    @Test
+    void changedFileIsReadAgain() throws IOException {
+        LevelCache cache = new LevelCache(LevelCache.DEFAULT_MAX_BYTES);
+        Path path = level("a.xsb");
+        Level first = cache.get(path);
+
+        // Same size, later date
+        write("a.xsb", "#####\n#@*.#\n#####\n");
+        Files.setLastModifiedTime(path, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() + 2000));
+        Level changed = cache.get(path);
+        assertNotSame(first, changed);
+        assertEquals(CellState.BOX | CellState.GOAL, changed.getCell(1, 2));
+
+        // Same date, other size
+        FileTime date = Files.getLastModifiedTime(path);
+        write("a.xsb", "######\n#@$ .#\n######\n");
+        Files.setLastModifiedTime(path, date);
+        assertEquals(6, cache.get(path).getWidth());
+
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.size());
+        assertEquals(6 * 3 + 160, cache.getBytes());
+    }
+
+    @Test
+    void levelsUsedLeastRecentlyAreDroppedFirst() throws IOException {
+        LevelCache cache = new LevelCache(2 * LEVEL_BYTES);
+        Path a = level("a.xsb");
+        Path b = level("b.xsb");
+        Path c = level("c.xsb");
+
+        Level levelA = cache.get(a);
+        Level levelB = cache.get(b);
+        assertSame(levelA, cache.get(a)); // b is now the least recently used
+        cache.get(c);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2 * LEVEL_BYTES, cache.getBytes());
+        assertSame(levelA, cache.get(a));
+        assertNotSame(levelB, cache.get(b));
+        assertEquals(2, cache.getEvictions()); // c, then used least recently, made room for b
+    }
+
+    @Test
+    void levelLargerThanTheCacheIsNotKept() throws IOException {
+        LevelCache cache = new LevelCache(LEVEL_BYTES);
+        Path small = level("small.xsb");
+        Path large = write("large.xsb", "#".repeat(100) + "\n#@$.#\n");
+        Level kept = cache.get(small);
+
+        cache.get(large);
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.getEvictions());
+        assertSame(kept, cache.get(small));
+    }
+
+    @Test
+    void binaryLevelsAreReadByTheirExtension() throws IOException {
+        LevelCache cache = new LevelCache(LevelCache.DEFAULT_MAX_BYTES);
+        Path path = directory.resolve("a.sokb");
+        BinaryLevel.write(PlayState.parse(List.of("#####", "#@$.#", "#####")), path);
+
+        Level level = cache.get(path);
+        assertEquals(5, level.getWidth());
+        assertEquals(CellState.BOX, level.getCell(1, 2));
+    }
+
+    @Test
+    void clearKeepsTheCounters() throws IOException {
+        LevelCache cache = new LevelCache(LevelCache.DEFAULT_MAX_BYTES);
+        Path path = level("a.xsb");
+        cache.get(path);
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+        cache.get(path);
+        assertEquals(2, cache.getMisses());
+        assertThrows(IllegalArgumentException.class, () -> new LevelCache(0));
+    }
+}
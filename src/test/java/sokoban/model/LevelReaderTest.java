@@ -0,0 +1,152 @@
+package sokoban.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LevelReaderTest {
+
+    private static Level read(String text) throws IOException {
+        return LevelReader.read(new StringReader(text));
+    }
+
+    // The level as XSB lines, without the padding of the short lines
+    private static String toXsb(Level level) {
+        StringBuilder text = new StringBuilder();
+        for (int line = 0; line < level.getHeight(); line++) {
+            StringBuilder row = new StringBuilder();
+            for (int col = 0; col < level.getWidth(); col++) {
+                row.append(CellState.toSymbol(level.getCell(line, col)));
+            }
+            text.append(row.toString().stripTrailing()).append('\n');
+        }
+        return text.toString();
+    }
+
+    @Test
+    void readsTheSymbolsAndPadsTheShortLines() throws IOException {
+        Level level = read("#####\n#@$.#\n\n#*+\n###");
+
+        assertEquals(5, level.getWidth());
+        assertEquals(4, level.getHeight());
+        assertEquals("#####\n#@$.#\n#*+\n###\n", toXsb(level));
+        assertEquals(CellState.EMPTY, level.getCell(2, 4));
+        assertEquals(CellState.BOX | CellState.GOAL, level.getCell(2, 1));
+    }
+
+    @Test
+    void dashesAndUnderscoresAreGround() throws IOException {
+        Level level = read("#-_#");
+        assertEquals(CellState.EMPTY, level.getCell(0, 1));
+        assertEquals(CellState.EMPTY, level.getCell(0, 2));
+    }
+
+    @Test
+    void windowsEndOfLineSplitAcrossTwoBlocksEndsOneLine() throws IOException {
+        // The \r is the last character of the first block read, the \n the first one of the next block
+        String first = "#".repeat(8191);
+        Level level = read(first + "\r\n#@$.#\r\n");
+
+        assertEquals(2, level.getHeight());
+        assertEquals(8191, level.getWidth());
+        assertEquals(CellState.PLAYER, level.getCell(1, 1));
+    }
+
+    @Test
+    void oldMacEndOfLineEndsALine() throws IOException {
+        Level level = read("###\r#@#\r###");
+        assertEquals(3, level.getHeight());
+        assertEquals(CellState.PLAYER, level.getCell(1, 1));
+    }
+
+    @Test
+    void unknownSymbolIsReportedWithItsLineAndColumn() {
+        LevelFormatException error = assertThrows(LevelFormatException.class, () -> read("#####\r\n#@$x#\n#####"));
+        assertEquals(2, error.getLine());
+        assertEquals(4, error.getColumn());
+        assertTrue(error.getMessage().contains("'x'"));
+    }
+
+    @Test
+    void emptyLevelIsRejected() {
+        assertThrows(LevelFormatException.class, () -> read("\n\r\n\n"));
+    }
+
+    @Test
+    void readsTheRunsAndTheLineSeparatorsOfTheRleForm() throws IOException {
+        Level level = read("5#|#@$.#|#-*-#|12-|5#\n");
+
+        assertEquals(12, level.getWidth());
+        assertEquals(5, level.getHeight());
+        assertEquals("#####\n#@$.#\n# * #\n\n#####\n", toXsb(level));
+    }
+
+    @Test
+    void runsCanBeSplitOverLines() throws IOException {
+        Level level = read("3#\n#@#|3#");
+        assertEquals(3, level.getHeight());
+        assertEquals(CellState.PLAYER, level.getCell(1, 1));
+    }
+
+    @Test
+    void badRunsAreReportedWithTheirPosition() {
+        LevelFormatException tooLong = assertThrows(LevelFormatException.class, () -> read("#|700000#"));
+        assertEquals(1, tooLong.getLine());
+        assertEquals(7, tooLong.getColumn());
+
+        LevelFormatException noSymbol = assertThrows(LevelFormatException.class, () -> read("3#\n12|#"));
+        assertEquals(2, noSymbol.getLine());
+        assertEquals(3, noSymbol.getColumn());
+    }
+
+    @Test
+    void rleWriterEncodesTheRunsAndIsReadBack() throws IOException {
+        String xsb = "#######\n#@  $.#\n#######\n";
+        StringWriter encoded = new StringWriter();
+        try (RleWriter writer = new RleWriter(encoded)) {
+            writer.write(xsb);
+        }
+        assertEquals("7#|#@2-$.#|7#" + System.lineSeparator(), encoded.toString());
+        assertEquals(xsb, toXsb(read(encoded.toString())));
+    }
+
+    @Test
+    void levelWriterRleOutputIsReadBack() throws IOException {
+        PlayState state = PlayState.parse(List.of(
+                "  #####",
+                "###   #",
+                "#.@$  #",
+                "### $.#",
+                "#.##$ #",
+                "# # . ##",
+                "#$ *$$.#",
+                "#   .  #",
+                "########"));
+        String encoded = StandardCharsets.UTF_8.decode(LevelWriter.encode(state, "level.rle")).toString();
+        Level level = read(encoded);
+
+        assertEquals(state.getWidth(), level.getWidth());
+        assertEquals(state.getHeight(), level.getHeight());
+        for (int line = 0; line < state.getHeight(); line++) {
+            for (int col = 0; col < state.getWidth(); col++) {
+                assertEquals(state.getCell(state.index(line, col)), level.getCell(line, col));
+            }
+        }
+    }
+
+    @Test
+    void fileOfAnUnknownFormatIsRejected() {
+        LevelFormatException error = assertThrows(LevelFormatException.class,
+                () -> new Board().open(new File("level.txt")));
+        assertEquals(0, error.getLine());
+    }
+}
@@ -0,0 +1,83 @@
+package sokoban.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LevelRulesTest {
+
+    private static LevelRules check(String... lines) {
+        return LevelRules.check(PlayState.parse(List.of(lines)));
+    }
+
+    @Test
+    void closedLevelWithAsManyBoxesAsGoalsIsValid() {
+        LevelRules rules = check(
+                "#######",
+                "#@ $ .#",
+                "#  *  #",
+                "#######");
+        assertTrue(rules.isValid());
+        assertEquals(1, rules.getPlayers());
+        assertEquals(2, rules.getBoxes());
+        assertEquals(2, rules.getGoals());
+    }
+
+    @Test
+    void countsAreChecked() {
+        assertEquals(EnumSet.of(LevelRules.Violation.PLAYER_COUNT), check(
+                "######",
+                "# $. #",
+                "######").getViolations());
+        assertEquals(EnumSet.of(LevelRules.Violation.PLAYER_COUNT), check(
+                "######",
+                "#@$.@#",
+                "######").getViolations());
+        assertEquals(EnumSet.of(LevelRules.Violation.NO_BOX, LevelRules.Violation.BOX_GOAL_MISMATCH), check(
+                "######",
+                "#@ . #",
+                "######").getViolations());
+        assertEquals(EnumSet.of(LevelRules.Violation.NO_GOAL, LevelRules.Violation.BOX_GOAL_MISMATCH), check(
+                "######",
+                "#@ $ #",
+                "######").getViolations());
+        assertEquals(EnumSet.of(LevelRules.Violation.BOX_GOAL_MISMATCH), check(
+                "######",
+                "#@$$.#",
+                "######").getViolations());
+    }
+
+    @Test
+    void playerMustNotReachTheBorder() {
+        assertEquals(EnumSet.of(LevelRules.Violation.NOT_CLOSED), check(
+                "######",
+                "#@$. #",
+                "#### #").getViolations());
+        // A player on the border
+        assertEquals(EnumSet.of(LevelRules.Violation.NOT_CLOSED), check(
+                "@$.").getViolations());
+    }
+
+    @Test
+    void boxesMustBeInTheAreaOfThePlayer() {
+        LevelRules rules = check(
+                "########",
+                "#@ .#$.#",
+                "#  $####",
+                "#####");
+        assertEquals(EnumSet.of(LevelRules.Violation.UNREACHABLE_BOX), rules.getViolations());
+    }
+
+    @Test
+    void levelReadFromAFileIsCheckedAsItsPosition() {
+        Level level = Level.of(PlayState.parse(List.of(
+                "#####",
+                "#@$.#",
+                "#####")));
+        assertTrue(LevelRules.check(level).isValid());
+    }
+}
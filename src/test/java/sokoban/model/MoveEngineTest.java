@@ -0,0 +1,97 @@
+package sokoban.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoveEngineTest {
+
+    private static PlayState level(String... lines) {
+        return PlayState.parse(List.of(lines));
+    }
+
+    @Test
+    void moveToGroundMovesThePlayer() {
+        PlayState state = level(
+                "#####",
+                "#@  #",
+                "#####");
+        long hash = state.getHash();
+
+        assertEquals(MoveResult.MOVED, MoveEngine.apply(state, Direction.RIGHT));
+        assertEquals(state.index(1, 2), state.getPlayer());
+        assertEquals(CellState.EMPTY, state.getCell(state.index(1, 1)));
+        assertEquals(CellState.PLAYER, state.getCell(state.index(1, 2)));
+        assertEquals(Zobrist.hash(state), state.getHash());
+        assertEquals(2, state.getChangedCount());
+
+        assertEquals(MoveResult.MOVED, MoveEngine.apply(state, Direction.LEFT));
+        assertEquals(hash, state.getHash());
+    }
+
+    @Test
+    void pushMovesTheBoxWithItsNumber() {
+        PlayState state = level(
+                "######",
+                "#@$ .#",
+                "######");
+        state.numberBoxes();
+        int number = state.getBoxNumber(state.index(1, 2));
+
+        assertEquals(MoveResult.PUSHED, MoveEngine.apply(state, Direction.RIGHT));
+        assertEquals(state.index(1, 2), state.getPlayer());
+        assertTrue(CellState.has(state.getCell(state.index(1, 3)), CellState.BOX));
+        assertEquals(number, state.getBoxNumber(state.index(1, 3)));
+        assertEquals(0, state.getBoxNumber(state.index(1, 2)));
+        assertEquals(Zobrist.hash(state), state.getHash());
+        assertEquals(3, state.getChangedCount());
+    }
+
+    @Test
+    void wallsBoxesAndBordersBlockTheMove() {
+        PlayState state = level(
+                "@$$ ",
+                "#$  ",
+                " #  ");
+        long hash = state.getHash();
+
+        assertEquals(MoveResult.BLOCKED, MoveEngine.apply(state, Direction.UP));    // Border of the grid
+        assertEquals(MoveResult.BLOCKED, MoveEngine.apply(state, Direction.LEFT));  // Border of the grid
+        assertEquals(MoveResult.BLOCKED, MoveEngine.apply(state, Direction.DOWN));  // Wall
+        assertEquals(MoveResult.BLOCKED, MoveEngine.apply(state, Direction.RIGHT)); // Two boxes in a row
+        assertEquals(0, state.getPlayer());
+        assertEquals(hash, state.getHash());
+        assertEquals(0, state.getChangedCount());
+
+        state = level(
+                " @ ",
+                " $ ",
+                " # ");
+        assertEquals(MoveResult.BLOCKED, MoveEngine.apply(state, Direction.DOWN)); // Box against a wall
+
+        state = level(" @$");
+        assertEquals(MoveResult.BLOCKED, MoveEngine.apply(state, Direction.RIGHT)); // Box against the border
+    }
+
+    @Test
+    void stateWithoutPlayerIsBlocked() {
+        PlayState state = level(
+                "# $.#");
+        assertEquals(-1, state.getPlayer());
+        assertEquals(MoveResult.BLOCKED, MoveEngine.apply(state, Direction.RIGHT));
+    }
+
+    @Test
+    void boxCanBePushedOntoAGoalButNotOntoTheMushroom() {
+        PlayState state = level("@$.");
+        assertEquals(MoveResult.PUSHED, MoveEngine.apply(state, Direction.RIGHT));
+        assertEquals(CellState.BOX | CellState.GOAL, state.getCell(state.index(0, 2)));
+
+        state = level("@$ ");
+        state.setCell(state.index(0, 2), CellState.MUSHROOM);
+        assertEquals(MoveResult.BLOCKED, MoveEngine.apply(state, Direction.RIGHT));
+    }
+}
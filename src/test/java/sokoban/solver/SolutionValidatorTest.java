@@ -0,0 +1,97 @@
+package sokoban.solver;
+
+import org.junit.jupiter.api.Test;
+import sokoban.model.PlayState;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SolutionValidatorTest {
+
+    private static final PlayState LEVEL = PlayState.parse(List.of(
+            "#######",
+            "#@ $ .#",
+            "#     #",
+            "#######"));
+
+    @Test
+    void solutionIsReplayedToTheEnd() {
+        ValidationResult result = SolutionValidator.validate(LEVEL, "rRR");
+        assertEquals(ValidationResult.Status.SOLVED, result.getStatus());
+        assertEquals(3, result.getMoves());
+        assertEquals(2, result.getPushes());
+        assertEquals(0, result.getStep());
+        assertNull(result.getMessage());
+    }
+
+    @Test
+    void levelIsLeftUnchanged() {
+        long hash = LEVEL.getHash();
+        SolutionValidator.validate(LEVEL, "rRR");
+        assertEquals(hash, LEVEL.getHash());
+    }
+
+    @Test
+    void validMovesThatDoNotSolveAreUnsolved() {
+        ValidationResult result = SolutionValidator.validate(LEVEL, "rRdl");
+        assertEquals(ValidationResult.Status.UNSOLVED, result.getStatus());
+        assertEquals(4, result.getMoves());
+        assertEquals(1, result.getPushes());
+    }
+
+    @Test
+    void countsRepeatTheNextLetterAndWhiteSpaceIsIgnored() {
+        ValidationResult result = SolutionValidator.validate(LEVEL, " r\n2R\r\n");
+        assertEquals(ValidationResult.Status.SOLVED, result.getStatus());
+        assertEquals(3, result.getMoves());
+
+        result = SolutionValidator.validate(LEVEL, "d4r1u");
+        assertEquals(ValidationResult.Status.UNSOLVED, result.getStatus());
+        assertEquals(6, result.getMoves());
+    }
+
+    @Test
+    void blockedMoveIsInvalidAtItsStep() {
+        ValidationResult result = SolutionValidator.validate(LEVEL, "rR3R");
+        assertEquals(ValidationResult.Status.INVALID, result.getStatus());
+        assertEquals(4, result.getStep()); // The second push of the run, the box against the wall
+        assertEquals(2, result.getPushes());
+        assertTrue(result.getMessage().contains("blocked"));
+
+        assertEquals(1, SolutionValidator.validate(LEVEL, "u").getStep());
+    }
+
+    @Test
+    void caseMustMatchThePushes() {
+        ValidationResult push = SolutionValidator.validate(LEVEL, "rr");
+        assertEquals(ValidationResult.Status.INVALID, push.getStatus());
+        assertEquals(2, push.getStep());
+        assertTrue(push.getMessage().contains("uppercase"));
+
+        ValidationResult move = SolutionValidator.validate(LEVEL, "R");
+        assertEquals(ValidationResult.Status.INVALID, move.getStatus());
+        assertEquals(1, move.getStep());
+        assertTrue(move.getMessage().contains("does not push"));
+    }
+
+    @Test
+    void unknownLettersAndBadCountsAreInvalid() {
+        ValidationResult letter = SolutionValidator.validate(LEVEL, "rx");
+        assertEquals(ValidationResult.Status.INVALID, letter.getStatus());
+        assertEquals(2, letter.getStep());
+
+        assertEquals(ValidationResult.Status.INVALID, SolutionValidator.validate(LEVEL, "r2").getStatus());
+        assertEquals(ValidationResult.Status.INVALID, SolutionValidator.validate(LEVEL, "999999r").getStatus());
+    }
+
+    @Test
+    void solutionIsAlongsideTheLevel() {
+        assertEquals(Path.of("boards", "level01.lurd"), SolutionValidator.solutionOf(Path.of("boards", "level01.xsb")));
+        assertEquals(Path.of("level.lurd"), SolutionValidator.solutionOf(Path.of("level")));
+        assertEquals(Path.of(".hidden.lurd"), SolutionValidator.solutionOf(Path.of(".hidden")));
+    }
+}
@@ -0,0 +1,39 @@
+package sokoban.solver;
+
+import org.junit.jupiter.api.Test;
+import sokoban.model.PlayState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SolverTest {
+
+    // A corridor with the player, a box and its goal in the first row, the rest of the board walls
+    private static PlayState corridor(int width, int height) {
+        List<String> lines = new ArrayList<>();
+        for (int line = 0; line < height; line++) {
+            StringBuilder text = new StringBuilder("#".repeat(width));
+            if (line == 1) {
+                text.replace(1, 4, "@$.");
+            }
+            lines.add(text.toString());
+        }
+        return PlayState.parse(lines);
+    }
+
+    @Test
+    void boardAtTheLimitIsSolved() {
+        // 254 x 254 squares, 256 x 256 with the border added by the search
+        SolverResult result = new Solver().solve(corridor(254, 254));
+        assertEquals(SolverResult.Status.SOLVED, result.getStatus());
+        assertEquals("R", result.getSolution());
+    }
+
+    @Test
+    void boardOverTheLimitIsRejected() {
+        SolverResult result = new Solver().solve(corridor(300, 300));
+        assertEquals(SolverResult.Status.TOO_LARGE, result.getStatus());
+    }
+}
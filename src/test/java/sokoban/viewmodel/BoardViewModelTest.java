@@ -0,0 +1,125 @@
+package sokoban.viewmodel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sokoban.model.Board;
+import sokoban.model.Direction;
+import sokoban.model.Level;
+import sokoban.model.PlayState;
+import sokoban.solver.ValidationResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardViewModelTest {
+    // One push solves the level; the empty row leaves room for the mushroom, out of the way of the box
+    private static final List<String> ONE_PUSH = List.of(
+            "######",
+            "#@$.##",
+            "#    #",
+            "######");
+
+    @TempDir
+    Path directory;
+
+    private final Board board = new Board();
+    private final BoardViewModel viewModel = new BoardViewModel(board);
+
+    // Starts a game as the Play button does
+    private void play(List<String> level) {
+        board.open(Level.of(PlayState.parse(level)));
+        viewModel.saveGridDesign();
+        board.setGrid(viewModel.gridGame());
+    }
+
+    private boolean solved() {
+        return viewModel.boxInTargetCountProperty().get() == viewModel.goalCountProperty().get();
+    }
+
+    @Test
+    void movesOfASolvedLevelAreKeptUntilTheGameEnds() throws IOException {
+        play(ONE_PUSH);
+        assertTrue(viewModel.movePlayer(Direction.RIGHT));
+        assertTrue(solved());
+        assertEquals("R", viewModel.getMoves());
+
+        // Keys pressed after the winning push change nothing
+        assertFalse(viewModel.movePlayer(Direction.LEFT));
+        viewModel.undo();
+        viewModel.redo();
+        assertTrue(viewModel.endGame());
+        assertEquals("R", viewModel.getMoves());
+        assertEquals(1, viewModel.moveCountProperty().get());
+
+        File file = directory.resolve("level.lurd").toFile();
+        viewModel.saveMoves(file).join();
+        assertEquals("R", Files.readString(file.toPath()).strip());
+
+        viewModel.goToDesign();
+        assertEquals("", viewModel.getMoves());
+        assertEquals(0, viewModel.moveCountProperty().get());
+    }
+
+    @Test
+    void eachGameStartsWithAnEmptyHistory() {
+        play(ONE_PUSH);
+        viewModel.movePlayer(Direction.DOWN);
+        viewModel.goToDesign();
+
+        play(ONE_PUSH);
+        assertEquals("", viewModel.getMoves());
+        viewModel.movePlayer(Direction.RIGHT);
+        assertEquals("R", viewModel.getMoves());
+    }
+
+    @Test
+    void loadedMovesArePlayedToTheEndWithTheMushroomShown() throws IOException {
+        play(ONE_PUSH);
+        viewModel.movePlayer(Direction.DOWN);
+        assertTrue(viewModel.hideOrShow());
+        assertTrue(viewModel.endGame());
+
+        Path file = directory.resolve("level.lurd");
+        Files.writeString(file, "R\n");
+        ValidationResult result = viewModel.loadMoves(file.toFile());
+
+        assertEquals(ValidationResult.Status.SOLVED, result.getStatus());
+        assertTrue(solved());
+        assertEquals("R", viewModel.getMoves());
+        assertEquals(1, viewModel.moveCountProperty().get());
+    }
+
+    @Test
+    void loadedMovesArePlayedPastTheWinningPush() throws IOException {
+        play(ONE_PUSH);
+        Path file = directory.resolve("level.lurd");
+        Files.writeString(file, "Rl");
+        ValidationResult result = viewModel.loadMoves(file.toFile());
+
+        assertEquals(ValidationResult.Status.SOLVED, result.getStatus());
+        assertEquals("Rl", viewModel.getMoves());
+        assertEquals(2, viewModel.moveCountProperty().get());
+    }
+
+    @Test
+    void invalidMovesLeaveTheGameAsItWas() throws IOException {
+        play(ONE_PUSH);
+        viewModel.movePlayer(Direction.DOWN);
+        viewModel.movePlayer(Direction.RIGHT);
+        Path file = directory.resolve("level.lurd");
+        Files.writeString(file, "RR");
+        ValidationResult result = viewModel.loadMoves(file.toFile());
+
+        assertEquals(ValidationResult.Status.INVALID, result.getStatus());
+        assertEquals(2, result.getStep());
+        assertEquals("dr", viewModel.getMoves());
+        assertEquals(2, viewModel.moveCountProperty().get());
+    }
+}